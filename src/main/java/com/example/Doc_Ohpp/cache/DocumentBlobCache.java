@@ -0,0 +1,186 @@
+package com.example.Doc_Ohpp.cache;
+
+import com.example.Doc_Ohpp.service.DocumentContent;
+import com.example.Doc_Ohpp.service.S3Service;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Bounded local disk cache for hot S3 objects.
+ *
+ * Entries are whole objects stored as files in the cache directory. Caffeine keeps the index,
+ * enforces the size budget (W-TinyLFU eviction, weighted by file size) and guarantees that
+ * concurrent misses on the same key share a single download. Evicted or invalidated entries have
+ * their file deleted; readers that already opened the file keep reading it, since the open
+ * channel outlives the directory entry.
+ */
+@Component
+public class DocumentBlobCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentBlobCache.class);
+
+    static final String CACHE_NAME = "documentBlobCache";
+
+    private final S3Service s3Service;
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxEntrySize;
+    private final ExecutorService fillExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AsyncCache<String, CachedBlob> cache;
+
+    public DocumentBlobCache(S3Service s3Service,
+                             MeterRegistry meterRegistry,
+                             @Value("${document.cache.disk.enabled:true}") boolean enabled,
+                             @Value("${document.cache.disk.directory:${java.io.tmpdir}/doc-ohpp-blob-cache}") String directory,
+                             @Value("${document.cache.disk.max-size:2GB}") DataSize maxSize,
+                             @Value("${document.cache.disk.max-entry-size:64MB}") DataSize maxEntrySize) {
+        this.s3Service = s3Service;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.maxEntrySize = Math.min(maxEntrySize.toBytes(), Integer.MAX_VALUE);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedBlob blob) -> (int) blob.size())
+                .removalListener((String key, CachedBlob blob, RemovalCause cause) -> {
+                    if (blob != null) {
+                        blob.delete();
+                    }
+                })
+                .executor(fillExecutor)
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), CACHE_NAME);
+
+        if (enabled) {
+            prepareDirectory();
+        }
+    }
+
+    /**
+     * Return the cached copy of an object, downloading it on a miss. Concurrent callers asking
+     * for the same key wait on one shared download.
+     * @param s3Key The S3 object key
+     * @param size The object size, used to skip objects too large to cache
+     * @return The cached blob, or null if caching is disabled or the object is too large
+     */
+    public CachedBlob get(String s3Key, long size) {
+        if (!isCacheable(size)) {
+            return null;
+        }
+        return cache.get(s3Key, (key, executor) -> CompletableFuture.supplyAsync(() -> fill(key), executor))
+                .join();
+    }
+
+    /**
+     * Return the cached copy of an object without filling the cache on a miss
+     * @return The cached blob, or null if it is not cached (or still being downloaded)
+     */
+    public CachedBlob getIfPresent(String s3Key) {
+        if (!enabled) {
+            return null;
+        }
+        CompletableFuture<CachedBlob> future = cache.getIfPresent(s3Key);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        return future.join();
+    }
+
+    /**
+     * Drop an object from the cache and delete its file
+     */
+    public void invalidate(String s3Key) {
+        cache.synchronous().invalidate(s3Key);
+    }
+
+    public boolean isCacheable(long size) {
+        return enabled && size >= 0 && size <= maxEntrySize;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cache.synchronous().invalidateAll();
+        fillExecutor.shutdown();
+    }
+
+    private CachedBlob fill(String s3Key) {
+        Path file = directory.resolve(UUID.randomUUID() + ".blob");
+        try {
+            s3Service.downloadToFile(s3Key, file);
+            long size = Files.size(file);
+            logger.debug("Cached blob: s3Key={}, size={}", s3Key, size);
+            return new CachedBlob(file, size);
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new UncheckedIOException("Failed to cache blob " + s3Key, e);
+        } catch (RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Create the cache directory and remove files left behind by a previous run, whose index
+     * was lost with the process
+     */
+    private void prepareDirectory() {
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "*.blob")) {
+                for (Path leftover : leftovers) {
+                    deleteQuietly(leftover);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to prepare blob cache directory " + directory, e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete cached blob file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * A fully downloaded object in the cache directory
+     */
+    public record CachedBlob(Path file, long size) {
+
+        /**
+         * Open an inclusive byte range of the cached file for serving
+         */
+        public DocumentContent open(long start, long end) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            return DocumentContent.fromFile(channel, start, end - start + 1);
+        }
+
+        void delete() {
+            deleteQuietly(file);
+        }
+    }
+}
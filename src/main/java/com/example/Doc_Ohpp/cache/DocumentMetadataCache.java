@@ -0,0 +1,73 @@
+package com.example.Doc_Ohpp.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-process read-through cache of document items, keyed by document ID.
+ *
+ * Values are the raw DynamoDB attribute maps, stored as immutable copies, so every reader
+ * builds its own {@code Document} and no caller can change what others see. Entries expire
+ * after a short TTL, which bounds how stale an item can be when another instance wrote it.
+ * Writes made through this instance update or invalidate the entry directly.
+ */
+@Component
+public class DocumentMetadataCache {
+
+    static final String CACHE_NAME = "documentMetadataCache";
+
+    private final Cache<String, Map<String, AttributeValue>> cache;
+
+    public DocumentMetadataCache(MeterRegistry meterRegistry,
+                                 @Value("${document.cache.metadata.max-size:10000}") long maxSize,
+                                 @Value("${document.cache.metadata.ttl:10s}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Return the cached item, loading it on a miss. Concurrent misses for the same ID wait for
+     * a single load. Missing items (loader returns null) are not cached.
+     * @param documentId Document ID
+     * @param loader Reads the item from DynamoDB, returning null if it does not exist
+     * @return The item, or null if the document does not exist
+     */
+    public Map<String, AttributeValue> get(String documentId, Function<String, Map<String, AttributeValue>> loader) {
+        return cache.get(documentId, id -> {
+            Map<String, AttributeValue> item = loader.apply(id);
+            return item == null ? null : Map.copyOf(item);
+        });
+    }
+
+    /**
+     * @return The cached item, or null without loading it
+     */
+    public Map<String, AttributeValue> getIfPresent(String documentId) {
+        return cache.getIfPresent(documentId);
+    }
+
+    /**
+     * Store the current state of an item after writing or reading it
+     */
+    public void put(String documentId, Map<String, AttributeValue> item) {
+        cache.put(documentId, Map.copyOf(item));
+    }
+
+    public void invalidate(String documentId) {
+        cache.invalidate(documentId);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.Doc_Ohpp.cache;
+
+import com.example.Doc_Ohpp.model.DocumentMetadata;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * In-process cache of processing results, keyed by what determines them: the content digest
+ * computed at upload, the content type and the version of the processing that produced them.
+ * A document whose content was processed before reuses the result instead of redoing the work.
+ *
+ * Bumping a processor's version changes the key, so results of the old version are never
+ * reused and simply age out. Entries are weighed by their inline text, so the size budget
+ * bounds the heap the cache takes. Cached metadata is shared and must not be modified.
+ */
+@Component
+public class ProcessingResultCache {
+
+    static final String CACHE_NAME = "processingResultCache";
+
+    // Rough heap cost of an entry besides its text
+    private static final int ENTRY_OVERHEAD = 512;
+
+    private final boolean enabled;
+    private final Cache<String, ProcessingResult> cache;
+
+    public ProcessingResultCache(MeterRegistry meterRegistry,
+                                 @Value("${document.cache.results.enabled:true}") boolean enabled,
+                                 @Value("${document.cache.results.max-size:64MB}") DataSize maxSize,
+                                 @Value("${document.cache.results.ttl:24h}") Duration ttl) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, ProcessingResult result) -> result.weight())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * @param contentHash Digest of the content, or null if unknown
+     * @return The cached result, or null on a miss
+     */
+    public ProcessingResult get(String contentHash, String contentType, String processingVersion) {
+        if (!enabled || contentHash == null) {
+            return null;
+        }
+        return cache.getIfPresent(key(contentHash, contentType, processingVersion));
+    }
+
+    public void put(String contentHash, String contentType, String processingVersion, ProcessingResult result) {
+        if (enabled && contentHash != null) {
+            cache.put(key(contentHash, contentType, processingVersion), result);
+        }
+    }
+
+    public void invalidate(String contentHash, String contentType, String processingVersion) {
+        cache.invalidate(key(contentHash, contentType, processingVersion));
+    }
+
+    /**
+     * Drop every cached result, for example after changing processing outside of a processor version
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static String key(String contentHash, String contentType, String processingVersion) {
+        return contentHash + '|' + contentType + '|' + processingVersion;
+    }
+
+    /**
+     * What processing produced for a document
+     * @param sourceDocumentId The document that was processed
+     * @param metadata The extracted metadata, or null if the content type has no processor
+     */
+    public record ProcessingResult(String sourceDocumentId, DocumentMetadata metadata) {
+
+        int weight() {
+            String text = metadata != null ? metadata.getExtractedText() : null;
+            return ENTRY_OVERHEAD + (text != null ? text.length() * 2 : 0);
+        }
+    }
+}
@@ -2,14 +2,22 @@ package com.example.Doc_Ohpp.config;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
 
+import java.time.Duration;
+
 @Configuration
 public class AwsConfig {
 
@@ -42,4 +50,62 @@ public class AwsConfig {
                 .credentialsProvider(DefaultCredentialsProvider.create())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Async clients, only created with {@code aws.client.mode=async}. They share one Netty
+     * event loop; the connection pool bounds how many requests are on the wire at once, and
+     * further requests wait for a connection without holding a thread.
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "aws.client.mode", havingValue = "async")
+    static class AsyncClientsConfig {
+
+        @Value("${aws.region:eu-north-1}")
+        private String awsRegion;
+
+        @Value("${aws.client.async.max-concurrency:500}")
+        private int maxConcurrency = 500;
+
+        @Value("${aws.client.async.acquire-timeout:30s}")
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+
+        @Bean(destroyMethod = "close")
+        @ConditionalOnMissingBean(SdkAsyncHttpClient.class)
+        public SdkAsyncHttpClient awsAsyncHttpClient() {
+            return NettyNioAsyncHttpClient.builder()
+                    .maxConcurrency(maxConcurrency)
+                    .connectionAcquisitionTimeout(acquireTimeout)
+                    .build();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(S3AsyncClient.class)
+        public S3AsyncClient s3AsyncClient(SdkAsyncHttpClient httpClient) {
+            return S3AsyncClient.builder()
+                    .region(Region.of(awsRegion))
+                    .credentialsProvider(DefaultCredentialsProvider.create())
+                    .httpClient(httpClient)
+                    .build();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(DynamoDbAsyncClient.class)
+        public DynamoDbAsyncClient dynamoDbAsyncClient(SdkAsyncHttpClient httpClient) {
+            return DynamoDbAsyncClient.builder()
+                    .region(Region.of(awsRegion))
+                    .credentialsProvider(DefaultCredentialsProvider.create())
+                    .httpClient(httpClient)
+                    .build();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(SqsAsyncClient.class)
+        public SqsAsyncClient sqsAsyncClient(SdkAsyncHttpClient httpClient) {
+            return SqsAsyncClient.builder()
+                    .region(Region.of(awsRegion))
+                    .credentialsProvider(DefaultCredentialsProvider.create())
+                    .httpClient(httpClient)
+                    .build();
+        }
+    }
+}
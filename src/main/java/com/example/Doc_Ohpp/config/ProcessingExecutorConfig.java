@@ -0,0 +1,80 @@
+package com.example.Doc_Ohpp.config;
+
+import com.example.Doc_Ohpp.service.ProcessingJobQueue;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor for document processing, also the default for {@code @Async}.
+ *
+ * Each task runs on its own virtual thread, but at most {@code concurrency} run at once and at
+ * most {@code queue-capacity} wait; further submissions are rejected (AbortPolicy) rather than
+ * piling up. Waiting documents are ordered by {@link ProcessingJobQueue}: by priority lane, then
+ * shortest job first, with jobs waiting past max-wait served first. Active and queued task gauges
+ * are published as executor.active and executor.queued with name=documentProcessing.
+ */
+@Configuration
+public class ProcessingExecutorConfig implements AsyncConfigurer, WebMvcConfigurer {
+
+    public static final String EXECUTOR_NAME = "documentProcessingExecutor";
+
+    @Value("${document.processing.executor.concurrency:32}")
+    private int concurrency = 32;
+
+    @Value("${document.processing.executor.queue-capacity:1000}")
+    private int queueCapacity = 1000;
+
+    @Value("${document.processing.scheduling.max-wait:30s}")
+    private Duration maxWait = Duration.ofSeconds(30);
+
+    @Value("${document.processing.executor.keep-alive:60s}")
+    private Duration keepAlive = Duration.ofSeconds(60);
+
+    @Bean(name = EXECUTOR_NAME, destroyMethod = "shutdown")
+    public ThreadPoolExecutor documentProcessingExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency,
+                keepAlive.toMillis(), TimeUnit.MILLISECONDS,
+                new ProcessingJobQueue(queueCapacity, maxWait),
+                Thread.ofVirtual().name("doc-processing-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        // Virtual threads are cheap to recreate; let idle workers go
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Bean
+    public MeterBinder documentProcessingExecutorMetrics(@Qualifier(EXECUTOR_NAME) ThreadPoolExecutor executor) {
+        return new ExecutorServiceMetrics(executor, "documentProcessing", Tags.empty());
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return documentProcessingExecutor();
+    }
+
+    /**
+     * Declaring an Executor bean turns off Spring Boot's applicationTaskExecutor, which also
+     * served streamed responses. Downloads are I/O bound and must never be rejected by the
+     * processing limits, so they get a virtual thread each.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        SimpleAsyncTaskExecutor streamingExecutor = new SimpleAsyncTaskExecutor("mvc-async-");
+        streamingExecutor.setVirtualThreads(true);
+        configurer.setTaskExecutor(streamingExecutor);
+    }
+}
@@ -4,17 +4,32 @@ import com.amazonaws.xray.AWSXRay;
 import com.amazonaws.xray.entities.Subsegment;
 import com.amazonaws.xray.spring.aop.XRayEnabled;
 import com.example.Doc_Ohpp.model.Document;
+import com.example.Doc_Ohpp.model.DocumentFields;
+import com.example.Doc_Ohpp.model.DocumentLookup;
+import com.example.Doc_Ohpp.model.DocumentMetadata;
+import com.example.Doc_Ohpp.model.DocumentPage;
+import com.example.Doc_Ohpp.model.SearchHit;
+import com.example.Doc_Ohpp.service.DocumentContent;
 import com.example.Doc_Ohpp.service.DocumentProcessingService;
+import com.example.Doc_Ohpp.service.ProcessingCapacityExceededException;
+import com.example.Doc_Ohpp.service.UploadStage;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,58 +48,165 @@ public class DocumentController {
     }
 
     /**
-     * Upload a new document
+     * Upload a new document. priority (HIGH, NORMAL, LOW) overrides the processing lane picked
+     * from the file size and content type.
      */
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Map<String, Object>> uploadDocument(
             @RequestParam("file") MultipartFile file,
-            @RequestParam(value = "description", required = false) String description) {
+            @RequestParam(value = "description", required = false) String description,
+            @RequestParam(value = "priority", required = false) String priority) {
 
         logger.info("Document upload request: fileName={}, size={}", file.getOriginalFilename(), file.getSize());
 
         try {
-            Document document = documentProcessingService.uploadDocument(file);
+            Document document = documentProcessingService.uploadDocument(file, Document.ProcessingPriority.parse(priority));
+            return ResponseEntity.ok(uploadResponse(document));
+
+        } catch (IllegalArgumentException e) {
+            return invalidUploadResponse(e);
+        } catch (ProcessingCapacityExceededException e) {
+            return rejectedUploadResponse(e);
+        } catch (Exception e) {
+            return failedUploadResponse(e);
+        }
+    }
+
+    /**
+     * Upload a new document from the raw request body. The body is spooled to a temporary file
+     * and hashed on the way, so only a fixed-size buffer is held in memory; bodies without a
+     * Content-Length (chunked) are accepted too. The hash then names a shared blob: content already
+     * stored gains a reference, and only new content is uploaded to S3 from the spooled file.
+     */
+    @PutMapping("/upload")
+    public ResponseEntity<Map<String, Object>> uploadDocumentStream(
+            @RequestParam("fileName") String fileName,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            @RequestParam(value = "priority", required = false) String priority,
+            HttpServletRequest request) {
+
+        long contentLength = request.getContentLengthLong();
+        logger.info("Streaming document upload request: fileName={}, size={}", fileName, contentLength);
+
+        try {
+            Document document = documentProcessingService.uploadDocument(
+                    fileName, contentType, contentLength, request.getInputStream(),
+                    Document.ProcessingPriority.parse(priority));
+            return ResponseEntity.ok(uploadResponse(document));
+
+        } catch (IllegalArgumentException e) {
+            return invalidUploadResponse(e);
+        } catch (ProcessingCapacityExceededException e) {
+            return rejectedUploadResponse(e);
+        } catch (Exception e) {
+            return failedUploadResponse(e);
+        }
+    }
+
+    /**
+     * Load and latency of each upload stage. The stage with a full queue or a growing wait
+     * time is the bottleneck.
+     */
+    @GetMapping("/upload/stages")
+    public ResponseEntity<List<UploadStage.Stats>> getUploadStages() {
+        return ResponseEntity.ok(documentProcessingService.getUploadStageStats());
+    }
+
+    /**
+     * Upload several documents in one request
+     */
+    @PostMapping(value = "/upload/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Map<String, Object>> uploadDocuments(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "priority", required = false) String priority) {
+        logger.info("Batch upload request: files={}", files.size());
+
+        try {
+            List<DocumentProcessingService.BatchUploadResult> results = documentProcessingService.uploadDocuments(
+                    files, Document.ProcessingPriority.parse(priority));
+            long uploadedCount = results.stream().filter(DocumentProcessingService.BatchUploadResult::success).count();
 
             Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Document uploaded successfully");
-            response.put("documentId", document.getDocumentId());
-            response.put("fileName", document.getFileName());
-            response.put("status", document.getStatus());
-            response.put("uploadedAt", document.getUploadedAt());
+            response.put("success", uploadedCount == results.size());
+            response.put("message", uploadedCount + " of " + results.size() + " documents uploaded");
+            response.put("uploadedCount", uploadedCount);
+            response.put("failedCount", results.size() - uploadedCount);
+            response.put("results", results);
 
             return ResponseEntity.ok(response);
 
         } catch (IllegalArgumentException e) {
-            logger.warn("Invalid upload request: {}", e.getMessage());
+            return invalidUploadResponse(e);
+        } catch (ProcessingCapacityExceededException e) {
+            return rejectedUploadResponse(e);
+        } catch (Exception e) {
+            return failedUploadResponse(e);
+        }
+    }
 
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
+    private Map<String, Object> uploadResponse(Document document) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Document uploaded successfully");
+        response.put("documentId", document.getDocumentId());
+        response.put("fileName", document.getFileName());
+        response.put("status", document.getStatus());
+        response.put("uploadedAt", document.getUploadedAt());
+        return response;
+    }
 
-            return ResponseEntity.badRequest().body(errorResponse);
+    private ResponseEntity<Map<String, Object>> invalidUploadResponse(IllegalArgumentException e) {
+        logger.warn("Invalid upload request: {}", e.getMessage());
 
-        } catch (Exception e) {
-            logger.error("Document upload failed: {}", e.getMessage(), e);
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("message", e.getMessage());
 
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", "Upload failed: " + e.getMessage());
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
 
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
-        }
+    private ResponseEntity<Map<String, Object>> rejectedUploadResponse(ProcessingCapacityExceededException e) {
+        logger.warn("Upload rejected: {}", e.getMessage());
+
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("message", e.getMessage() + ", retry later");
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .body(errorResponse);
+    }
+
+    private ResponseEntity<Map<String, Object>> failedUploadResponse(Exception e) {
+        logger.error("Document upload failed: {}", e.getMessage(), e);
+
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("message", "Upload failed: " + e.getMessage());
+
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
     }
 
     /**
-     * Get document metadata by ID
+     * Get document metadata by ID. fields=status,fileName returns only those fields and reads
+     * only those attributes from DynamoDB.
      */
     @GetMapping("/{documentId}")
-    public ResponseEntity<Document> getDocument(@PathVariable String documentId) {
-        logger.info("Get document request: documentId={}", documentId);
+    public ResponseEntity<Object> getDocument(@PathVariable String documentId,
+                                              @RequestParam(required = false) String fields) {
+        logger.info("Get document request: documentId={}, fields={}", documentId, fields);
 
+        DocumentFields selection;
         try {
-            Document document = documentProcessingService.getDocument(documentId);
-            return ResponseEntity.ok(document);
+            selection = DocumentFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid fields for document request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            Document document = documentProcessingService.getDocument(documentId, selection);
+            return ResponseEntity.ok(selection == null ? document : selection.select(document));
 
         } catch (RuntimeException e) {
             logger.warn("Document not found: documentId={}", documentId);
@@ -96,40 +218,197 @@ public class DocumentController {
     }
 
     /**
-     * Get all documents
+     * List documents a page at a time. Pass the returned nextCursor back as cursor to get the
+     * following page; it is null on the last page.
+     *
+     * With status, only documents in that status are listed, newest first, read from the
+     * status index. since and until bound the upload time and take either an ISO date-time
+     * or an ISO duration counted back from now (since=PT1H for the last hour).
+     * fields limits each listed document to the given fields.
      */
     @GetMapping
-    public ResponseEntity<List<Document>> getAllDocuments() {
-        logger.info("Get all documents request");
+    public ResponseEntity<Object> listDocuments(
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) String until,
+            @RequestParam(required = false) String fields) {
+        logger.info("List documents request: limit={}, status={}, since={}, until={}, fields={}",
+                limit, status, since, until, fields);
 
         try {
-            List<Document> documents = documentProcessingService.getAllDocuments();
-            return ResponseEntity.ok(documents);
+            DocumentFields selection = DocumentFields.parse(fields);
+            DocumentPage page;
+            if (status != null) {
+                page = documentProcessingService.listDocumentsByStatus(parseStatus(status),
+                        parseTime(since), parseTime(until), limit, cursor, selection);
+            } else if (since != null || until != null) {
+                throw new IllegalArgumentException("since and until require a status");
+            } else {
+                page = documentProcessingService.listDocuments(limit, cursor, selection);
+            }
+
+            if (selection == null) {
+                return ResponseEntity.ok(page);
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("documents", page.documents().stream().map(selection::select).toList());
+            response.put("nextCursor", page.nextCursor());
+            return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid document list request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Failed to retrieve documents: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    private static Document.ProcessingStatus parseStatus(String status) {
+        try {
+            return Document.ProcessingStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown status: " + status);
+        }
+    }
+
+    /**
+     * @return The time, or null if the parameter was not given
+     */
+    private static LocalDateTime parseTime(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            if (value.startsWith("P") || value.startsWith("p")) {
+                return LocalDateTime.now().minus(Duration.parse(value));
+            }
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid time: " + value);
+        }
+    }
+
+    /**
+     * Full-text search over extracted document text. Hits are ranked by BM25 relevance; use the
+     * lookup endpoint to fetch details of the returned documents. Each instance keeps its own
+     * index of the documents it extracted, so results cover only those; hits are checked against
+     * DynamoDB so a document deleted through another instance is never returned.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> searchDocuments(@RequestParam String q,
+                                                               @RequestParam(defaultValue = "10") int limit) {
+        logger.info("Search documents request: q={}, limit={}", q, limit);
+
+        try {
+            List<SearchHit> hits = documentProcessingService.searchDocuments(q, limit);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("query", q);
+            response.put("hits", hits);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid search request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Failed to search documents: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Look up many documents in one request. Body: {"documentIds": ["...", ...]}.
+     * fields limits each returned document to the given fields.
+     */
+    @PostMapping("/lookup")
+    public ResponseEntity<Object> lookupDocuments(@RequestBody LookupRequest request,
+                                                  @RequestParam(required = false) String fields) {
+        logger.info("Lookup documents request: count={}, fields={}",
+                request.documentIds() != null ? request.documentIds().size() : 0, fields);
+
+        try {
+            DocumentFields selection = DocumentFields.parse(fields);
+            DocumentLookup lookup = documentProcessingService.getDocuments(request.documentIds(), selection);
+            if (selection == null) {
+                return ResponseEntity.ok(lookup);
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("documents", lookup.documents().stream().map(selection::select).toList());
+            response.put("missing", lookup.missing());
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid document lookup request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Failed to look up documents: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    public record LookupRequest(List<String> documentIds) {
+    }
+
     /**
-     * Download document content
+     * Download document content, streamed from S3 to the client through a single buffer.
+     * A single-range Range header is served as a ranged S3 GET with 206 Partial Content.
      */
     @GetMapping("/{documentId}/download")
-    public ResponseEntity<byte[]> downloadDocument(@PathVariable String documentId) {
-        logger.info("Download document request: documentId={}", documentId);
+    public ResponseEntity<StreamingResponseBody> downloadDocument(
+            @PathVariable String documentId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader) {
+        logger.info("Download document request: documentId={}, range={}", documentId, rangeHeader);
 
         try {
             Document document = documentProcessingService.getDocument(documentId);
-            byte[] content = documentProcessingService.downloadDocument(documentId);
+            long length = document.getFileSize();
 
             HttpHeaders headers = new HttpHeaders();
             headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + document.getFileName() + "\"");
             headers.add(HttpHeaders.CONTENT_TYPE, document.getContentType());
-
-            return ResponseEntity.ok()
+            headers.add(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+            Long start = null;
+            Long end = null;
+            if (rangeHeader != null) {
+                try {
+                    List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                    // Multiple ranges may be answered with the full content
+                    if (ranges.size() == 1) {
+                        start = ranges.get(0).getRangeStart(length);
+                        end = ranges.get(0).getRangeEnd(length);
+                    }
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Unsatisfiable range: documentId={}, range={}", documentId, rangeHeader);
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                            .build();
+                }
+            }
+
+            DocumentContent content = documentProcessingService.openDocumentContent(document, start, end);
+            HttpStatus status;
+            if (start != null) {
+                headers.add(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                headers.setContentLength(end - start + 1);
+                status = HttpStatus.PARTIAL_CONTENT;
+            } else {
+                headers.setContentLength(length);
+                status = HttpStatus.OK;
+            }
+
+            StreamingResponseBody body = outputStream -> {
+                try (content) {
+                    content.transferTo(outputStream);
+                }
+            };
+
+            return ResponseEntity.status(status)
                     .headers(headers)
-                    .body(content);
+                    .body(body);
 
         } catch (RuntimeException e) {
             logger.warn("Document not found for download: documentId={}", documentId);
@@ -140,6 +419,56 @@ public class DocumentController {
         }
     }
 
+    /**
+     * Get what processing extracted from a document. Long text is not inlined: extractedText is
+     * null and the full text is served by the text endpoint.
+     */
+    @GetMapping("/{documentId}/metadata")
+    public ResponseEntity<DocumentMetadata> getExtractedMetadata(@PathVariable String documentId) {
+        logger.info("Get extracted metadata request: documentId={}", documentId);
+
+        try {
+            return ResponseEntity.ok(documentProcessingService.getExtractedMetadata(documentId));
+
+        } catch (RuntimeException e) {
+            logger.warn("Extracted metadata not found: documentId={}", documentId);
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            logger.error("Failed to retrieve extracted metadata: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Stream the full text extracted from a document
+     */
+    @GetMapping("/{documentId}/text")
+    public ResponseEntity<StreamingResponseBody> getExtractedText(@PathVariable String documentId) {
+        logger.info("Get extracted text request: documentId={}", documentId);
+
+        try {
+            DocumentMetadata metadata = documentProcessingService.getExtractedMetadata(documentId);
+            InputStream text = documentProcessingService.openExtractedText(metadata);
+
+            StreamingResponseBody body = outputStream -> {
+                try (text) {
+                    text.transferTo(outputStream);
+                }
+            };
+
+            return ResponseEntity.ok()
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body(body);
+
+        } catch (RuntimeException e) {
+            logger.warn("Extracted text not found: documentId={}", documentId);
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            logger.error("Failed to retrieve extracted text: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * Delete a document
      */
@@ -250,17 +579,10 @@ public class DocumentController {
         logger.info("Get document status request: documentId={}", documentId);
 
         try {
-            Document document = documentProcessingService.getDocument(documentId);
-
-            Map<String, Object> status = new HashMap<>();
-            status.put("documentId", document.getDocumentId());
-            status.put("fileName", document.getFileName());
-            status.put("status", document.getStatus());
-            status.put("uploadedAt", document.getUploadedAt());
-            status.put("processedAt", document.getProcessedAt());
-            status.put("processingNotes", document.getProcessingNotes());
+            // Reads only the status fields instead of the whole item
+            Document document = documentProcessingService.getDocument(documentId, DocumentFields.STATUS);
 
-            return ResponseEntity.ok(status);
+            return ResponseEntity.ok(DocumentFields.STATUS.select(document));
 
         } catch (RuntimeException e) {
             logger.warn("Document not found: documentId={}", documentId);
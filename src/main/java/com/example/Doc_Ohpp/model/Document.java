@@ -13,6 +13,8 @@ public class Document {
     private LocalDateTime uploadedAt;
     private LocalDateTime processedAt;
     private String processingNotes;
+    private String contentHash;
+    private ProcessingPriority priority;
 
     public enum ProcessingStatus {
         UPLOADED,
@@ -21,6 +23,31 @@ public class Document {
         FAILED
     }
 
+    /**
+     * Processing lane requested by the client; lanes are served in declaration order
+     */
+    public enum ProcessingPriority {
+        HIGH,
+        NORMAL,
+        LOW;
+
+        /**
+         * Parse a client-supplied priority, case-insensitively
+         * @return The priority, or null if the value is absent or blank
+         * @throws IllegalArgumentException if the value is not a known priority
+         */
+        public static ProcessingPriority parse(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown priority: " + value);
+            }
+        }
+    }
+
     // Constructors
     public Document() {}
 
@@ -114,4 +141,20 @@ public class Document {
     public void setProcessingNotes(String processingNotes) {
         this.processingNotes = processingNotes;
     }
-}
\ No newline at end of file
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public ProcessingPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(ProcessingPriority priority) {
+        this.priority = priority;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.Doc_Ohpp.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A sparse fieldset: the subset of document attributes a client asked for with {@code fields=}.
+ * Reads turn it into a DynamoDB ProjectionExpression and only decode these attributes.
+ * The document ID is always included.
+ */
+public final class DocumentFields {
+
+    /**
+     * Every attribute of a stored document, in response order
+     */
+    public static final List<String> ALL_NAMES = List.of(
+            "documentId", "fileName", "contentType", "fileSize", "s3Key", "s3Bucket", "status",
+            "uploadedAt", "processedAt", "processingNotes", "contentHash", "priority");
+
+    /**
+     * What the status endpoint returns
+     */
+    public static final DocumentFields STATUS = of(
+            "documentId", "fileName", "status", "uploadedAt", "processedAt", "processingNotes");
+
+    private final Set<String> names;
+
+    private DocumentFields(Set<String> names) {
+        this.names = Collections.unmodifiableSet(names);
+    }
+
+    public static DocumentFields of(String... names) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("documentId");
+        for (String name : names) {
+            if (!ALL_NAMES.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            selected.add(name);
+        }
+        return new DocumentFields(selected);
+    }
+
+    /**
+     * Parse a comma-separated {@code fields} parameter
+     * @return The fieldset, or null (meaning every field) if the parameter is absent or blank
+     * @throws IllegalArgumentException if a field name is unknown
+     */
+    public static DocumentFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        return of(Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toArray(String[]::new));
+    }
+
+    public Set<String> names() {
+        return names;
+    }
+
+    public boolean includes(String name) {
+        return names.contains(name);
+    }
+
+    /**
+     * @return The selected fields of a document, keyed by field name, in response order
+     */
+    public Map<String, Object> select(Document document) {
+        Map<String, Object> selected = new LinkedHashMap<>();
+        for (String name : names) {
+            selected.put(name, switch (name) {
+                case "documentId" -> document.getDocumentId();
+                case "fileName" -> document.getFileName();
+                case "contentType" -> document.getContentType();
+                case "fileSize" -> document.getFileSize();
+                case "s3Key" -> document.getS3Key();
+                case "s3Bucket" -> document.getS3Bucket();
+                case "status" -> document.getStatus();
+                case "uploadedAt" -> document.getUploadedAt();
+                case "processedAt" -> document.getProcessedAt();
+                case "processingNotes" -> document.getProcessingNotes();
+                case "contentHash" -> document.getContentHash();
+                case "priority" -> document.getPriority();
+                default -> throw new IllegalStateException("Unmapped field: " + name);
+            });
+        }
+        return selected;
+    }
+}
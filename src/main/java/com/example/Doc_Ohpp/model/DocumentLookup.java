@@ -0,0 +1,11 @@
+package com.example.Doc_Ohpp.model;
+
+import java.util.List;
+
+/**
+ * Result of a bulk metadata lookup
+ * @param documents The documents that exist, in request order
+ * @param missing The requested IDs that do not exist
+ */
+public record DocumentLookup(List<Document> documents, List<String> missing) {
+}
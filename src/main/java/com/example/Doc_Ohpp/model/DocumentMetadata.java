@@ -3,9 +3,15 @@ package com.example.Doc_Ohpp.model;
 import java.time.LocalDateTime;
 import java.util.Map;
 
+/**
+ * What processing extracted from a document. Short extracted text is kept inline; longer text
+ * is stored as an S3 object, referenced by extractedTextKey, and extractedText is null.
+ */
 public class DocumentMetadata {
     private String documentId;
     private String extractedText;
+    private String extractedTextKey;
+    private long extractedTextLength;
     private Map<String, Object> metadata;
     private String ocrConfidence;
     private LocalDateTime extractedAt;
@@ -38,6 +44,25 @@ public class DocumentMetadata {
         this.extractedText = extractedText;
     }
 
+    public String getExtractedTextKey() {
+        return extractedTextKey;
+    }
+
+    public void setExtractedTextKey(String extractedTextKey) {
+        this.extractedTextKey = extractedTextKey;
+    }
+
+    /**
+     * @return Length of the extracted text in characters, whether inline or offloaded
+     */
+    public long getExtractedTextLength() {
+        return extractedTextLength;
+    }
+
+    public void setExtractedTextLength(long extractedTextLength) {
+        this.extractedTextLength = extractedTextLength;
+    }
+
     public Map<String, Object> getMetadata() {
         return metadata;
     }
@@ -0,0 +1,11 @@
+package com.example.Doc_Ohpp.model;
+
+import java.util.List;
+
+/**
+ * One page of a document listing
+ * @param documents The documents on this page
+ * @param nextCursor Opaque token for the next page, or null when this is the last page
+ */
+public record DocumentPage(List<Document> documents, String nextCursor) {
+}
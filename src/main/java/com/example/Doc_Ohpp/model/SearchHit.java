@@ -0,0 +1,9 @@
+package com.example.Doc_Ohpp.model;
+
+/**
+ * One ranked result of a full-text search
+ * @param documentId The matching document
+ * @param score BM25 relevance; only comparable within one query
+ */
+public record SearchHit(String documentId, double score) {
+}
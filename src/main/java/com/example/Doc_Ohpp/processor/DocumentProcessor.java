@@ -0,0 +1,40 @@
+package com.example.Doc_Ohpp.processor;
+
+import com.example.Doc_Ohpp.model.Document;
+import com.example.Doc_Ohpp.model.DocumentMetadata;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+
+/**
+ * Extraction engine for the content types it supports. Implementations are Spring beans; the
+ * first one that supports a document's content type processes it.
+ *
+ * Content arrives as a stream that may be far larger than the heap, and extracted text goes to
+ * a writer, so an implementation must only hold a bounded window of either in memory.
+ */
+public interface DocumentProcessor {
+
+    /**
+     * @return Name recorded as the processing engine of the extracted metadata
+     */
+    String engine();
+
+    /**
+     * @return Version of the extraction logic. Change it whenever the same content would be
+     *         extracted differently, so results cached for the old version are not reused.
+     */
+    String version();
+
+    boolean supports(String contentType);
+
+    /**
+     * Extract text and metadata from a document
+     * @param document The document being processed
+     * @param content The document content, read once; not closed by the processor
+     * @param text Receives the extracted text
+     * @return The extracted metadata, without the text itself
+     */
+    DocumentMetadata process(Document document, InputStream content, Writer text) throws IOException;
+}
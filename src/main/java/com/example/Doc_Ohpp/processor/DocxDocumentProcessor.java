@@ -0,0 +1,231 @@
+package com.example.Doc_Ohpp.processor;
+
+import com.example.Doc_Ohpp.model.Document;
+import com.example.Doc_Ohpp.model.DocumentMetadata;
+import com.example.Doc_Ohpp.util.SizeLimitedInputStream;
+import com.example.Doc_Ohpp.util.SizeLimitedInputStream.SizeLimitExceededException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Streaming extraction for Word documents (DOCX). The package is read entry by entry with a
+ * {@link ZipInputStream}, and {@code word/document.xml} is pulled through a StAX reader, so
+ * neither the package nor the XML is ever held whole: heap use is the same for a one page letter
+ * and a thousand page manual.
+ *
+ * Paragraphs become lines, tabs and line breaks are kept, and explicit page breaks become form
+ * feeds. The page count is the one Word recorded in {@code docProps/app.xml} if present, else
+ * derived from page breaks. DTDs and external entities are refused, and a part that inflates
+ * past {@code document.extraction.docx.max-part-size} fails the document, so a zip bomb cannot
+ * keep the parser busy.
+ */
+@Component
+@Order(200)
+public class DocxDocumentProcessor implements DocumentProcessor {
+
+    static final String ENGINE = "docx-stax";
+    static final String VERSION = "1";
+    static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+
+    private static final String WORDPROCESSING_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    private static final String MAIN_PART = "word/document.xml";
+    private static final String APP_PROPERTIES_PART = "docProps/app.xml";
+
+    private static final char[] NEWLINE = {'\n'};
+    private static final char[] TAB = {'\t'};
+    private static final char[] FORM_FEED = {'\f'};
+
+    private final XMLInputFactory xmlInputFactory;
+
+    @Value("${document.extraction.docx.max-part-size:256MB}")
+    private DataSize maxPartSize = DataSize.ofMegabytes(256);
+
+    public DocxDocumentProcessor() {
+        xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    @Override
+    public String engine() {
+        return ENGINE;
+    }
+
+    @Override
+    public String version() {
+        return VERSION;
+    }
+
+    @Override
+    public boolean supports(String contentType) {
+        return CONTENT_TYPE.equals(contentType);
+    }
+
+    @Override
+    public DocumentMetadata process(Document document, InputStream content, Writer text) throws IOException {
+        BodyText body = null;
+        Integer recordedPages = null;
+
+        // The caller owns the content stream; closing the zip stream only releases its inflater
+        SizeLimitedInputStream part = null;
+        try (ZipInputStream zip = new ZipInputStream(nonClosing(content))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (MAIN_PART.equals(entry.getName())) {
+                    part = inflated(zip);
+                    body = extractBody(part, text);
+                } else if (APP_PROPERTIES_PART.equals(entry.getName())) {
+                    part = inflated(zip);
+                    recordedPages = readRecordedPages(part);
+                }
+            }
+        } catch (XMLStreamException e) {
+            // The parser reports a failing stream as a parse error, without the cause
+            if (part != null && part.getBytesRead() > maxPartSize.toBytes()) {
+                throw new IOException("DOCX part inflates past " + maxPartSize.toBytes() + " bytes", e);
+            }
+            throw new IOException("Malformed DOCX XML: " + e.getMessage(), e);
+        } catch (SizeLimitExceededException e) {
+            throw new IOException("DOCX part inflates past " + e.getMaxBytes() + " bytes", e);
+        }
+        if (body == null) {
+            throw new IOException("Not a DOCX package: no " + MAIN_PART);
+        }
+
+        DocumentMetadata metadata = new DocumentMetadata(document.getDocumentId());
+        metadata.setProcessingEngine(ENGINE);
+        metadata.setPageCount(recordedPages != null ? recordedPages
+                : Math.max(body.stats.pages(), body.renderedPageBreaks + 1));
+        metadata.setLanguage(body.stats.language());
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("characterCount", body.stats.characters());
+        details.put("wordCount", body.stats.words());
+        details.put("paragraphCount", body.paragraphs);
+        metadata.setMetadata(details);
+        return metadata;
+    }
+
+    /**
+     * @return The current entry of the package, failing once more than the maximum part size
+     *         has been inflated from it
+     */
+    private SizeLimitedInputStream inflated(ZipInputStream zip) {
+        return new SizeLimitedInputStream(nonClosing(zip), maxPartSize.toBytes());
+    }
+
+    /**
+     * Shield a stream from being closed by the reader it is handed to; the XML parser may close
+     * its input at the end of a part, which would end the whole package
+     */
+    private static InputStream nonClosing(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Text and counts of the main document part
+     */
+    private static final class BodyText {
+        private final TextStatistics stats = new TextStatistics();
+        private long paragraphs;
+        private int renderedPageBreaks;
+    }
+
+    private BodyText extractBody(InputStream part, Writer text) throws XMLStreamException, IOException {
+        BodyText body = new BodyText();
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(part);
+        try {
+            // Tabs and breaks only count inside runs; w:tab also defines tab stops in paragraph properties
+            boolean inRun = false;
+            boolean inText = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                        || event == XMLStreamConstants.SPACE) {
+                    if (inText) {
+                        emit(body, text, reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                } else if (event == XMLStreamConstants.START_ELEMENT && WORDPROCESSING_NS.equals(reader.getNamespaceURI())) {
+                    switch (reader.getLocalName()) {
+                        case "r" -> inRun = true;
+                        case "t" -> inText = inRun;
+                        case "tab" -> {
+                            if (inRun) {
+                                emit(body, text, TAB, 0, 1);
+                            }
+                        }
+                        case "br", "cr" -> {
+                            if (inRun) {
+                                boolean pageBreak = "page".equals(reader.getAttributeValue(WORDPROCESSING_NS, "type"));
+                                emit(body, text, pageBreak ? FORM_FEED : NEWLINE, 0, 1);
+                            }
+                        }
+                        case "lastRenderedPageBreak" -> body.renderedPageBreaks++;
+                        default -> {
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && WORDPROCESSING_NS.equals(reader.getNamespaceURI())) {
+                    switch (reader.getLocalName()) {
+                        case "r" -> inRun = false;
+                        case "t" -> inText = false;
+                        case "p" -> {
+                            body.paragraphs++;
+                            emit(body, text, NEWLINE, 0, 1);
+                        }
+                        default -> {
+                        }
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        body.stats.finish();
+        return body;
+    }
+
+    private static void emit(BodyText body, Writer text, char[] chars, int offset, int length) throws IOException {
+        body.stats.accept(chars, offset, length);
+        text.write(chars, offset, length);
+    }
+
+    /**
+     * @return The page count Word stored with the document, or null if absent
+     */
+    private Integer readRecordedPages(InputStream part) throws XMLStreamException {
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(part);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "Pages".equals(reader.getLocalName())) {
+                    try {
+                        return Integer.parseInt(reader.getElementText().trim());
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                }
+            }
+            return null;
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.Doc_Ohpp.processor;
+
+import com.example.Doc_Ohpp.model.Document;
+import com.example.Doc_Ohpp.model.DocumentMetadata;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Streaming extraction for {@code text/*}: decodes the content in the charset named by the
+ * content type (UTF-8 by default) through a fixed-size buffer, copying the text out and counting
+ * characters, words, lines and pages (form feed separated) on the way. The language is guessed
+ * from common words near the start of the text.
+ */
+@Component
+@Order(100)
+public class TextDocumentProcessor implements DocumentProcessor {
+
+    static final String ENGINE = "text-stream";
+    static final String VERSION = "1";
+
+    @Value("${document.extraction.text.buffer-size:8KB}")
+    private DataSize bufferSize = DataSize.ofKilobytes(8);
+
+    @Override
+    public String engine() {
+        return ENGINE;
+    }
+
+    @Override
+    public String version() {
+        return VERSION;
+    }
+
+    @Override
+    public boolean supports(String contentType) {
+        return contentType != null && contentType.startsWith("text/");
+    }
+
+    @Override
+    public DocumentMetadata process(Document document, InputStream content, Writer text) throws IOException {
+        Charset charset = charsetOf(document.getContentType());
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        TextStatistics stats = new TextStatistics();
+        char[] buffer = new char[(int) bufferSize.toBytes()];
+        Reader reader = new InputStreamReader(content, decoder);
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            stats.accept(buffer, 0, read);
+            text.write(buffer, 0, read);
+        }
+        stats.finish();
+
+        DocumentMetadata metadata = new DocumentMetadata(document.getDocumentId());
+        metadata.setProcessingEngine(ENGINE);
+        metadata.setPageCount(stats.pages());
+        metadata.setLanguage(stats.language());
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("charset", charset.name());
+        details.put("characterCount", stats.characters());
+        details.put("wordCount", stats.words());
+        details.put("lineCount", stats.lines());
+        metadata.setMetadata(details);
+        return metadata;
+    }
+
+    private static Charset charsetOf(String contentType) {
+        try {
+            Charset charset = MimeType.valueOf(contentType).getCharset();
+            return charset != null ? charset : StandardCharsets.UTF_8;
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.Doc_Ohpp.processor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Running counts over extracted text as it streams past: characters, words, lines, form feed
+ * separated pages and a language guess from common words near the start. Words and lines may
+ * span the chunks the text arrives in.
+ */
+final class TextStatistics {
+
+    // Words looked at for the language guess
+    private static final int LANGUAGE_SAMPLE_WORDS = 2000;
+    private static final int MAX_WORD_LENGTH = 16;
+
+    private static final Map<String, Set<String>> STOPWORDS = Map.of(
+            "en", Set.of("the", "and", "of", "to", "is", "in", "that", "it", "for", "with"),
+            "de", Set.of("der", "die", "und", "das", "ist", "nicht", "mit", "den", "ein", "zu"),
+            "fr", Set.of("le", "la", "les", "et", "est", "des", "une", "que", "pas", "pour"),
+            "es", Set.of("el", "los", "las", "y", "es", "que", "del", "una", "por", "con"));
+
+    private long characters;
+    private long words;
+    private long lines;
+    private int pages = 1;
+    private boolean inWord;
+    private boolean lineOpen;
+    private final StringBuilder word = new StringBuilder(MAX_WORD_LENGTH);
+    private final Map<String, Integer> languageHits = new LinkedHashMap<>();
+
+    void accept(char[] buffer, int offset, int length) {
+        characters += length;
+        for (int i = offset; i < offset + length; i++) {
+            char c = buffer[i];
+            if (c == '\n') {
+                lines++;
+                lineOpen = false;
+            } else {
+                lineOpen = true;
+            }
+            if (c == '\f') {
+                pages++;
+            }
+            if (Character.isLetterOrDigit(c) || c == '\'') {
+                if (!inWord) {
+                    inWord = true;
+                    words++;
+                }
+                if (words <= LANGUAGE_SAMPLE_WORDS && word.length() < MAX_WORD_LENGTH) {
+                    word.append(Character.toLowerCase(c));
+                }
+            } else {
+                endWord();
+            }
+        }
+    }
+
+    /**
+     * Count the word and line the text ends in, if it does not end with a separator
+     */
+    void finish() {
+        endWord();
+        if (lineOpen) {
+            lines++;
+            lineOpen = false;
+        }
+    }
+
+    long characters() {
+        return characters;
+    }
+
+    long words() {
+        return words;
+    }
+
+    long lines() {
+        return lines;
+    }
+
+    int pages() {
+        return pages;
+    }
+
+    /**
+     * @return The ISO 639-1 code of the most frequent stopword language, or null without enough evidence
+     */
+    String language() {
+        return languageHits.entrySet().stream()
+                .filter(hits -> hits.getValue() >= 3)
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+
+    private void endWord() {
+        if (inWord && word.length() > 0) {
+            String candidate = word.toString();
+            STOPWORDS.forEach((language, stopwords) -> {
+                if (stopwords.contains(candidate)) {
+                    languageHits.merge(language, 1, Integer::sum);
+                }
+            });
+        }
+        inWord = false;
+        word.setLength(0);
+    }
+}
@@ -0,0 +1,417 @@
+package com.example.Doc_Ohpp.search;
+
+import com.example.Doc_Ohpp.model.SearchHit;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over extracted document text, ranked with BM25.
+ *
+ * Documents get dense int numbers in indexing order, so each term's {@link PostingList} is
+ * append-only and delta-encodes well. Re-indexing or removing a document leaves a tombstone that
+ * queries skip; once tombstones outnumber live documents the index is renumbered and every
+ * posting list rewritten without them. Queries accumulate scores term at a time into a float
+ * array indexed by document number and keep the top k in a small heap.
+ *
+ * The index is periodically snapshotted to local disk and loaded on startup, so a restart does
+ * not need to re-read any text. It covers the documents this instance extracted.
+ */
+@Component
+public class DocumentSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentSearchIndex.class);
+
+    static final float K1 = 1.2f;
+    static final float B = 0.75f;
+    static final int MAX_LIMIT = 100;
+
+    private static final int SNAPSHOT_MAGIC = 0x444F4958;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Path snapshotPath;
+
+    private Map<String, PostingList> postings = new HashMap<>();
+    private Map<String, Integer> documentNumbers = new HashMap<>();
+    private String[] documentIds = new String[1024];
+    private int[] lengths = new int[1024];
+    private BitSet tombstones = new BitSet();
+    private int documentCount;
+    private int liveCount;
+    private long totalLength;
+
+    private long modifications;
+    private long snapshotModifications;
+
+    public DocumentSearchIndex(@Value("${document.search.snapshot-path:${java.io.tmpdir}/doc-ohpp-search.idx}") String snapshotPath) {
+        this.snapshotPath = snapshotPath == null || snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+    }
+
+    /**
+     * Index a document's text, replacing what was indexed for it before. The text is tokenized
+     * before the index is locked, so queries only wait for the postings to be appended.
+     */
+    public void index(String documentId, Reader text) throws IOException {
+        Map<String, int[]> frequencies = new HashMap<>();
+        int[] length = new int[1];
+        Tokenizer.tokenize(text, term -> {
+            frequencies.computeIfAbsent(term, t -> new int[1])[0]++;
+            length[0]++;
+        });
+
+        lock.writeLock().lock();
+        try {
+            boolean replaced = removeLocked(documentId);
+            int document = documentCount++;
+            if (document == documentIds.length) {
+                documentIds = Arrays.copyOf(documentIds, document * 2);
+                lengths = Arrays.copyOf(lengths, document * 2);
+            }
+            documentIds[document] = documentId;
+            lengths[document] = length[0];
+            documentNumbers.put(documentId, document);
+            liveCount++;
+            totalLength += length[0];
+
+            for (Map.Entry<String, int[]> term : frequencies.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), t -> new PostingList()).add(document, term.getValue()[0]);
+            }
+            modifications++;
+            if (replaced) {
+                // Re-indexing leaves a tombstone just like a removal
+                compactIfMostlyTombstonesLocked();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.debug("Indexed document: documentId={}, terms={}, distinctTerms={}",
+                documentId, length[0], frequencies.size());
+    }
+
+    /**
+     * Remove a document from the index; unknown IDs are ignored
+     */
+    public void remove(String documentId) {
+        lock.writeLock().lock();
+        try {
+            if (removeLocked(documentId)) {
+                modifications++;
+                compactIfMostlyTombstonesLocked();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rank documents against a free-text query
+     * @param query Words to look for; a document matches if it contains any of them
+     * @param limit Maximum number of hits, capped at {@value #MAX_LIMIT}
+     * @return The best matches, highest score first
+     */
+    public List<SearchHit> search(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        int k = Math.min(limit, MAX_LIMIT);
+        Set<String> terms = new LinkedHashSet<>();
+        try {
+            Tokenizer.tokenize(new StringReader(query), terms::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (liveCount == 0) {
+                return List.of();
+            }
+            float[] scores = new float[documentCount];
+            float averageLength = (float) totalLength / liveCount;
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                int frequency = Math.min(list.documentFrequency(), liveCount);
+                float idf = (float) Math.log(1 + (liveCount - frequency + 0.5) / (frequency + 0.5));
+                PostingList.Cursor postings = list.cursor();
+                while (postings.next()) {
+                    int document = postings.document;
+                    if (!tombstones.get(document)) {
+                        float norm = K1 * (1 - B + B * lengths[document] / averageLength);
+                        scores[document] += idf * postings.frequency * (K1 + 1) / (postings.frequency + norm);
+                    }
+                }
+            }
+            return topHits(scores, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of indexed documents
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write the index to the snapshot file if it changed since the last snapshot. The file is
+     * written beside the old one and moved over it, so a crash never leaves a partial snapshot.
+     */
+    @Scheduled(initialDelayString = "${document.search.snapshot-interval:PT5M}",
+            fixedDelayString = "${document.search.snapshot-interval:PT5M}")
+    public synchronized void snapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            if (modifications == snapshotModifications) {
+                return;
+            }
+            long startedAt = System.currentTimeMillis();
+            Path temporary = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                writeSnapshot(out);
+            }
+            Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            snapshotModifications = modifications;
+            logger.info("Search index snapshot written: documents={}, terms={}, in {} ms",
+                    liveCount, postings.size(), System.currentTimeMillis() - startedAt);
+        } catch (IOException e) {
+            logger.error("Failed to write search index snapshot {}: {}", snapshotPath, e.getMessage(), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Load the last snapshot, if any. A missing or unreadable snapshot leaves the index empty.
+     */
+    @PostConstruct
+    public void load() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotPath), 1 << 16))) {
+            readSnapshot(in);
+            snapshotModifications = modifications;
+            logger.info("Search index snapshot loaded: documents={}, terms={}, in {} ms",
+                    liveCount, postings.size(), System.currentTimeMillis() - startedAt);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable search index snapshot {}: {}", snapshotPath, e.getMessage());
+            clearLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+
+    /**
+     * Renumber live documents densely and rewrite every posting list without tombstones
+     */
+    void compact() {
+        lock.writeLock().lock();
+        try {
+            compactLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of removed or replaced documents not compacted away yet
+     */
+    int tombstoneCount() {
+        lock.readLock().lock();
+        try {
+            return documentCount - liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean removeLocked(String documentId) {
+        Integer document = documentNumbers.remove(documentId);
+        if (document == null) {
+            return false;
+        }
+        tombstones.set(document);
+        documentIds[document] = null;
+        liveCount--;
+        totalLength -= lengths[document];
+        return true;
+    }
+
+    private void compactIfMostlyTombstonesLocked() {
+        int tombstoneCount = documentCount - liveCount;
+        if (tombstoneCount >= MIN_TOMBSTONES_TO_COMPACT && tombstoneCount > liveCount) {
+            compactLocked();
+        }
+    }
+
+    private void compactLocked() {
+        long startedAt = System.currentTimeMillis();
+        int[] documentMap = new int[documentCount];
+        int next = 0;
+        for (int document = 0; document < documentCount; document++) {
+            if (tombstones.get(document)) {
+                documentMap[document] = -1;
+            } else {
+                documentMap[document] = next;
+                documentIds[next] = documentIds[document];
+                lengths[next] = lengths[document];
+                documentNumbers.put(documentIds[next], next);
+                next++;
+            }
+        }
+        Arrays.fill(documentIds, next, documentCount, null);
+
+        Map<String, PostingList> compacted = new HashMap<>();
+        postings.forEach((term, list) -> {
+            PostingList remapped = list.remap(documentMap);
+            if (remapped != null) {
+                compacted.put(term, remapped);
+            }
+        });
+        int dropped = documentCount - next;
+        postings = compacted;
+        tombstones = new BitSet();
+        documentCount = next;
+        logger.info("Search index compacted: dropped={}, documents={}, terms={}, in {} ms",
+                dropped, next, compacted.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    private List<SearchHit> topHits(float[] scores, int k) {
+        Comparator<Integer> worstFirst = (a, b) -> scores[a] != scores[b]
+                ? Float.compare(scores[a], scores[b])
+                : Integer.compare(b, a);
+        PriorityQueue<Integer> best = new PriorityQueue<>(k + 1, worstFirst);
+        // Documents are visited in ascending order, so a later document only displaces the
+        // current worst hit with a strictly higher score
+        float threshold = 0;
+        for (int document = 0; document < scores.length; document++) {
+            if (scores[document] <= threshold) {
+                continue;
+            }
+            best.add(document);
+            if (best.size() > k) {
+                best.poll();
+            }
+            if (best.size() == k) {
+                threshold = scores[best.peek()];
+            }
+        }
+        List<SearchHit> hits = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            int document = best.poll();
+            hits.add(new SearchHit(documentIds[document], scores[document]));
+        }
+        return hits.reversed();
+    }
+
+    private void writeSnapshot(DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(documentCount);
+        for (int document = 0; document < documentCount; document++) {
+            boolean live = !tombstones.get(document);
+            out.writeBoolean(live);
+            if (live) {
+                out.writeUTF(documentIds[document]);
+                out.writeInt(lengths[document]);
+            }
+        }
+        out.writeInt(postings.size());
+        for (Map.Entry<String, PostingList> term : postings.entrySet()) {
+            out.writeUTF(term.getKey());
+            term.getValue().writeTo(out);
+        }
+    }
+
+    private void readSnapshot(DataInputStream in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Not a search index snapshot");
+        }
+        clearLocked();
+        documentCount = in.readInt();
+        documentIds = new String[Math.max(1024, documentCount)];
+        lengths = new int[documentIds.length];
+        for (int document = 0; document < documentCount; document++) {
+            if (in.readBoolean()) {
+                documentIds[document] = in.readUTF();
+                lengths[document] = in.readInt();
+                documentNumbers.put(documentIds[document], document);
+                liveCount++;
+                totalLength += lengths[document];
+            } else {
+                tombstones.set(document);
+            }
+        }
+        int termCount = in.readInt();
+        postings = new HashMap<>(termCount * 4 / 3 + 1);
+        for (int i = 0; i < termCount; i++) {
+            postings.put(in.readUTF(), PostingList.readFrom(in));
+        }
+    }
+
+    private void clearLocked() {
+        postings = new HashMap<>();
+        documentNumbers = new HashMap<>();
+        documentIds = new String[1024];
+        lengths = new int[1024];
+        tombstones = new BitSet();
+        documentCount = 0;
+        liveCount = 0;
+        totalLength = 0;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.Doc_Ohpp.search;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The documents containing one term, as (document, term frequency) pairs in ascending document
+ * order. Pairs are stored as varints in a growable byte array, the document as the gap from the
+ * previous one, so a posting usually takes two or three bytes instead of two ints.
+ *
+ * Not thread-safe; the index guards access.
+ */
+final class PostingList {
+
+    private byte[] data;
+    private int size;
+    private int lastDocument = -1;
+    private int documentFrequency;
+
+    PostingList() {
+        this.data = new byte[8];
+    }
+
+    private PostingList(byte[] data, int lastDocument, int documentFrequency) {
+        this.data = data;
+        this.size = data.length;
+        this.lastDocument = lastDocument;
+        this.documentFrequency = documentFrequency;
+    }
+
+    /**
+     * Append a posting. Documents must be added in ascending order.
+     */
+    void add(int document, int frequency) {
+        if (document <= lastDocument) {
+            throw new IllegalArgumentException("Document " + document + " is not after " + lastDocument);
+        }
+        ensureCapacity(10);
+        writeVarint(document - lastDocument);
+        writeVarint(frequency);
+        lastDocument = document;
+        documentFrequency++;
+    }
+
+    /**
+     * @return A cursor over the postings, positioned before the first
+     */
+    Cursor cursor() {
+        return new Cursor(data, size);
+    }
+
+    /**
+     * @param documentMap New number of each document, or -1 to drop its posting
+     * @return The list renumbered, or null if no posting is left
+     */
+    PostingList remap(int[] documentMap) {
+        PostingList remapped = new PostingList();
+        Cursor cursor = cursor();
+        while (cursor.next()) {
+            int target = documentMap[cursor.document];
+            if (target >= 0) {
+                remapped.add(target, cursor.frequency);
+            }
+        }
+        return remapped.documentFrequency == 0 ? null : remapped;
+    }
+
+    /**
+     * Number of postings, including those of documents deleted since the last compaction
+     */
+    int documentFrequency() {
+        return documentFrequency;
+    }
+
+    /**
+     * Encoded size in bytes
+     */
+    int sizeInBytes() {
+        return size;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(documentFrequency);
+        out.writeInt(lastDocument);
+        out.writeInt(size);
+        out.write(data, 0, size);
+    }
+
+    static PostingList readFrom(DataInput in) throws IOException {
+        int documentFrequency = in.readInt();
+        int lastDocument = in.readInt();
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        return new PostingList(data, lastDocument, documentFrequency);
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            data[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[size++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length + (data.length >> 1), size + extra));
+        }
+    }
+
+    /**
+     * Decodes postings in document order. Reads a snapshot of the list taken when it was created.
+     */
+    static final class Cursor {
+
+        private final byte[] data;
+        private final int size;
+        private int position;
+        int document = -1;
+        int frequency;
+
+        private Cursor(byte[] data, int size) {
+            this.data = data;
+            this.size = size;
+        }
+
+        /**
+         * Move to the next posting
+         * @return false once the list is exhausted
+         */
+        boolean next() {
+            if (position >= size) {
+                return false;
+            }
+            document += readVarint();
+            frequency = readVarint();
+            return true;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
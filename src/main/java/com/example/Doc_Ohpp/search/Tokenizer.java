@@ -0,0 +1,51 @@
+package com.example.Doc_Ohpp.search;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+/**
+ * Splits text into terms: runs of letters and digits, lower-cased. Terms longer than
+ * {@link #MAX_TERM_LENGTH} are dropped, since they are almost always encoded data rather than
+ * words. Documents and queries go through the same tokenizer.
+ */
+final class Tokenizer {
+
+    static final int MAX_TERM_LENGTH = 64;
+
+    private Tokenizer() {
+    }
+
+    /**
+     * Stream the terms of a text to a consumer, reading it through a fixed-size buffer
+     */
+    static void tokenize(Reader text, Consumer<String> terms) throws IOException {
+        char[] buffer = new char[8192];
+        StringBuilder term = new StringBuilder();
+        boolean tooLong = false;
+        int read;
+        while ((read = text.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (Character.isLetterOrDigit(c)) {
+                    if (term.length() < MAX_TERM_LENGTH) {
+                        term.append(Character.toLowerCase(c));
+                    } else {
+                        tooLong = true;
+                    }
+                } else {
+                    emit(term, tooLong, terms);
+                    tooLong = false;
+                }
+            }
+        }
+        emit(term, tooLong, terms);
+    }
+
+    private static void emit(StringBuilder term, boolean tooLong, Consumer<String> terms) {
+        if (!term.isEmpty() && !tooLong) {
+            terms.accept(term.toString());
+        }
+        term.setLength(0);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.Doc_Ohpp.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * The non-blocking counterparts of the AWS services, present only with
+ * {@code aws.client.mode=async}
+ */
+@Component
+@ConditionalOnProperty(name = "aws.client.mode", havingValue = "async")
+public record AsyncAwsServices(S3AsyncService s3, DynamoDBAsyncService dynamoDB, SQSAsyncService sqs) {
+}
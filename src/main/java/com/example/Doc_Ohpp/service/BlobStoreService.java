@@ -0,0 +1,194 @@
+package com.example.Doc_Ohpp.service;
+
+import com.amazonaws.xray.spring.aop.XRayEnabled;
+import com.example.Doc_Ohpp.util.ContentDigest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Content-addressed blob storage with reference counting.
+ *
+ * Each distinct content (by SHA-256) is stored once in S3 and tracked by an item in the blob table
+ * holding its S3 key and a reference count. Documents with identical content share the blob; the
+ * S3 object is removed when the last reference is released.
+ *
+ * Blob keys are {@code blobs/<sha256>/<generation>}: once a count has dropped to zero the item can only
+ * be replaced by a new generation, so a concurrent delete never removes an object a new upload relies on.
+ */
+@Service
+@XRayEnabled
+public class BlobStoreService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobStoreService.class);
+
+    private static final int MAX_STORE_ATTEMPTS = 3;
+
+    private final S3Service s3Service;
+    private final DynamoDbClient dynamoDbClient;
+
+    @Value("${aws.dynamodb.blob-table-name}")
+    private String blobTableName;
+
+    public BlobStoreService(S3Service s3Service, DynamoDbClient dynamoDbClient) {
+        this.s3Service = s3Service;
+        this.dynamoDbClient = dynamoDbClient;
+    }
+
+    /**
+     * Result of storing content
+     * @param s3Key Key of the shared blob
+     * @param contentHash SHA-256 of the content
+     * @param deduplicated True when the blob already existed and no S3 PUT was made
+     */
+    public record StoredBlob(String s3Key, String contentHash, boolean deduplicated) {}
+
+    /**
+     * Add a reference to the blob for the given content, uploading it only if it is not stored yet.
+     * @param digest Hash and size of the content, computed while it was received
+     * @param contentType Content type to store the blob with
+     * @param content Re-readable source of the content, opened only when an upload is needed
+     */
+    public StoredBlob store(ContentDigest digest, String contentType, InputStreamSource content) {
+        String contentHash = digest.sha256();
+
+        for (int attempt = 1; attempt <= MAX_STORE_ATTEMPTS; attempt++) {
+            String existingKey = acquireReference(contentHash);
+            if (existingKey != null) {
+                logger.info("Duplicate content, reusing blob: contentHash={}, s3Key={}", contentHash, existingKey);
+                return new StoredBlob(existingKey, contentHash, true);
+            }
+
+            String s3Key = "blobs/" + contentHash + "/" + UUID.randomUUID();
+            try (InputStream in = content.getInputStream()) {
+                s3Service.uploadObject(s3Key, contentType, in, digest.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read content for upload", e);
+            }
+
+            if (createReference(contentHash, s3Key, digest.size(), contentType)) {
+                logger.info("Stored new blob: contentHash={}, s3Key={}", contentHash, s3Key);
+                return new StoredBlob(s3Key, contentHash, false);
+            }
+
+            // Lost a race with a concurrent upload of the same content; use theirs
+            s3Service.deleteDocument(s3Key);
+            logger.info("Concurrent upload of same content detected, retrying: contentHash={}", contentHash);
+        }
+
+        throw new IllegalStateException("Could not register blob after " + MAX_STORE_ATTEMPTS + " attempts: " + contentHash);
+    }
+
+    /**
+     * Drop one reference to a blob and delete it once nothing refers to it any more.
+     * @param contentHash SHA-256 of the content
+     * @return true if this was the last reference and the S3 object was deleted
+     */
+    public boolean release(String contentHash) {
+        Map<String, AttributeValue> attributes;
+        try {
+            attributes = dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(blobTableName)
+                    .key(blobKey(contentHash))
+                    .updateExpression("ADD refCount :minusOne")
+                    .conditionExpression("attribute_exists(contentHash)")
+                    .expressionAttributeValues(Map.of(":minusOne", number(-1)))
+                    .returnValues(ReturnValue.ALL_NEW)
+                    .build()).attributes();
+        } catch (ConditionalCheckFailedException e) {
+            logger.warn("Released reference to unknown blob: contentHash={}", contentHash);
+            return false;
+        }
+
+        long refCount = Long.parseLong(attributes.get("refCount").n());
+        String s3Key = attributes.get("s3Key").s();
+        if (refCount > 0) {
+            logger.info("Blob still referenced: contentHash={}, refCount={}", contentHash, refCount);
+            return false;
+        }
+
+        // No acquire can succeed once the count is zero, so this generation's object is unreachable
+        s3Service.deleteDocument(s3Key);
+        try {
+            dynamoDbClient.deleteItem(DeleteItemRequest.builder()
+                    .tableName(blobTableName)
+                    .key(blobKey(contentHash))
+                    .conditionExpression("refCount <= :zero AND s3Key = :s3Key")
+                    .expressionAttributeValues(Map.of(
+                            ":zero", number(0),
+                            ":s3Key", AttributeValue.builder().s(s3Key).build()))
+                    .build());
+        } catch (ConditionalCheckFailedException e) {
+            logger.info("Blob was re-created while being deleted: contentHash={}", contentHash);
+        }
+        logger.info("Deleted unreferenced blob: contentHash={}, s3Key={}", contentHash, s3Key);
+        return true;
+    }
+
+    /**
+     * @return S3 key of the live blob if one exists and a reference was added, null otherwise
+     */
+    private String acquireReference(String contentHash) {
+        try {
+            Map<String, AttributeValue> attributes = dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(blobTableName)
+                    .key(blobKey(contentHash))
+                    .updateExpression("ADD refCount :one")
+                    .conditionExpression("refCount > :zero")
+                    .expressionAttributeValues(Map.of(":one", number(1), ":zero", number(0)))
+                    .returnValues(ReturnValue.ALL_NEW)
+                    .build()).attributes();
+            return attributes.get("s3Key").s();
+        } catch (ConditionalCheckFailedException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return True if this upload became the live blob for the content
+     */
+    private boolean createReference(String contentHash, String s3Key, long size, String contentType) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("contentHash", AttributeValue.builder().s(contentHash).build());
+        item.put("s3Key", AttributeValue.builder().s(s3Key).build());
+        item.put("refCount", number(1));
+        item.put("fileSize", number(size));
+        item.put("createdAt", AttributeValue.builder().s(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).build());
+        if (contentType != null) {
+            item.put("contentType", AttributeValue.builder().s(contentType).build());
+        }
+
+        try {
+            dynamoDbClient.putItem(PutItemRequest.builder()
+                    .tableName(blobTableName)
+                    .item(item)
+                    .conditionExpression("attribute_not_exists(contentHash) OR refCount <= :zero")
+                    .expressionAttributeValues(Map.of(":zero", number(0)))
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    private static Map<String, AttributeValue> blobKey(String contentHash) {
+        return Map.of("contentHash", AttributeValue.builder().s(contentHash).build());
+    }
+
+    private static AttributeValue number(long value) {
+        return AttributeValue.builder().n(String.valueOf(value)).build();
+    }
+}
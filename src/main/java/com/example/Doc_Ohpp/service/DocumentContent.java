@@ -0,0 +1,74 @@
+package com.example.Doc_Ohpp.service;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * An opened document (or byte range of one) that can be written to a response.
+ * Backed either by an S3 response stream or by a file in the local blob cache.
+ */
+public interface DocumentContent extends Closeable {
+
+    /**
+     * Write the content to the output stream
+     */
+    void transferTo(OutputStream out) throws IOException;
+
+    /**
+     * Content streamed from an S3 response. If writing fails (usually the client went away)
+     * the S3 connection is aborted instead of drained.
+     */
+    static DocumentContent fromStream(ResponseInputStream<?> stream) {
+        return new DocumentContent() {
+            @Override
+            public void transferTo(OutputStream out) throws IOException {
+                try {
+                    stream.transferTo(out);
+                } catch (IOException e) {
+                    stream.abort();
+                    throw e;
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                stream.close();
+            }
+        };
+    }
+
+    /**
+     * Content served from an already opened file with {@link FileChannel#transferTo}, which lets
+     * the kernel move the bytes from the page cache without a read loop through the heap.
+     */
+    static DocumentContent fromFile(FileChannel channel, long position, long count) {
+        return new DocumentContent() {
+            @Override
+            public void transferTo(OutputStream out) throws IOException {
+                WritableByteChannel target = Channels.newChannel(out);
+                long offset = position;
+                long remaining = count;
+                while (remaining > 0) {
+                    long transferred = channel.transferTo(offset, remaining, target);
+                    if (transferred <= 0) {
+                        throw new EOFException("Cached blob ended " + remaining + " bytes early");
+                    }
+                    offset += transferred;
+                    remaining -= transferred;
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+}
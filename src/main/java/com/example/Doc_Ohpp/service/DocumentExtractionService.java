@@ -0,0 +1,330 @@
+package com.example.Doc_Ohpp.service;
+
+import com.amazonaws.xray.spring.aop.XRayEnabled;
+import com.example.Doc_Ohpp.model.Document;
+import com.example.Doc_Ohpp.model.DocumentMetadata;
+import com.example.Doc_Ohpp.model.SearchHit;
+import com.example.Doc_Ohpp.processor.DocumentProcessor;
+import com.example.Doc_Ohpp.search.DocumentSearchIndex;
+import com.example.Doc_Ohpp.util.SpillingTextWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the {@link DocumentProcessor} for a document's content type and stores what it extracted
+ * in the metadata table (partition key: documentId).
+ *
+ * The content is streamed from S3 and the extracted text goes through a {@link SpillingTextWriter},
+ * so memory per document is bounded by the processor's buffer and the inline text limit. Text
+ * longer than the limit is stored as an S3 object ({@code extracted/<documentId>.txt}) and the
+ * item only references it, which also keeps items well below DynamoDB's 400KB limit. A document
+ * whose text runs past {@code document.extraction.max-text} characters fails instead.
+ *
+ * Extracted text is also fed to the {@link DocumentSearchIndex}, and removed from it with the
+ * metadata.
+ */
+@Service
+@XRayEnabled
+public class DocumentExtractionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentExtractionService.class);
+
+    private static final String TEXT_CONTENT_TYPE = "text/plain; charset=UTF-8";
+
+    // Processing version of content types without a processor
+    static final String SIMULATED_VERSION = "simulated";
+
+    private final S3Service s3Service;
+    private final DynamoDbClient dynamoDbClient;
+    private final List<DocumentProcessor> processors;
+    private final DocumentSearchIndex searchIndex;
+
+    @Value("${aws.dynamodb.metadata-table-name:Doc_Ohpp_Metadata}")
+    private String metadataTableName = "Doc_Ohpp_Metadata";
+
+    // Characters of extracted text kept in the item; longer text is offloaded to S3
+    @Value("${document.extraction.inline-text-limit:32768}")
+    private int inlineTextLimit = 32768;
+
+    // Characters of extracted text at most; a document that yields more fails
+    @Value("${document.extraction.max-text:50000000}")
+    private long maxTextLength = 50_000_000;
+
+    public DocumentExtractionService(S3Service s3Service, DynamoDbClient dynamoDbClient,
+                                     List<DocumentProcessor> processors, DocumentSearchIndex searchIndex) {
+        this.s3Service = s3Service;
+        this.dynamoDbClient = dynamoDbClient;
+        this.processors = processors;
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * @return The processor for a content type, or null if none supports it
+     */
+    public DocumentProcessor processorFor(String contentType) {
+        for (DocumentProcessor processor : processors) {
+            if (processor.supports(contentType)) {
+                return processor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Identifies the processing a content type gets, as engine/version; results of
+     *         different versions are never interchangeable
+     */
+    public String processingVersion(String contentType) {
+        DocumentProcessor processor = processorFor(contentType);
+        return processor == null ? SIMULATED_VERSION : processor.engine() + "/" + processor.version();
+    }
+
+    /**
+     * Extract text and metadata from a stored document and persist them
+     * @param document The document, with its S3 key and content type
+     * @return The stored metadata, or null if no processor supports the content type
+     */
+    public DocumentMetadata extract(Document document) {
+        DocumentProcessor processor = processorFor(document.getContentType());
+        if (processor == null) {
+            return null;
+        }
+        String documentId = document.getDocumentId();
+        logger.info("Extracting document: documentId={}, engine={}", documentId, processor.engine());
+
+        try (InputStream content = s3Service.openDocument(document.getS3Key(), null, null);
+             SpillingTextWriter text = new SpillingTextWriter(inlineTextLimit, maxTextLength)) {
+            DocumentMetadata metadata = processor.process(document, content, text);
+            metadata.setDocumentId(documentId);
+            metadata.setProcessingEngine(processor.engine());
+            metadata.setExtractedTextLength(text.length());
+
+            if (text.isSpilled()) {
+                String textKey = textKey(documentId);
+                Path file = text.spillFile();
+                try (InputStream in = Files.newInputStream(file)) {
+                    s3Service.uploadObject(textKey, TEXT_CONTENT_TYPE, in, Files.size(file));
+                }
+                metadata.setExtractedTextKey(textKey);
+            } else {
+                metadata.setExtractedText(text.inlineText());
+            }
+
+            saveMetadata(metadata);
+            indexText(documentId, () -> text.isSpilled()
+                    ? Files.newBufferedReader(text.spillFile(), StandardCharsets.UTF_8)
+                    : new StringReader(text.inlineText()));
+            logger.info("Extracted document: documentId={}, characters={}, offloaded={}",
+                    documentId, text.length(), text.isSpilled());
+            return metadata;
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to extract document " + documentId, e);
+        }
+    }
+
+    /**
+     * Store another document's extraction result for a document with the same content, without
+     * processing it again. Offloaded text is copied within S3.
+     * @param documentId The document to store the result for
+     * @param source The metadata extracted from the identical content; not modified
+     * @return The stored metadata
+     */
+    public DocumentMetadata reuse(String documentId, DocumentMetadata source) {
+        DocumentMetadata metadata = new DocumentMetadata(documentId);
+        metadata.setProcessingEngine(source.getProcessingEngine());
+        metadata.setExtractedTextLength(source.getExtractedTextLength());
+        metadata.setLanguage(source.getLanguage());
+        metadata.setPageCount(source.getPageCount());
+        metadata.setOcrConfidence(source.getOcrConfidence());
+        metadata.setMetadata(source.getMetadata());
+
+        if (source.getExtractedTextKey() != null) {
+            String textKey = textKey(documentId);
+            s3Service.copyObject(source.getExtractedTextKey(), textKey);
+            metadata.setExtractedTextKey(textKey);
+        } else {
+            metadata.setExtractedText(source.getExtractedText());
+        }
+
+        saveMetadata(metadata);
+        indexText(documentId, () -> new InputStreamReader(openExtractedText(metadata), StandardCharsets.UTF_8));
+        logger.info("Reused extraction result: documentId={}, source={}", documentId, source.getDocumentId());
+        return metadata;
+    }
+
+    /**
+     * Rank extracted documents against a free-text query
+     * @see DocumentSearchIndex#search(String, int)
+     */
+    public List<SearchHit> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * Drop a document from the local search index only, for one deleted through another instance
+     */
+    public void removeFromSearch(String documentId) {
+        searchIndex.remove(documentId);
+    }
+
+    /**
+     * @return The extracted metadata of a document, or null if none is stored
+     */
+    public DocumentMetadata getMetadata(String documentId) {
+        Map<String, AttributeValue> item = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(metadataTableName)
+                .key(metadataKey(documentId))
+                .build()).item();
+        return item == null || item.isEmpty() ? null : itemToMetadata(item);
+    }
+
+    /**
+     * Open the full extracted text, wherever it is stored. The caller closes the stream.
+     * @return The text as UTF-8
+     */
+    public InputStream openExtractedText(DocumentMetadata metadata) {
+        if (metadata.getExtractedTextKey() != null) {
+            return s3Service.openDocument(metadata.getExtractedTextKey(), null, null);
+        }
+        String text = metadata.getExtractedText() != null ? metadata.getExtractedText() : "";
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Delete the extracted metadata of a document and its offloaded text, if any
+     */
+    public void deleteMetadata(String documentId) {
+        searchIndex.remove(documentId);
+        Map<String, AttributeValue> deleted = dynamoDbClient.deleteItem(DeleteItemRequest.builder()
+                .tableName(metadataTableName)
+                .key(metadataKey(documentId))
+                .returnValues(ReturnValue.ALL_OLD)
+                .build()).attributes();
+        if (deleted != null && deleted.get("extractedTextKey") != null) {
+            s3Service.deleteDocument(deleted.get("extractedTextKey").s());
+        }
+    }
+
+    /**
+     * Index the extracted text. The metadata is already stored, so a failure here only leaves
+     * the document unsearchable.
+     */
+    private void indexText(String documentId, TextSource text) {
+        try (Reader reader = text.open()) {
+            searchIndex.index(documentId, reader);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to index document: documentId={}, error={}", documentId, e.getMessage());
+        }
+    }
+
+    private void saveMetadata(DocumentMetadata metadata) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("documentId", AttributeValue.builder().s(metadata.getDocumentId()).build());
+        item.put("processingEngine", AttributeValue.builder().s(metadata.getProcessingEngine()).build());
+        item.put("extractedAt", AttributeValue.builder().s(metadata.getExtractedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).build());
+        item.put("pageCount", number(metadata.getPageCount()));
+        item.put("extractedTextLength", number(metadata.getExtractedTextLength()));
+
+        if (metadata.getExtractedText() != null) {
+            item.put("extractedText", AttributeValue.builder().s(metadata.getExtractedText()).build());
+        }
+        if (metadata.getExtractedTextKey() != null) {
+            item.put("extractedTextKey", AttributeValue.builder().s(metadata.getExtractedTextKey()).build());
+        }
+        if (metadata.getLanguage() != null) {
+            item.put("language", AttributeValue.builder().s(metadata.getLanguage()).build());
+        }
+        if (metadata.getOcrConfidence() != null) {
+            item.put("ocrConfidence", AttributeValue.builder().s(metadata.getOcrConfidence()).build());
+        }
+        if (metadata.getMetadata() != null && !metadata.getMetadata().isEmpty()) {
+            Map<String, AttributeValue> details = new HashMap<>();
+            metadata.getMetadata().forEach((name, value) -> details.put(name, value instanceof Number
+                    ? AttributeValue.builder().n(value.toString()).build()
+                    : AttributeValue.builder().s(String.valueOf(value)).build()));
+            item.put("metadata", AttributeValue.builder().m(details).build());
+        }
+
+        dynamoDbClient.putItem(PutItemRequest.builder()
+                .tableName(metadataTableName)
+                .item(item)
+                .build());
+    }
+
+    private static DocumentMetadata itemToMetadata(Map<String, AttributeValue> item) {
+        DocumentMetadata metadata = new DocumentMetadata();
+        metadata.setDocumentId(item.get("documentId").s());
+        metadata.setProcessingEngine(string(item, "processingEngine"));
+        metadata.setExtractedText(string(item, "extractedText"));
+        metadata.setExtractedTextKey(string(item, "extractedTextKey"));
+        metadata.setLanguage(string(item, "language"));
+        metadata.setOcrConfidence(string(item, "ocrConfidence"));
+
+        if (item.get("extractedAt") != null) {
+            metadata.setExtractedAt(LocalDateTime.parse(item.get("extractedAt").s()));
+        }
+        if (item.get("pageCount") != null) {
+            metadata.setPageCount(Integer.parseInt(item.get("pageCount").n()));
+        }
+        if (item.get("extractedTextLength") != null) {
+            metadata.setExtractedTextLength(Long.parseLong(item.get("extractedTextLength").n()));
+        }
+        if (item.get("metadata") != null) {
+            Map<String, Object> details = new LinkedHashMap<>();
+            item.get("metadata").m().forEach((name, value) ->
+                    details.put(name, value.n() != null ? number(value.n()) : value.s()));
+            metadata.setMetadata(details);
+        }
+        return metadata;
+    }
+
+    private static String textKey(String documentId) {
+        return "extracted/" + documentId + ".txt";
+    }
+
+    private static Map<String, AttributeValue> metadataKey(String documentId) {
+        return Map.of("documentId", AttributeValue.builder().s(documentId).build());
+    }
+
+    private static String string(Map<String, AttributeValue> item, String name) {
+        return item.get(name) != null ? item.get(name).s() : null;
+    }
+
+    private static Number number(String value) {
+        return value.contains(".") ? Double.parseDouble(value) : Long.parseLong(value);
+    }
+
+    private static AttributeValue number(long value) {
+        return AttributeValue.builder().n(String.valueOf(value)).build();
+    }
+
+    private interface TextSource {
+        Reader open() throws IOException;
+    }
+}
@@ -3,19 +3,57 @@ package com.example.Doc_Ohpp.service;
 import com.amazonaws.xray.AWSXRay;
 import com.amazonaws.xray.entities.Subsegment;
 import com.amazonaws.xray.spring.aop.XRayEnabled;
+import com.example.Doc_Ohpp.cache.DocumentBlobCache;
+import com.example.Doc_Ohpp.cache.ProcessingResultCache;
+import com.example.Doc_Ohpp.config.ProcessingExecutorConfig;
 import com.example.Doc_Ohpp.model.Document;
+import com.example.Doc_Ohpp.model.DocumentFields;
+import com.example.Doc_Ohpp.model.DocumentLookup;
+import com.example.Doc_Ohpp.model.DocumentMetadata;
+import com.example.Doc_Ohpp.model.DocumentPage;
+import com.example.Doc_Ohpp.model.SearchHit;
+import com.example.Doc_Ohpp.util.ContentDigest;
+import com.example.Doc_Ohpp.util.Futures;
+import com.example.Doc_Ohpp.util.SizeLimitedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 @Service
 @XRayEnabled
@@ -23,17 +61,73 @@ public class DocumentProcessingService {
 
     private static final Logger logger = LoggerFactory.getLogger(DocumentProcessingService.class);
 
+    // Runs blocking AWS calls of the async flows, one virtual thread each
+    private static final Executor BLOCKING_CALLS = task -> Thread.ofVirtual().name("blocking-call").start(task);
+
     private final S3Service s3Service;
     private final DynamoDBService dynamoDBService;
     private final SQSService sqsService;
+    private final BlobStoreService blobStoreService;
+    private final DocumentBlobCache blobCache;
+    private final ProcessingResultCache resultCache;
+    private final DocumentExtractionService extractionService;
+    private final UploadPipeline uploadPipeline;
+    private final ProcessingTaskRegistry processingTasks;
+    private final Executor processingExecutor;
+    // Set with aws.client.mode=async; null when every AWS call blocks its caller
+    private final AsyncAwsServices asyncServices;
 
     @Value("${aws.s3.bucket-name}")
     private String bucketName;
 
-    public DocumentProcessingService(S3Service s3Service, DynamoDBService dynamoDBService, SQSService sqsService) {
+    @Value("${spring.servlet.multipart.max-file-size:10MB}")
+    private DataSize maxFileSize = DataSize.ofMegabytes(10);
+
+    @Value("${document.upload.batch.max-files:500}")
+    private int maxBatchFiles = 500;
+
+    @Value("${document.upload.batch.parallelism:16}")
+    private int batchParallelism = 16;
+
+    @Value("${document.list.max-limit:1000}")
+    private int maxListLimit = 1000;
+
+    @Value("${document.lookup.max-ids:500}")
+    private int maxLookupIds = 500;
+
+    // "local" processes an upload on the node that received it; "queue" leaves it to the
+    // processing queue workers, which pick up the upload event on any node
+    @Value("${document.processing.dispatch:local}")
+    private String processingDispatch = "local";
+
+    // Suggested wait for clients turned away because processing is saturated
+    @Value("${document.processing.executor.retry-after:5s}")
+    private Duration retryAfter = Duration.ofSeconds(5);
+
+    // Lanes for uploads without a requested priority: small files are served ahead, large ones behind
+    @Value("${document.processing.scheduling.small-file-size:256KB}")
+    private DataSize smallFileSize = DataSize.ofKilobytes(256);
+
+    @Value("${document.processing.scheduling.large-file-size:5MB}")
+    private DataSize largeFileSize = DataSize.ofMegabytes(5);
+
+    public DocumentProcessingService(S3Service s3Service, DynamoDBService dynamoDBService, SQSService sqsService,
+                                     BlobStoreService blobStoreService, DocumentBlobCache blobCache,
+                                     ProcessingResultCache resultCache, DocumentExtractionService extractionService,
+                                     UploadPipeline uploadPipeline, ProcessingTaskRegistry processingTasks,
+                                     @Qualifier(ProcessingExecutorConfig.EXECUTOR_NAME) Executor processingExecutor,
+                                     @Nullable AsyncAwsServices asyncServices) {
         this.s3Service = s3Service;
         this.dynamoDBService = dynamoDBService;
         this.sqsService = sqsService;
+        this.blobStoreService = blobStoreService;
+        this.blobCache = blobCache;
+        this.resultCache = resultCache;
+        this.extractionService = extractionService;
+        this.uploadPipeline = uploadPipeline;
+        this.processingTasks = processingTasks;
+        this.processingExecutor = processingExecutor;
+        this.asyncServices = asyncServices;
     }
 
     /**
@@ -42,68 +136,360 @@ public class DocumentProcessingService {
      * @return The created document with metadata
      */
     public Document uploadDocument(MultipartFile file) {
-        logger.info("Starting document upload process: fileName={}, size={}", file.getOriginalFilename(), file.getSize());
+        return uploadDocument(file, null);
+    }
+
+    /**
+     * Upload and process a document
+     * @param file The uploaded file
+     * @param priority Requested processing priority, or null to pick one from size and content type
+     * @return The created document with metadata
+     */
+    public Document uploadDocument(MultipartFile file, Document.ProcessingPriority priority) {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("File is empty");
+        }
+
+        // The multipart part is already spooled to disk by the servlet container: hash it there,
+        // and read it a second time only if its content is not stored yet
+        return uploadDocument(file.getOriginalFilename(), file.getContentType(), file.getSize(), () -> {
+            try (InputStream in = file.getInputStream()) {
+                return ContentDigest.compute(in, maxFileSize.toBytes());
+            }
+        }, file, priority);
+    }
+
+    /**
+     * Upload and process a document streamed from the given input stream.
+     * The stream is hashed while it is spooled to a temporary file, so only a fixed-size
+     * buffer of the content is held in memory and duplicate content never reaches S3.
+     * @param fileName Original file name
+     * @param contentType Content type of the document
+     * @param fileSize Declared size of the content in bytes, or -1 when unknown (chunked request body)
+     * @param content Document content; not closed by this method
+     * @return The created document with metadata
+     */
+    public Document uploadDocument(String fileName, String contentType, long fileSize, InputStream content) {
+        return uploadDocument(fileName, contentType, fileSize, content, null);
+    }
+
+    /**
+     * Upload and process a document streamed from the given input stream
+     * @param priority Requested processing priority, or null to pick one from size and content type
+     * @see #uploadDocument(String, String, long, InputStream)
+     */
+    public Document uploadDocument(String fileName, String contentType, long fileSize, InputStream content,
+                                   Document.ProcessingPriority priority) {
+        Path spoolFile;
+        try {
+            spoolFile = Files.createTempFile("docohpp-upload-", ".tmp");
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create upload spool file", e);
+        }
+
+        try {
+            return uploadDocument(fileName, contentType, fileSize, () -> {
+                try (OutputStream out = Files.newOutputStream(spoolFile)) {
+                    return ContentDigest.copy(content, out, maxFileSize.toBytes());
+                }
+            }, new FileSystemResource(spoolFile), priority);
+        } finally {
+            try {
+                Files.deleteIfExists(spoolFile);
+            } catch (IOException e) {
+                logger.warn("Failed to delete upload spool file {}: {}", spoolFile, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads the upload once, enforcing the size limit, and returns its hash and size
+     */
+    @FunctionalInterface
+    private interface DigestStep {
+        ContentDigest digest() throws IOException;
+    }
+
+    /**
+     * Run an upload through the {@link UploadPipeline}. The response waits for the durable
+     * stages only: the content stored and the metadata persisted. Announcing the upload and
+     * dispatching its processing happen behind the response, except that with queue dispatch
+     * the processing queue message is what gets the document processed, so it is awaited too.
+     */
+    private Document uploadDocument(String fileName, String contentType, long fileSize,
+                                     DigestStep digestStep, InputStreamSource content,
+                                     Document.ProcessingPriority priority) {
+        logger.info("Starting document upload process: fileName={}, size={}", fileName, fileSize);
+        checkProcessingCapacity();
+        checkUploadCapacity();
 
         Subsegment uploadSubsegment = AWSXRay.beginSubsegment("document-upload");
         try {
             // Add annotations for filtering in X-Ray console
             uploadSubsegment.putAnnotation("operation", "upload");
-            uploadSubsegment.putAnnotation("fileName", file.getOriginalFilename());
-            uploadSubsegment.putAnnotation("fileSize", file.getSize());
-            uploadSubsegment.putMetadata("upload", "originalFileName", file.getOriginalFilename());
-            uploadSubsegment.putMetadata("upload", "contentType", file.getContentType());
+            uploadSubsegment.putAnnotation("fileName", fileName);
+            uploadSubsegment.putAnnotation("fileSize", fileSize);
+            uploadSubsegment.putMetadata("upload", "originalFileName", fileName);
+            uploadSubsegment.putMetadata("upload", "contentType", contentType);
 
-            // Validate file
-            validateFile(file);
+            Document document = uploadPipeline.await(UploadPipeline.Stage.STORE,
+                    () -> storeContent(fileName, contentType, fileSize, digestStep, content));
+            document.setPriority(priority);
+            uploadSubsegment.putAnnotation("contentHash", document.getContentHash());
 
-            // Upload to S3 with custom subsegment
-            Subsegment s3Subsegment = AWSXRay.beginSubsegment("s3-upload");
-            String s3Key;
+            // Save metadata to DynamoDB, giving the blob reference back if that fails
+            Document savedDocument;
             try {
-                s3Subsegment.putAnnotation("service", "s3");
-                s3Subsegment.putAnnotation("bucket", bucketName);
-                s3Key = s3Service.uploadDocument(
-                        file.getOriginalFilename(),
-                        file.getContentType(),
-                        file.getBytes()
-                );
-            } finally {
-                s3Subsegment.close();
+                savedDocument = uploadPipeline.await(UploadPipeline.Stage.PERSIST, () -> asyncServices != null
+                        ? Futures.join(asyncServices.dynamoDB().saveDocument(document))
+                        : dynamoDBService.saveDocument(document));
+            } catch (Exception e) {
+                blobStoreService.release(document.getContentHash());
+                throw e;
             }
 
-            // Create document metadata
-            Document document = new Document(
-                    file.getOriginalFilename(),
-                    file.getContentType(),
-                    file.getSize(),
-                    bucketName,
-                    s3Key
-            );
-            document.setDocumentId(UUID.randomUUID().toString());
-
-            // Save metadata to DynamoDB
-            Document savedDocument = dynamoDBService.saveDocument(document);
-
-            // Send upload notification
-            sqsService.sendDocumentUploadedMessage(savedDocument);
-
-            // Start async processing
-            processDocumentAsync(savedDocument.getDocumentId());
+            if (processesLocally()) {
+                // Processing starts after the upload event, so consumers see the events in order
+                uploadPipeline.background(UploadPipeline.Stage.NOTIFY, () -> sendUploadedMessage(savedDocument))
+                        .thenRun(() -> uploadPipeline.background(UploadPipeline.Stage.DISPATCH,
+                                () -> dispatchProcessing(savedDocument)));
+            } else {
+                // The processing queue message is the only record that the document needs
+                // processing, so it is sent now, not batched, and the upload fails without it
+                try {
+                    uploadPipeline.await(UploadPipeline.Stage.NOTIFY, () -> asyncServices != null
+                            ? Futures.join(asyncServices.sqs().sendDocumentForProcessing(savedDocument))
+                            : sendForProcessing(savedDocument));
+                } catch (Exception e) {
+                    abandonUpload(savedDocument);
+                    throw e;
+                }
+                sendUploadedMessage(savedDocument);
+            }
 
             logger.info("Document upload completed: documentId={}", savedDocument.getDocumentId());
             return savedDocument;
 
-        } catch (IOException e) {
-            logger.error("Failed to read uploaded file: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to read uploaded file", e);
         } catch (Exception e) {
-            logger.error("Failed to upload document: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to upload document", e);
+            throw translateUploadFailure(fileName, e);
         } finally {
             uploadSubsegment.close();
         }
     }
 
+    /**
+     * Send the upload event; on the async client it is not awaited
+     */
+    private void sendUploadedMessage(Document document) {
+        if (asyncServices != null) {
+            asyncServices.sqs().sendDocumentUploadedMessage(document);
+        } else {
+            sqsService.sendDocumentUploadedMessage(document);
+        }
+    }
+
+    private Void sendForProcessing(Document document) {
+        sqsService.sendDocumentForProcessing(document);
+        return null;
+    }
+
+    /**
+     * Undo a saved upload whose processing could not be queued: delete its metadata and give
+     * the blob reference back, so the client can simply retry
+     */
+    private void abandonUpload(Document document) {
+        String documentId = document.getDocumentId();
+        try {
+            dynamoDBService.deleteDocument(documentId);
+            blobStoreService.release(document.getContentHash());
+            logger.warn("Upload abandoned, processing could not be queued: documentId={}", documentId);
+        } catch (Exception e) {
+            logger.error("Failed to abandon upload: documentId={}, error={}", documentId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Load and latency of each upload stage
+     */
+    public List<UploadStage.Stats> getUploadStageStats() {
+        return uploadPipeline.stats();
+    }
+
+    /**
+     * Upload several documents at once. Blobs are stored concurrently, metadata is written with
+     * BatchWriteItem and upload events are sent with SendMessageBatch, so the DynamoDB and SQS
+     * round trips per file drop by the batch sizes (25 and 10).
+     * @param files The uploaded files
+     * @return One result per file, in request order
+     */
+    public List<BatchUploadResult> uploadDocuments(List<MultipartFile> files) {
+        return uploadDocuments(files, null);
+    }
+
+    /**
+     * Upload several documents at once
+     * @param priority Requested processing priority for every file, or null to pick one per file
+     * @see #uploadDocuments(List)
+     */
+    public List<BatchUploadResult> uploadDocuments(List<MultipartFile> files, Document.ProcessingPriority priority) {
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException("No files provided");
+        }
+        if (files.size() > maxBatchFiles) {
+            throw new IllegalArgumentException("Batch exceeds maximum of " + maxBatchFiles + " files");
+        }
+        checkProcessingCapacity();
+        logger.info("Starting batch upload: files={}", files.size());
+
+        BatchUploadResult[] results = new BatchUploadResult[files.size()];
+        Document[] documents = new Document[files.size()];
+
+        // Store blobs concurrently, bounded by the batch parallelism
+        Semaphore slots = new Semaphore(batchParallelism);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Document>> stores = new ArrayList<>(files.size());
+            for (MultipartFile file : files) {
+                stores.add(executor.submit(() -> {
+                    slots.acquire();
+                    try {
+                        if (file.isEmpty()) {
+                            throw new IllegalArgumentException("File is empty");
+                        }
+                        return storeContent(file.getOriginalFilename(), file.getContentType(), file.getSize(), () -> {
+                            try (InputStream in = file.getInputStream()) {
+                                return ContentDigest.compute(in, maxFileSize.toBytes());
+                            }
+                        }, file);
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    documents[i] = stores.get(i).get();
+                    documents[i].setPriority(priority);
+                } catch (ExecutionException e) {
+                    Exception cause = e.getCause() instanceof Exception ex ? ex : e;
+                    results[i] = BatchUploadResult.failed(files.get(i).getOriginalFilename(),
+                            translateUploadFailure(files.get(i).getOriginalFilename(), cause).getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Batch upload interrupted", e);
+                }
+            }
+        }
+
+        // Persist metadata in BatchWriteItem chunks; release blobs whose rows could not be written
+        List<Document> stored = Arrays.stream(documents).filter(Objects::nonNull).toList();
+        Set<String> savedIds = dynamoDBService.saveDocuments(stored).stream()
+                .map(Document::getDocumentId)
+                .collect(Collectors.toSet());
+
+        List<Document> saved = new ArrayList<>(savedIds.size());
+        for (int i = 0; i < documents.length; i++) {
+            Document document = documents[i];
+            if (document == null) {
+                continue;
+            }
+            if (savedIds.contains(document.getDocumentId())) {
+                saved.add(document);
+                results[i] = BatchUploadResult.uploaded(document);
+            } else {
+                blobStoreService.release(document.getContentHash());
+                results[i] = BatchUploadResult.failed(document.getFileName(), "Failed to save document metadata");
+            }
+        }
+
+        // With queue dispatch, queue the documents for processing now; a document that could not
+        // be queued is undone
+        if (!processesLocally()) {
+            Set<String> unqueuedIds = sqsService.sendDocumentsForProcessing(saved).stream()
+                    .map(Document::getDocumentId)
+                    .collect(Collectors.toSet());
+            for (int i = 0; i < results.length; i++) {
+                Document document = documents[i];
+                if (document != null && unqueuedIds.contains(document.getDocumentId())) {
+                    abandonUpload(document);
+                    results[i] = BatchUploadResult.failed(document.getFileName(), "Failed to queue document for processing");
+                }
+            }
+            saved.removeIf(document -> unqueuedIds.contains(document.getDocumentId()));
+        }
+
+        // Send upload notifications in SendMessageBatch chunks
+        sqsService.sendDocumentUploadedMessages(saved);
+
+        // Start async processing
+        saved.forEach(this::dispatchProcessing);
+
+        logger.info("Batch upload completed: files={}, uploaded={}", files.size(), saved.size());
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Validate, hash and store the content of an upload, returning the unsaved document for it
+     */
+    private Document storeContent(String fileName, String contentType, long fileSize,
+                                  DigestStep digestStep, InputStreamSource content) throws IOException {
+        // Validate file
+        validateFile(fileName, contentType, fileSize);
+
+        // Hash and size-check the content in a single streaming pass
+        ContentDigest digest = digestStep.digest();
+        if (digest.size() == 0) {
+            throw new IllegalArgumentException("File is empty");
+        }
+
+        // Store in S3 with custom subsegment, unless identical content is already stored
+        Subsegment s3Subsegment = AWSXRay.beginSubsegment("s3-upload");
+        BlobStoreService.StoredBlob blob;
+        try {
+            s3Subsegment.putAnnotation("service", "s3");
+            s3Subsegment.putAnnotation("bucket", bucketName);
+            blob = blobStoreService.store(digest, contentType, content);
+            s3Subsegment.putAnnotation("deduplicated", blob.deduplicated());
+        } finally {
+            s3Subsegment.close();
+        }
+
+        // Create document metadata
+        Document document = new Document(
+                fileName,
+                contentType,
+                digest.size(),
+                bucketName,
+                blob.s3Key()
+        );
+        document.setDocumentId(UUID.randomUUID().toString());
+        document.setContentHash(blob.contentHash());
+        return document;
+    }
+
+    /**
+     * Map an upload failure to the exception surfaced to the caller: validation problems and
+     * size limit violations become IllegalArgumentException, everything else a RuntimeException
+     */
+    private RuntimeException translateUploadFailure(String fileName, Exception e) {
+        if (e instanceof IllegalArgumentException illegalArgument) {
+            return illegalArgument;
+        }
+        if (e instanceof ProcessingCapacityExceededException capacityExceeded) {
+            return capacityExceeded;
+        }
+        if (e instanceof RejectedExecutionException rejected) {
+            logger.warn("Upload rejected: {}", rejected.getMessage());
+            return new ProcessingCapacityExceededException(rejected.getMessage(), retryAfter, rejected);
+        }
+        if (SizeLimitedInputStream.SizeLimitExceededException.findIn(e) != null) {
+            logger.warn("Upload aborted, content exceeded {}: fileName={}", maxFileSize, fileName);
+            return new IllegalArgumentException("File size exceeds maximum limit of " + maxFileSize.toMegabytes() + "MB", e);
+        }
+        logger.error("Failed to upload document: {}", e.getMessage(), e);
+        return new RuntimeException("Failed to upload document", e);
+    }
+
     /**
      * Get document by ID
      * @param documentId Document ID
@@ -120,6 +506,45 @@ public class DocumentProcessingService {
         return document;
     }
 
+    /**
+     * Get selected fields of a document by ID
+     * @param documentId Document ID
+     * @param fields Fields to read, or null for the whole document
+     * @return Document with only the selected fields set
+     */
+    public Document getDocument(String documentId, DocumentFields fields) {
+        if (fields == null) {
+            return getDocument(documentId);
+        }
+        logger.info("Retrieving document: documentId={}, fields={}", documentId, fields.names());
+
+        Document document = dynamoDBService.getDocument(documentId, fields);
+        if (document == null) {
+            throw new RuntimeException("Document not found: " + documentId);
+        }
+
+        return document;
+    }
+
+    /**
+     * Look up many documents in one call
+     * @param documentIds Up to {@code document.lookup.max-ids} document IDs
+     * @param fields Fields to read, or null for whole documents
+     * @return The documents found and the IDs that do not exist
+     */
+    public DocumentLookup getDocuments(List<String> documentIds, DocumentFields fields) {
+        if (documentIds == null || documentIds.isEmpty()) {
+            throw new IllegalArgumentException("No document IDs provided");
+        }
+        if (documentIds.size() > maxLookupIds) {
+            throw new IllegalArgumentException("Too many document IDs. Maximum is " + maxLookupIds);
+        }
+        if (documentIds.stream().anyMatch(id -> id == null || id.isBlank())) {
+            throw new IllegalArgumentException("Document IDs must not be blank");
+        }
+        return dynamoDBService.getDocuments(documentIds, fields);
+    }
+
     /**
      * Get all documents
      * @return List of all documents
@@ -129,6 +554,40 @@ public class DocumentProcessingService {
         return dynamoDBService.getAllDocuments();
     }
 
+    /**
+     * List documents one page at a time
+     * @param limit Requested page size, clamped to 1..{@code document.list.max-limit}
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param fields Fields to read, or null for whole documents
+     * @return The page and the cursor for the next one
+     */
+    public DocumentPage listDocuments(int limit, String cursor, DocumentFields fields) {
+        int pageSize = Math.max(1, Math.min(limit, maxListLimit));
+        logger.info("Listing documents: limit={}", pageSize);
+        return dynamoDBService.listDocuments(pageSize, cursor, fields);
+    }
+
+    /**
+     * List documents in one status, newest first, optionally limited to an upload time window
+     * @param status Processing status to match
+     * @param since Earliest upload time, or null
+     * @param until Latest upload time, or null
+     * @param limit Requested page size, clamped to 1..{@code document.list.max-limit}
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param fields Fields to read, or null for whole documents
+     * @return The page and the cursor for the next one
+     */
+    public DocumentPage listDocumentsByStatus(Document.ProcessingStatus status, LocalDateTime since,
+                                              LocalDateTime until, int limit, String cursor,
+                                              DocumentFields fields) {
+        if (since != null && until != null && since.isAfter(until)) {
+            throw new IllegalArgumentException("since must not be after until");
+        }
+        int pageSize = Math.max(1, Math.min(limit, maxListLimit));
+        logger.info("Listing documents by status: status={}, since={}, until={}, limit={}", status, since, until, pageSize);
+        return dynamoDBService.queryDocumentsByStatus(status, since, until, pageSize, cursor, fields);
+    }
+
     /**
      * Download document content
      * @param documentId Document ID
@@ -138,24 +597,75 @@ public class DocumentProcessingService {
         logger.info("Downloading document: documentId={}", documentId);
 
         Document document = getDocument(documentId);
+        if (asyncServices != null) {
+            return Futures.join(asyncServices.s3().downloadDocument(document.getS3Key()));
+        }
         return s3Service.downloadDocument(document.getS3Key());
     }
 
     /**
-     * Delete a document
+     * Open a streaming read of a document's content, optionally limited to a byte range
+     * @param document Document to read
+     * @param start First byte to read, or null for the whole document
+     * @param end Last byte to read (inclusive), or null for the rest of the document
+     * @return The opened content; the caller must close it
+     */
+    public DocumentContent openDocumentContent(Document document, Long start, Long end) {
+        logger.info("Streaming document: documentId={}, start={}, end={}", document.getDocumentId(), start, end);
+
+        // Full reads fill the disk cache; a range request on a miss goes straight to S3 rather
+        // than pulling the whole object for a few bytes
+        try {
+            DocumentBlobCache.CachedBlob cached = start == null
+                    ? blobCache.get(document.getS3Key(), document.getFileSize())
+                    : blobCache.getIfPresent(document.getS3Key());
+            if (cached != null) {
+                long first = start != null ? start : 0;
+                long last = end != null ? end : cached.size() - 1;
+                return cached.open(first, last);
+            }
+        } catch (Exception e) {
+            logger.warn("Blob cache unavailable, streaming from S3: documentId={}, error={}",
+                    document.getDocumentId(), e.getMessage());
+        }
+        return DocumentContent.fromStream(s3Service.openDocument(document.getS3Key(), start, end));
+    }
+
+    /**
+     * Delete a document. Processing still in flight for it on this instance is cancelled first,
+     * which frees its worker right away.
      * @param documentId Document ID
      */
     public void deleteDocument(String documentId) {
         logger.info("Deleting document: documentId={}", documentId);
+        processingTasks.cancel(documentId);
+
+        if (asyncServices != null) {
+            try {
+                Futures.join(deleteDocumentAsync(documentId));
+                return;
+            } catch (Exception e) {
+                logger.error("Failed to delete document: {}", e.getMessage(), e);
+                throw new RuntimeException("Failed to delete document", e);
+            }
+        }
 
         try {
             Document document = getDocument(documentId);
 
-            // Delete from S3
-            s3Service.deleteDocument(document.getS3Key());
-
             // Delete metadata from DynamoDB
             dynamoDBService.deleteDocument(documentId);
+            deleteExtractedMetadata(documentId);
+
+            // Delete from S3; shared blobs only go once their last document is gone
+            if (document.getContentHash() != null) {
+                if (blobStoreService.release(document.getContentHash())) {
+                    blobCache.invalidate(document.getS3Key());
+                }
+            } else {
+                s3Service.deleteDocument(document.getS3Key());
+                blobCache.invalidate(document.getS3Key());
+            }
 
             // Send deletion notification
             sqsService.sendDocumentDeletedMessage(documentId, document.getFileName());
@@ -168,167 +678,640 @@ public class DocumentProcessingService {
         }
     }
 
+    /**
+     * The delete flow composed on the async clients: metadata first, then the content, then
+     * the (unawaited) deletion event
+     */
+    private CompletableFuture<Void> deleteDocumentAsync(String documentId) {
+        return asyncServices.dynamoDB().getDocument(documentId)
+                .thenCompose(document -> {
+                    if (document == null) {
+                        throw new RuntimeException("Document not found: " + documentId);
+                    }
+                    return asyncServices.dynamoDB().deleteDocument(documentId)
+                            .thenCompose(deleted -> releaseContentAsync(document))
+                            .thenRunAsync(() -> deleteExtractedMetadata(documentId), BLOCKING_CALLS)
+                            .thenRun(() -> {
+                                asyncServices.sqs().sendDocumentDeletedMessage(documentId, document.getFileName());
+                                logger.info("Document deleted successfully: documentId={}", documentId);
+                            });
+                });
+    }
+
+    private CompletableFuture<Void> releaseContentAsync(Document document) {
+        if (document.getContentHash() == null) {
+            return asyncServices.s3().deleteDocument(document.getS3Key())
+                    .thenRun(() -> blobCache.invalidate(document.getS3Key()));
+        }
+        // Blob reference counting stays on the blocking client; keep it off the SDK's threads, and
+        // off the processing executor, which may reject it once the metadata is already gone
+        return CompletableFuture.runAsync(() -> {
+            if (blobStoreService.release(document.getContentHash())) {
+                blobCache.invalidate(document.getS3Key());
+            }
+        }, BLOCKING_CALLS);
+    }
+
+    /**
+     * Remove what processing extracted from a deleted document; leftovers are only logged, the
+     * document itself is gone either way
+     */
+    private void deleteExtractedMetadata(String documentId) {
+        try {
+            extractionService.deleteMetadata(documentId);
+        } catch (Exception e) {
+            logger.warn("Failed to delete extracted metadata: documentId={}, error={}", documentId, e.getMessage());
+        }
+    }
+
+    /**
+     * Start processing an uploaded document, unless the processing queue workers take care of it
+     */
+    private void dispatchProcessing(Document document) {
+        String documentId = document.getDocumentId();
+        if (!processesLocally()) {
+            logger.debug("Processing left to the queue workers: documentId={}", documentId);
+            return;
+        }
+        processDocumentAsync(document, false).exceptionally(error -> {
+            if (Futures.unwrap(error) instanceof ProcessingCapacityExceededException capacityExceeded) {
+                // Admitted by the capacity check, but the executor filled up before submission
+                logger.warn("Processing rejected, executor saturated: documentId={}", documentId);
+                markFailed(documentId, Document.ProcessingStatus.UPLOADED, capacityExceeded);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Fail fast when the processing executor can take no more work, before any content is stored
+     * @throws ProcessingCapacityExceededException if every worker is busy and the queue is full
+     */
+    private void checkProcessingCapacity() {
+        if (processesLocally()
+                && processingExecutor instanceof ThreadPoolExecutor pool
+                && pool.getActiveCount() >= pool.getMaximumPoolSize()
+                && pool.getQueue().remainingCapacity() == 0) {
+            throw new ProcessingCapacityExceededException("Document processing is at capacity", retryAfter);
+        }
+    }
+
+    /**
+     * Admission control for uploads: turn the upload away when any upload stage is saturated,
+     * so a slow downstream pushes back on clients instead of queueing without bound
+     * @throws ProcessingCapacityExceededException naming the saturated stage
+     */
+    private void checkUploadCapacity() {
+        UploadPipeline.Stage saturated = uploadPipeline.saturatedStage();
+        if (saturated != null) {
+            throw new ProcessingCapacityExceededException("Upload stage " + saturated.key() + " is at capacity", retryAfter);
+        }
+    }
+
+    private boolean processesLocally() {
+        return !"queue".equalsIgnoreCase(processingDispatch) || !sqsService.isProcessingQueueAvailable();
+    }
+
     /**
      * Process document asynchronously
      * @param documentId Document ID to process
      */
-    @Async
     public CompletableFuture<Void> processDocumentAsync(String documentId) {
-        processDocument(documentId);
-        return CompletableFuture.completedFuture(null);
+        return processDocumentAsync(documentId, false);
     }
 
     /**
-     * Simulate document processing (OCR, text extraction, etc.)
+     * Process a document, optionally resuming it. A worker that receives a processing message a
+     * second time resumes a document still PROCESSING: the worker holding the first delivery
+     * stopped extending its visibility, so it is gone.
      * @param documentId Document ID to process
+     * @param resume Whether to pick up a document left in PROCESSING
+     * @return Completes once the outcome is recorded; fails only if it could not be, or with
+     *         ProcessingCapacityExceededException if the processing executor rejected the document
      */
-    private void processDocument(String documentId) {
+    public CompletableFuture<Void> processDocumentAsync(String documentId, boolean resume) {
+        Document document = new Document();
+        document.setDocumentId(documentId);
+        document.setFileSize(-1);
+        return processDocumentAsync(document, resume);
+    }
+
+    /**
+     * Process a document, scheduled by what is known about it: its requested priority, size and
+     * content type pick the lane it waits in, and its estimated processing time its place in
+     * the lane (see {@link ProcessingJobQueue})
+     * @param document The document to process; only its ID is required, a fileSize of -1 means unknown
+     * @param resume Whether to pick up a document left in PROCESSING
+     * @return Completes once the outcome is recorded; fails only if it could not be, or with
+     *         ProcessingCapacityExceededException if the processing executor rejected the document
+     */
+    public CompletableFuture<Void> processDocumentAsync(Document document, boolean resume) {
+        String documentId = document.getDocumentId();
+        if (asyncServices != null) {
+            // No thread is held while the work waits, so there is no queue to order
+            return composeProcessing(document, resume);
+        }
+
+        // Submitted explicitly: @Async is bypassed on self-invocation and would run processing on the request thread
+        CompletableFuture<Void> outcome = new CompletableFuture<>();
+        ProcessingTaskRegistry.Task task = processingTasks.register(documentId);
+        ProcessingJob job = new ProcessingJob(documentId, schedulingLane(document),
+                document.getFileSize() < 0 ? Long.MAX_VALUE : estimatedProcessingTime(document), () -> {
+                    try {
+                        task.run(() -> {
+                            processDocument(document, resume, task);
+                            return null;
+                        });
+                        outcome.complete(null);
+                    } catch (CancellationException e) {
+                        logger.info("Document processing cancelled before it started: documentId={}", documentId);
+                        outcome.complete(null);
+                    } catch (Throwable e) {
+                        outcome.completeExceptionally(e);
+                    } finally {
+                        processingTasks.unregister(task);
+                    }
+                });
+        try {
+            processingExecutor.execute(job);
+        } catch (RejectedExecutionException e) {
+            processingTasks.unregister(task);
+            return CompletableFuture.failedFuture(
+                    new ProcessingCapacityExceededException("Document processing is at capacity", retryAfter, e));
+        }
+        // A job still waiting gives up its place in the queue; a running one is interrupted
+        task.onCancel(() -> {
+            if (processingExecutor instanceof ThreadPoolExecutor pool && pool.remove(job)) {
+                logger.info("Document processing cancelled while queued: documentId={}", documentId);
+                outcome.complete(null);
+            }
+        });
+        return outcome;
+    }
+
+    /**
+     * The lane a document waits in for processing: the requested priority if there is one,
+     * otherwise LOW for large files and images (OCR), HIGH for small files and text
+     */
+    Document.ProcessingPriority schedulingLane(Document document) {
+        if (document.getPriority() != null) {
+            return document.getPriority();
+        }
+        long fileSize = document.getFileSize();
+        String contentType = document.getContentType();
+        if (fileSize < 0) {
+            return Document.ProcessingPriority.NORMAL;
+        }
+        if (fileSize >= largeFileSize.toBytes() || (contentType != null && contentType.startsWith("image/"))) {
+            return Document.ProcessingPriority.LOW;
+        }
+        if (fileSize <= smallFileSize.toBytes() || (contentType != null && contentType.startsWith("text/"))) {
+            return Document.ProcessingPriority.HIGH;
+        }
+        return Document.ProcessingPriority.NORMAL;
+    }
+
+    /**
+     * The processing flow composed on the async clients. No thread is held while a status
+     * update is in flight or while the simulated work waits; events are not awaited.
+     * Content processed before goes straight from UPLOADED to COMPLETED with the cached result.
+     * Failures are handled as in {@link #processDocument}.
+     * @param document Document to process; only its ID is required
+     */
+    private CompletableFuture<Void> composeProcessing(Document document, boolean resume) {
+        String documentId = document.getDocumentId();
+        logger.info("Starting document processing: documentId={}", documentId);
+
+        DynamoDBAsyncService dynamoDB = asyncServices.dynamoDB();
+        SQSAsyncService sqs = asyncServices.sqs();
+        ProcessingTaskRegistry.Task task = processingTasks.register(documentId);
+        // Status we last moved the document to; the guard for the next conditional transition
+        AtomicReference<Document.ProcessingStatus> current = new AtomicReference<>(Document.ProcessingStatus.UPLOADED);
+
+        // Reusing a result may copy its offloaded text, so it runs off the caller's thread
+        CompletableFuture<String> reused = !resume && cachedResult(document) != null
+                ? CompletableFuture.supplyAsync(() -> reuseCachedResult(document), BLOCKING_CALLS)
+                : CompletableFuture.completedFuture(null);
+
+        return reused
+                .thenCompose(reusedNotes -> {
+                    if (reusedNotes == null) {
+                        return composeUncachedProcessing(documentId, resume, task, current);
+                    }
+                    return dynamoDB.updateDocumentStatus(documentId,
+                                    Document.ProcessingStatus.UPLOADED, Document.ProcessingStatus.COMPLETED, reusedNotes)
+                            .thenAccept(processedDocument -> {
+                                current.set(Document.ProcessingStatus.COMPLETED);
+                                sqs.sendDocumentProcessingCompletedMessage(processedDocument);
+                                logger.info("Document processing completed with a cached result: documentId={}", documentId);
+                            });
+                })
+                .exceptionallyCompose(error -> {
+                    Throwable cause = Futures.unwrap(error);
+                    if (task.isCancelled() || isDeleted(cause)) {
+                        logger.info("Document processing stopped, document deleted: documentId={}", documentId);
+                        return CompletableFuture.runAsync(() -> deleteExtractedMetadata(documentId), BLOCKING_CALLS);
+                    }
+                    if (cause instanceof StatusTransitionException) {
+                        logger.warn("Skipping document processing: {}", cause.getMessage());
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    logger.error("Document processing failed: documentId={}, error={}", documentId, cause.getMessage(), cause);
+                    if (current.get() == Document.ProcessingStatus.COMPLETED) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return dynamoDB.updateDocumentStatus(documentId, current.get(), Document.ProcessingStatus.FAILED,
+                                    "Processing failed: " + cause.getMessage())
+                            .thenAccept(failedDocument -> sqs.sendDocumentProcessingFailedMessage(failedDocument, cause.getMessage()))
+                            .exceptionally(markError -> {
+                                Throwable markCause = Futures.unwrap(markError);
+                                if (!(markCause instanceof StatusTransitionException)) {
+                                    throw new CompletionException(markCause);
+                                }
+                                logger.warn("Not marking document as failed: {}", markCause.getMessage());
+                                return null;
+                            });
+                })
+                .whenComplete((ignored, error) -> processingTasks.unregister(task));
+    }
+
+    /**
+     * The part of {@link #composeProcessing} that actually processes the document
+     */
+    private CompletableFuture<Void> composeUncachedProcessing(String documentId, boolean resume,
+                                                              ProcessingTaskRegistry.Task task,
+                                                              AtomicReference<Document.ProcessingStatus> current) {
+        DynamoDBAsyncService dynamoDB = asyncServices.dynamoDB();
+        SQSAsyncService sqs = asyncServices.sqs();
+
+        CompletableFuture<Document> resumed = resume
+                ? dynamoDB.getDocument(documentId).thenApply(document -> isProcessing(document) ? document : null)
+                : CompletableFuture.completedFuture(null);
+
+        return resumed
+                .thenCompose(resumedDocument -> {
+                    if (resumedDocument != null) {
+                        logger.info("Resuming document processing: documentId={}", documentId);
+                        return CompletableFuture.completedFuture(resumedDocument);
+                    }
+                    return dynamoDB.updateDocumentStatus(documentId,
+                                    Document.ProcessingStatus.UPLOADED, Document.ProcessingStatus.PROCESSING, null)
+                            .thenApply(startedDocument -> {
+                                sqs.sendDocumentProcessingStartedMessage(startedDocument);
+                                return startedDocument;
+                            });
+                })
+                .thenCompose(startedDocument -> {
+                    current.set(Document.ProcessingStatus.PROCESSING);
+                    task.throwIfCancelled();
+
+                    CompletableFuture<String> work;
+                    if (cachedResult(startedDocument) != null
+                            || extractionService.processorFor(startedDocument.getContentType()) != null) {
+                        work = CompletableFuture.supplyAsync(
+                                () -> task.run(() -> runProcessing(startedDocument, task)), processingExecutor);
+                    } else {
+                        // Hand over to the processing executor as a stage of its own: a rejection there
+                        // fails the stage, where inside a delayed executor it would be lost on the timer thread
+                        Executor afterProcessingTime = CompletableFuture.delayedExecutor(
+                                simulatedProcessingTime(startedDocument), TimeUnit.MILLISECONDS);
+                        work = CompletableFuture.runAsync(() -> { }, afterProcessingTime).thenApplyAsync(ignored -> {
+                            simulateProcessingOutcome();
+                            task.throwIfCancelled();
+                            cacheResult(startedDocument, null);
+                            return "Document processed successfully at " + LocalDateTime.now();
+                        }, processingExecutor);
+                    }
+                    // Cancelling the pending stage skips simulated work that has not started yet
+                    task.onCancel(() -> work.cancel(false));
+                    return work;
+                })
+                .thenCompose(processingNotes -> {
+                    task.throwIfCancelled();
+                    return dynamoDB.updateDocumentStatus(documentId,
+                            Document.ProcessingStatus.PROCESSING, Document.ProcessingStatus.COMPLETED, processingNotes);
+                })
+                .thenAccept(processedDocument -> {
+                    current.set(Document.ProcessingStatus.COMPLETED);
+                    sqs.sendDocumentProcessingCompletedMessage(processedDocument);
+                    logger.info("Document processing completed: documentId={}", documentId);
+                });
+    }
+
+    private static boolean isProcessing(Document document) {
+        return document != null && document.getStatus() == Document.ProcessingStatus.PROCESSING;
+    }
+
+    /**
+     * @return Whether a status transition was rejected because the document no longer exists
+     */
+    private static boolean isDeleted(Throwable cause) {
+        return cause instanceof StatusTransitionException rejected && rejected.getActualStatus() == null;
+    }
+
+    /**
+     * Simulate document processing (OCR, text extraction, etc.). Content processed before, as
+     * known from the document's content hash, goes straight from UPLOADED to COMPLETED with the
+     * cached result.
+     * @param document Document to process; only its ID is required
+     * @param resume Whether to pick up a document left in PROCESSING
+     * @param task The run, checked for cancellation between steps
+     */
+    private void processDocument(Document document, boolean resume, ProcessingTaskRegistry.Task task) {
+        String documentId = document.getDocumentId();
         logger.info("Starting document processing: documentId={}", documentId);
 
         // Create custom X-Ray subsegment for document processing
         Subsegment processingSubsegment = AWSXRay.beginSubsegment("document-processing");
+        // Status we last moved the document to; the guard for the next conditional transition
+        Document.ProcessingStatus current = Document.ProcessingStatus.UPLOADED;
         try {
-            // Update status to PROCESSING
-            dynamoDBService.updateDocumentStatus(documentId, Document.ProcessingStatus.PROCESSING, null);
+            String reusedNotes = resume ? null : reuseCachedResult(document);
+            if (reusedNotes != null) {
+                Document processedDocument = dynamoDBService.updateDocumentStatus(documentId,
+                        Document.ProcessingStatus.UPLOADED, Document.ProcessingStatus.COMPLETED, reusedNotes);
+                current = Document.ProcessingStatus.COMPLETED;
+                sqsService.sendDocumentProcessingCompletedMessage(processedDocument);
+                logger.info("Document processing completed with a cached result: documentId={}", documentId);
+                return;
+            }
 
-            // Ensure the document exists before proceeding
-            Document startedDocument = getDocument(documentId);
-            sqsService.sendDocumentProcessingStartedMessage(startedDocument);
+            // Each transition returns the updated document, so events need no extra read
+            Document startedDocument = resume ? dynamoDBService.getDocument(documentId) : null;
+            if (isProcessing(startedDocument)) {
+                logger.info("Resuming document processing: documentId={}", documentId);
+            } else {
+                startedDocument = dynamoDBService.updateDocumentStatus(documentId,
+                        Document.ProcessingStatus.UPLOADED, Document.ProcessingStatus.PROCESSING, null);
+                sqsService.sendDocumentProcessingStartedMessage(startedDocument);
+            }
+            current = Document.ProcessingStatus.PROCESSING;
 
-            // Simulate processing work
-            simulateProcessing(documentId);
+            String processingNotes = runProcessing(startedDocument, task);
+            task.throwIfCancelled();
 
             // Update status to COMPLETED
-            String processingNotes = "Document processed successfully at " + LocalDateTime.now();
-            dynamoDBService.updateDocumentStatus(documentId, Document.ProcessingStatus.COMPLETED, processingNotes);
-
-            Document processedDocument = getDocument(documentId);
+            Document processedDocument = dynamoDBService.updateDocumentStatus(documentId,
+                    Document.ProcessingStatus.PROCESSING, Document.ProcessingStatus.COMPLETED, processingNotes);
+            current = Document.ProcessingStatus.COMPLETED;
             sqsService.sendDocumentProcessingCompletedMessage(processedDocument);
 
             logger.info("Document processing completed: documentId={}", documentId);
 
         } catch (Exception e) {
+            if (task.isCancelled() || isDeleted(e)) {
+                // Deleted while processing: drop whatever was extracted, it may have been stored
+                // after the delete removed it
+                logger.info("Document processing stopped, document deleted: documentId={}", documentId);
+                // Clear the cancel's interrupt, or the cleanup call would be aborted too
+                Thread.interrupted();
+                deleteExtractedMetadata(documentId);
+                return;
+            }
+            if (e instanceof StatusTransitionException) {
+                // Another worker already moved the document on; leave it alone
+                logger.warn("Skipping document processing: {}", e.getMessage());
+                return;
+            }
             logger.error("Document processing failed: documentId={}, error={}", documentId, e.getMessage(), e);
 
-            // Update status to FAILED
-            String errorNotes = "Processing failed: " + e.getMessage();
-            dynamoDBService.updateDocumentStatus(documentId, Document.ProcessingStatus.FAILED, errorNotes);
-
-            // Best effort fetch; may be null if the document was removed
-            Document failedDocument = dynamoDBService.getDocument(documentId);
-            sqsService.sendDocumentProcessingFailedMessage(failedDocument, e.getMessage());
+            if (current != Document.ProcessingStatus.COMPLETED) {
+                markFailed(documentId, current, e);
+            }
         } finally {
             processingSubsegment.close();
         }
     }
 
     /**
-     * Simulate processing work (OCR, text extraction, etc.)
-     * In a real application, this would do actual processing
+     * Move a document to FAILED and announce it, unless it has moved on in the meantime
      */
-    private void simulateProcessing(String documentId) {
+    private void markFailed(String documentId, Document.ProcessingStatus current, Exception cause) {
+        String errorNotes = "Processing failed: " + cause.getMessage();
         try {
-            Document document = dynamoDBService.getDocument(documentId);
-            if (document == null) {
-                throw new IllegalStateException("Document not found during processing: " + documentId);
-            }
+            Document failedDocument = dynamoDBService.updateDocumentStatus(documentId,
+                    current, Document.ProcessingStatus.FAILED, errorNotes);
+            sqsService.sendDocumentProcessingFailedMessage(failedDocument, cause.getMessage());
+        } catch (StatusTransitionException e) {
+            logger.warn("Not marking document as failed: {}", e.getMessage());
+        }
+    }
 
-            // Simulate different processing times based on file size
-            long processingTime = Math.min(document.getFileSize() / 1000, 10000); // Max 10 seconds
-            processingTime = Math.max(processingTime, 2000); // Min 2 seconds
-
-            logger.info("Simulating document processing for {} ms: documentId={}", processingTime, documentId);
-            Thread.sleep(processingTime);
-
-            // Simulate processing based on content type
-            String contentType = document.getContentType();
-            if (contentType != null) {
-                if (contentType.startsWith("image/")) {
-                    logger.info("Simulating OCR processing for image: documentId={}", documentId);
-                    Thread.sleep(1000); // Additional time for OCR
-                } else if (contentType.equals("application/pdf")) {
-                    logger.info("Simulating PDF text extraction: documentId={}", documentId);
-                    Thread.sleep(500); // Additional time for PDF processing
-                } else if (contentType.startsWith("text/")) {
-                    logger.info("Simulating text analysis: documentId={}", documentId);
-                    Thread.sleep(200); // Minimal time for text processing
-                }
-            }
+    /**
+     * Reuse the cached result for the document's content if there is one, otherwise extract the
+     * document with the processor for its content type, or simulate the work for content types
+     * without one, and cache the result
+     * @return Processing notes for the completed document
+     * @throws CancellationException if the run was cancelled; what it extracted may be stored
+     */
+    private String runProcessing(Document document, ProcessingTaskRegistry.Task task) {
+        String reusedNotes = reuseCachedResult(document);
+        if (reusedNotes != null) {
+            return reusedNotes;
+        }
+        task.throwIfCancelled();
+        DocumentMetadata metadata = extractionService.extract(document);
+        if (metadata == null) {
+            simulateProcessing(document);
+        }
+        task.throwIfCancelled();
+        cacheResult(document, metadata);
+        return metadata != null ? extractionNotes(metadata)
+                : "Document processed successfully at " + LocalDateTime.now();
+    }
 
-            // Simulate occasional processing failures (5% chance)
-            if (Math.random() < 0.05) {
-                throw new RuntimeException("Simulated processing failure");
+    /**
+     * @return The cached result of processing the document's content, or null if there is none
+     *         or its content hash or type is unknown
+     */
+    private ProcessingResultCache.ProcessingResult cachedResult(Document document) {
+        if (document.getContentHash() == null || document.getContentType() == null) {
+            return null;
+        }
+        return resultCache.get(document.getContentHash(), document.getContentType(),
+                extractionService.processingVersion(document.getContentType()));
+    }
+
+    /**
+     * Store the cached result of the document's content as the document's own
+     * @return Processing notes, or null if nothing is cached or the result could not be reused
+     */
+    private String reuseCachedResult(Document document) {
+        ProcessingResultCache.ProcessingResult cached = cachedResult(document);
+        if (cached == null) {
+            return null;
+        }
+        try {
+            if (cached.metadata() == null) {
+                return "Document processed successfully at " + LocalDateTime.now()
+                        + " (result of identical document " + cached.sourceDocumentId() + ")";
             }
+            DocumentMetadata metadata = extractionService.reuse(document.getDocumentId(), cached.metadata());
+            return extractionNotes(metadata) + " (result of identical document " + cached.sourceDocumentId() + ")";
+        } catch (RuntimeException e) {
+            // Most likely the source document was deleted along with its offloaded text
+            logger.warn("Cached processing result not reusable, processing again: documentId={}, error={}",
+                    document.getDocumentId(), e.getMessage());
+            resultCache.invalidate(document.getContentHash(), document.getContentType(),
+                    extractionService.processingVersion(document.getContentType()));
+            return null;
+        }
+    }
+
+    private void cacheResult(Document document, DocumentMetadata metadata) {
+        if (document.getContentHash() != null && document.getContentType() != null) {
+            resultCache.put(document.getContentHash(), document.getContentType(),
+                    extractionService.processingVersion(document.getContentType()),
+                    new ProcessingResultCache.ProcessingResult(document.getDocumentId(), metadata));
+        }
+    }
+
+    private static String extractionNotes(DocumentMetadata metadata) {
+        return "Extracted " + metadata.getExtractedTextLength() + " characters with "
+                + metadata.getProcessingEngine() + " at " + LocalDateTime.now();
+    }
+
+    /**
+     * Get the metadata extracted from a document by processing
+     * @param documentId Document ID
+     * @return The extracted metadata
+     * @throws RuntimeException if the document does not exist or nothing was extracted from it
+     */
+    public DocumentMetadata getExtractedMetadata(String documentId) {
+        DocumentMetadata metadata = extractionService.getMetadata(documentId);
+        if (metadata == null) {
+            throw new RuntimeException("No extracted metadata for document: " + documentId);
+        }
+        return metadata;
+    }
+
+    /**
+     * Open the full text extracted from a document; the caller closes the stream
+     * @param metadata The document's extracted metadata
+     * @return The text as UTF-8
+     */
+    public InputStream openExtractedText(DocumentMetadata metadata) {
+        return extractionService.openExtractedText(metadata);
+    }
 
+    /**
+     * Full-text search over the text extracted from processed documents. The index only sees
+     * deletes made through this instance, so hits are checked against DynamoDB and documents
+     * deleted elsewhere are dropped from the results and from the local index.
+     * @param query Free-text query
+     * @param limit Maximum number of hits
+     * @return Matching documents that still exist, most relevant first
+     */
+    public List<SearchHit> searchDocuments(String query, int limit) {
+        List<SearchHit> hits = extractionService.search(query, limit);
+        if (hits.isEmpty()) {
+            return hits;
+        }
+
+        DocumentLookup lookup = dynamoDBService.getDocuments(
+                hits.stream().map(SearchHit::documentId).toList(), DocumentFields.of());
+        if (lookup.missing().isEmpty()) {
+            return hits;
+        }
+        Set<String> missing = new HashSet<>(lookup.missing());
+        missing.forEach(extractionService::removeFromSearch);
+        logger.info("Dropped search hits for deleted documents: query={}, dropped={}", query, missing.size());
+        return hits.stream().filter(hit -> !missing.contains(hit.documentId())).toList();
+    }
+
+    /**
+     * Simulate processing work (OCR, text extraction, etc.)
+     * In a real application, this would do actual processing
+     */
+    private void simulateProcessing(Document document) {
+        try {
+            Thread.sleep(simulatedProcessingTime(document));
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException("Processing interrupted", e);
         }
+        simulateProcessingOutcome();
     }
 
     /**
-     * Get processing statistics
+     * Simulate different processing times based on file size and content type
+     * @return Processing time in milliseconds
      */
-    public DocumentProcessingStats getProcessingStats() {
-        logger.info("Calculating processing statistics");
-
-        List<Document> allDocuments = getAllDocuments();
-
-        int totalDocuments = allDocuments.size();
-        int uploadedCount = 0;
-        int processingCount = 0;
-        int completedCount = 0;
-        int failedCount = 0;
-        long totalSize = 0;
-
-        for (Document doc : allDocuments) {
-            switch (doc.getStatus()) {
-                case UPLOADED:
-                    uploadedCount++;
-                    break;
-                case PROCESSING:
-                    processingCount++;
-                    break;
-                case COMPLETED:
-                    completedCount++;
-                    break;
-                case FAILED:
-                    failedCount++;
-                    break;
+    private long simulatedProcessingTime(Document document) {
+        long processingTime = estimatedProcessingTime(document);
+        logger.info("Simulating document processing for {} ms: documentId={}, contentType={}",
+                processingTime, document.getDocumentId(), document.getContentType());
+        return processingTime;
+    }
+
+    /**
+     * Estimate how long a document takes to process from its size and content type. Also the
+     * job length used for shortest-job-first scheduling.
+     * @return Processing time in milliseconds
+     */
+    static long estimatedProcessingTime(Document document) {
+        long processingTime = Math.min(document.getFileSize() / 1000, 10000); // Max 10 seconds
+        processingTime = Math.max(processingTime, 2000); // Min 2 seconds
+
+        String contentType = document.getContentType();
+        if (contentType != null) {
+            if (contentType.startsWith("image/")) {
+                processingTime += 1000; // Additional time for OCR
+            } else if (contentType.equals("application/pdf")) {
+                processingTime += 500; // Additional time for PDF processing
+            } else if (contentType.startsWith("text/")) {
+                processingTime += 200; // Minimal time for text processing
             }
-            totalSize += doc.getFileSize();
         }
+        return processingTime;
+    }
+
+    /**
+     * Simulate occasional processing failures (5% chance)
+     */
+    private void simulateProcessingOutcome() {
+        if (Math.random() < 0.05) {
+            throw new RuntimeException("Simulated processing failure");
+        }
+    }
+
+    /**
+     * Get processing statistics from the materialized counters (a single GetItem)
+     */
+    public DocumentProcessingStats getProcessingStats() {
+        logger.info("Reading processing statistics");
+
+        DynamoDBService.ProcessingCounters counters = dynamoDBService.getProcessingCounters();
 
         return new DocumentProcessingStats(
-                totalDocuments,
-                uploadedCount,
-                processingCount,
-                completedCount,
-                failedCount,
+                (int) counters.total(),
+                (int) counters.count(Document.ProcessingStatus.UPLOADED),
+                (int) counters.count(Document.ProcessingStatus.PROCESSING),
+                (int) counters.count(Document.ProcessingStatus.COMPLETED),
+                (int) counters.count(Document.ProcessingStatus.FAILED),
                 sqsService.getQueueMessageCount(),
-                totalSize
+                counters.totalSize()
         );
     }
 
     /**
      * Validate uploaded file
      */
-    private void validateFile(MultipartFile file) {
-        if (file.isEmpty()) {
+    private void validateFile(String fileName, String contentType, long fileSize) {
+        if (fileSize == 0) {
             throw new IllegalArgumentException("File is empty");
         }
 
-        if (file.getOriginalFilename() == null || file.getOriginalFilename().trim().isEmpty()) {
+        if (fileName == null || fileName.trim().isEmpty()) {
             throw new IllegalArgumentException("File name is required");
         }
 
-        // Check file size (max 10MB as configured in properties)
-        if (file.getSize() > 10 * 1024 * 1024) {
-            throw new IllegalArgumentException("File size exceeds maximum limit of 10MB");
+        // Reject declared oversize uploads before any byte is read; the stream itself is capped as well
+        if (fileSize > maxFileSize.toBytes()) {
+            throw new IllegalArgumentException("File size exceeds maximum limit of " + maxFileSize.toMegabytes() + "MB");
         }
 
         // Check allowed file types
-        String contentType = file.getContentType();
         if (contentType != null && !isAllowedContentType(contentType)) {
             throw new IllegalArgumentException("File type not supported: " + contentType);
         }
@@ -345,6 +1328,22 @@ public class DocumentProcessingService {
                 contentType.equals("application/vnd.openxmlformats-officedocument.wordprocessingml.document");
     }
 
+    /**
+     * Outcome of one file in a batch upload
+     */
+    public record BatchUploadResult(String fileName, boolean success, String documentId,
+                                    Document.ProcessingStatus status, String message) {
+
+        static BatchUploadResult uploaded(Document document) {
+            return new BatchUploadResult(document.getFileName(), true, document.getDocumentId(),
+                    document.getStatus(), "Document uploaded successfully");
+        }
+
+        static BatchUploadResult failed(String fileName, String message) {
+            return new BatchUploadResult(fileName, false, null, null, message);
+        }
+    }
+
     /**
      * Processing statistics data class
      */
@@ -0,0 +1,149 @@
+package com.example.Doc_Ohpp.service;
+
+import com.example.Doc_Ohpp.cache.DocumentMetadataCache;
+import com.example.Doc_Ohpp.model.Document;
+import com.example.Doc_Ohpp.util.Futures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The single-item {@link DynamoDBService} operations on the async client. Requests and the
+ * handling of their responses (metadata cache, processing counters) are shared with the
+ * blocking service, so both modes write exactly the same items.
+ */
+@Service
+@ConditionalOnProperty(name = "aws.client.mode", havingValue = "async")
+public class DynamoDBAsyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DynamoDBAsyncService.class);
+
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final DynamoDBService dynamoDBService;
+    private final DocumentMetadataCache metadataCache;
+
+    public DynamoDBAsyncService(DynamoDbAsyncClient dynamoDbAsyncClient, DynamoDBService dynamoDBService,
+                                DocumentMetadataCache metadataCache) {
+        this.dynamoDbAsyncClient = dynamoDbAsyncClient;
+        this.dynamoDBService = dynamoDBService;
+        this.metadataCache = metadataCache;
+    }
+
+    /**
+     * Save document metadata
+     * @param document Document to save; an ID is generated if not present
+     * @return The saved document
+     */
+    public CompletableFuture<Document> saveDocument(Document document) {
+        PutItemRequest putItemRequest = dynamoDBService.saveRequest(document);
+        return dynamoDbAsyncClient.putItem(putItemRequest)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw failure("Failed to save document metadata", error);
+                    }
+                    adjustCounters(dynamoDBService.onSaved(document, putItemRequest.item(), response));
+
+                    logger.info("Document metadata saved successfully: documentId={}", document.getDocumentId());
+                    return document;
+                });
+    }
+
+    /**
+     * Retrieve document metadata, from the metadata cache when present
+     * @param documentId Document ID
+     * @return Document, or null if not found
+     */
+    public CompletableFuture<Document> getDocument(String documentId) {
+        Map<String, AttributeValue> cached = metadataCache.getIfPresent(documentId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(dynamoDBService.attributeMapToDocument(cached));
+        }
+        return dynamoDbAsyncClient.getItem(dynamoDBService.getItemRequest(documentId))
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw failure("Failed to retrieve document metadata", error);
+                    }
+                    if (response.item().isEmpty()) {
+                        logger.info("Document not found: documentId={}", documentId);
+                        return null;
+                    }
+                    metadataCache.put(documentId, response.item());
+                    return dynamoDBService.attributeMapToDocument(response.item());
+                });
+    }
+
+    /**
+     * Conditionally move a document from one processing status to another
+     * @return The document as stored after the update; fails with {@link StatusTransitionException}
+     * if the document is missing or not in the expected status
+     * @see DynamoDBService#updateDocumentStatus
+     */
+    public CompletableFuture<Document> updateDocumentStatus(String documentId, Document.ProcessingStatus expectedStatus,
+                                                            Document.ProcessingStatus status, String notes) {
+        UpdateItemRequest updateItemRequest = dynamoDBService.statusUpdateRequest(documentId, expectedStatus, status, notes);
+        return dynamoDbAsyncClient.updateItem(updateItemRequest)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        if (Futures.unwrap(error) instanceof ConditionalCheckFailedException rejected) {
+                            throw dynamoDBService.transitionRejected(documentId, expectedStatus, status, rejected);
+                        }
+                        metadataCache.invalidate(documentId);
+                        throw failure("Failed to update document status", error);
+                    }
+                    Map<String, AttributeValue> updated = response.attributes();
+                    adjustCounters(dynamoDBService.onStatusUpdated(documentId, expectedStatus, status, updated));
+
+                    logger.info("Document status updated successfully: documentId={}, status={}", documentId, status);
+                    return dynamoDBService.attributeMapToDocument(updated);
+                });
+    }
+
+    /**
+     * Delete document metadata
+     * @param documentId Document ID
+     */
+    public CompletableFuture<Void> deleteDocument(String documentId) {
+        return dynamoDbAsyncClient.deleteItem(dynamoDBService.deleteRequest(documentId))
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw failure("Failed to delete document metadata", error);
+                    }
+                    adjustCounters(dynamoDBService.onDeleted(documentId, response));
+
+                    logger.info("Document metadata deleted successfully: documentId={}", documentId);
+                    return null;
+                });
+    }
+
+    /**
+     * Apply counter changes without waiting for them; as in the blocking service, failures are
+     * only logged and the next reconciliation corrects any drift
+     */
+    private void adjustCounters(DynamoDBService.CounterDelta delta) {
+        UpdateItemRequest request = dynamoDBService.counterUpdateRequest(delta);
+        if (request == null) {
+            return;
+        }
+        dynamoDbAsyncClient.updateItem(request).whenComplete((response, error) -> {
+            if (error != null) {
+                logger.warn("Failed to update processing counters, the next reconciliation will correct them: {}",
+                        Futures.unwrap(error).getMessage());
+            }
+        });
+    }
+
+    private static RuntimeException failure(String message, Throwable error) {
+        Throwable cause = Futures.unwrap(error);
+        logger.error("{}: {}", message, cause.getMessage(), cause);
+        return new RuntimeException(message, cause);
+    }
+}
@@ -1,7 +1,12 @@
 package com.example.Doc_Ohpp.service;
 
 import com.amazonaws.xray.spring.aop.XRayEnabled;
+import com.example.Doc_Ohpp.cache.DocumentMetadataCache;
 import com.example.Doc_Ohpp.model.Document;
+import com.example.Doc_Ohpp.model.DocumentFields;
+import com.example.Doc_Ohpp.model.DocumentLookup;
+import com.example.Doc_Ohpp.model.DocumentPage;
+import com.example.Doc_Ohpp.util.PageCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,6 +17,17 @@ import software.amazon.awssdk.services.dynamodb.model.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 @XRayEnabled
@@ -19,13 +35,39 @@ public class DynamoDBService {
 
     private static final Logger logger = LoggerFactory.getLogger(DynamoDBService.class);
 
+    private static final int BATCH_WRITE_SIZE = 25;
+    private static final int MAX_BATCH_ATTEMPTS = 8;
+    private static final long BATCH_RETRY_BASE_DELAY_MS = 50;
+    private static final int BATCH_GET_SIZE = 100;
+
+
+    private static final String STATS_ID = "documents";
+    private static final String TOTAL_SIZE_ATTRIBUTE = "totalSize";
+
     private final DynamoDbClient dynamoDbClient;
+    private final DocumentMetadataCache metadataCache;
+    private final RequestHedging.Hedger getItemHedger;
 
     @Value("${aws.dynamodb.table-name}")
     private String tableName;
 
-    public DynamoDBService(DynamoDbClient dynamoDbClient) {
+    @Value("${aws.dynamodb.status-index-name:status-uploadedAt-index}")
+    private String statusIndexName = "status-uploadedAt-index";
+
+    @Value("${aws.dynamodb.stats-table-name:Doc_Ohpp_Stats}")
+    private String statsTableName = "Doc_Ohpp_Stats";
+
+    @Value("${aws.dynamodb.scan.segments:4}")
+    private int scanSegments = 4;
+
+    @Value("${aws.dynamodb.scan.buffer-size:1000}")
+    private int scanBufferSize = 1000;
+
+    public DynamoDBService(DynamoDbClient dynamoDbClient, DocumentMetadataCache metadataCache,
+                           RequestHedging requestHedging) {
         this.dynamoDbClient = dynamoDbClient;
+        this.metadataCache = metadataCache;
+        this.getItemHedger = requestHedging.hedger("dynamodb.getItem");
     }
 
     /**
@@ -35,21 +77,9 @@ public class DynamoDBService {
      */
     public Document saveDocument(Document document) {
         try {
-            // Generate document ID if not present
-            if (document.getDocumentId() == null || document.getDocumentId().isEmpty()) {
-                document.setDocumentId(UUID.randomUUID().toString());
-            }
-
-            logger.info("Saving document metadata to DynamoDB: documentId={}", document.getDocumentId());
-
-            Map<String, AttributeValue> item = documentToAttributeMap(document);
-
-            PutItemRequest putItemRequest = PutItemRequest.builder()
-                    .tableName(tableName)
-                    .item(item)
-                    .build();
-
-            dynamoDbClient.putItem(putItemRequest);
+            PutItemRequest putItemRequest = saveRequest(document);
+            PutItemResponse response = dynamoDbClient.putItem(putItemRequest);
+            adjustCounters(onSaved(document, putItemRequest.item(), response));
 
             logger.info("Document metadata saved successfully: documentId={}", document.getDocumentId());
             return document;
@@ -61,33 +91,142 @@ public class DynamoDBService {
     }
 
     /**
-     * Retrieve document metadata by ID
+     * Build the PutItem for a document, generating its ID if not present.
+     * The request builders and response handlers below are shared with
+     * {@link DynamoDBAsyncService}, which sends the same requests on the async client.
+     */
+    PutItemRequest saveRequest(Document document) {
+        if (document.getDocumentId() == null || document.getDocumentId().isEmpty()) {
+            document.setDocumentId(UUID.randomUUID().toString());
+        }
+
+        logger.info("Saving document metadata to DynamoDB: documentId={}", document.getDocumentId());
+
+        return PutItemRequest.builder()
+                .tableName(tableName)
+                .item(documentToAttributeMap(document))
+                .returnValues(ReturnValue.ALL_OLD)
+                .build();
+    }
+
+    /**
+     * Cache a written item
+     * @param response The PutItem response, carrying the overwritten item if there was one
+     * @return The counter changes caused by the write
+     */
+    CounterDelta onSaved(Document document, Map<String, AttributeValue> item, PutItemResponse response) {
+        metadataCache.put(document.getDocumentId(), item);
+
+        CounterDelta delta = new CounterDelta().add(document.getStatus(), document.getFileSize());
+        if (response != null && response.hasAttributes()) {
+            delta.remove(response.attributes());
+        }
+        return delta;
+    }
+
+    /**
+     * Save several documents with BatchWriteItem, 25 items per request.
+     * Unprocessed items are retried with exponential backoff.
+     * @param documents Documents to save; IDs are generated where missing
+     * @return The documents that were written
+     */
+    public List<Document> saveDocuments(List<Document> documents) {
+        logger.info("Saving {} documents to DynamoDB in batches of {}", documents.size(), BATCH_WRITE_SIZE);
+
+        List<Document> saved = new ArrayList<>(documents.size());
+        for (int start = 0; start < documents.size(); start += BATCH_WRITE_SIZE) {
+            List<Document> chunk = documents.subList(start, Math.min(start + BATCH_WRITE_SIZE, documents.size()));
+
+            Map<String, Document> byId = new LinkedHashMap<>();
+            List<WriteRequest> writes = new ArrayList<>(chunk.size());
+            for (Document document : chunk) {
+                if (document.getDocumentId() == null || document.getDocumentId().isEmpty()) {
+                    document.setDocumentId(UUID.randomUUID().toString());
+                }
+                byId.put(document.getDocumentId(), document);
+                writes.add(WriteRequest.builder()
+                        .putRequest(PutRequest.builder().item(documentToAttributeMap(document)).build())
+                        .build());
+            }
+
+            try {
+                List<WriteRequest> unprocessed = writeBatchWithRetry(writes);
+                for (WriteRequest write : unprocessed) {
+                    byId.remove(write.putRequest().item().get("documentId").s());
+                }
+                if (!unprocessed.isEmpty()) {
+                    logger.error("Giving up on {} unprocessed items after {} attempts", unprocessed.size(), MAX_BATCH_ATTEMPTS);
+                }
+                saved.addAll(byId.values());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("Interrupted while saving document batch; {} documents not saved", documents.size() - saved.size());
+                break;
+            } catch (Exception e) {
+                logger.error("Failed to save document batch of {}: {}", chunk.size(), e.getMessage(), e);
+            }
+        }
+
+        CounterDelta delta = new CounterDelta();
+        saved.forEach(document -> {
+            metadataCache.put(document.getDocumentId(), documentToAttributeMap(document));
+            delta.add(document.getStatus(), document.getFileSize());
+        });
+        adjustCounters(delta);
+
+        logger.info("Saved {} of {} documents", saved.size(), documents.size());
+        return saved;
+    }
+
+    /**
+     * @return The writes that were still unprocessed after the last attempt
+     */
+    private List<WriteRequest> writeBatchWithRetry(List<WriteRequest> writes) throws InterruptedException {
+        Map<String, List<WriteRequest>> requestItems = Map.of(tableName, writes);
+        for (int attempt = 1; ; attempt++) {
+            BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                    .requestItems(requestItems)
+                    .build());
+
+            Map<String, List<WriteRequest>> unprocessed = response.unprocessedItems();
+            if (unprocessed == null || unprocessed.isEmpty()) {
+                return Collections.emptyList();
+            }
+            if (attempt >= MAX_BATCH_ATTEMPTS) {
+                return unprocessed.getOrDefault(tableName, Collections.emptyList());
+            }
+
+            logger.warn("Retrying {} unprocessed items, attempt={}",
+                    unprocessed.getOrDefault(tableName, Collections.emptyList()).size(), attempt);
+            backoff(attempt);
+            requestItems = unprocessed;
+        }
+    }
+
+    /**
+     * Exponential backoff with full jitter, as recommended for unprocessed batch items
+     */
+    private static void backoff(int attempt) throws InterruptedException {
+        long ceiling = BATCH_RETRY_BASE_DELAY_MS << Math.min(attempt - 1, 6);
+        Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    /**
+     * Retrieve document metadata by ID. Served from the metadata cache when possible;
+     * concurrent misses for the same ID share one strongly consistent read.
      * @param documentId Document ID
      * @return Document if found, null otherwise
      */
     public Document getDocument(String documentId) {
         try {
-            logger.info("Retrieving document metadata from DynamoDB: documentId={}", documentId);
+            Map<String, AttributeValue> item = metadataCache.get(documentId, this::loadDocumentItem);
 
-            Map<String, AttributeValue> key = Map.of(
-                    "documentId", AttributeValue.builder().s(documentId).build()
-            );
-
-            GetItemRequest getItemRequest = GetItemRequest.builder()
-                    .tableName(tableName)
-                    .key(key)
-                    .build();
-
-            GetItemResponse response = dynamoDbClient.getItem(getItemRequest);
-
-            if (response.item().isEmpty()) {
+            if (item == null) {
                 logger.info("Document not found: documentId={}", documentId);
                 return null;
             }
 
-            Document document = attributeMapToDocument(response.item());
-            logger.info("Document metadata retrieved successfully: documentId={}", documentId);
-            return document;
+            return attributeMapToDocument(item);
 
         } catch (Exception e) {
             logger.error("Failed to retrieve document metadata: {}", e.getMessage(), e);
@@ -96,57 +235,280 @@ public class DynamoDBService {
     }
 
     /**
-     * Update document processing status
+     * Retrieve selected attributes of a document. A cached item is decoded in memory;
+     * otherwise a GetItem with a ProjectionExpression reads only those attributes. Partial
+     * items are not cached.
      * @param documentId Document ID
-     * @param status New processing status
-     * @param notes Optional processing notes
+     * @param fields Attributes to read, or null for the whole document
+     * @return Document with only the selected fields set, or null if not found
      */
-    public void updateDocumentStatus(String documentId, Document.ProcessingStatus status, String notes) {
+    public Document getDocument(String documentId, DocumentFields fields) {
+        if (fields == null) {
+            return getDocument(documentId);
+        }
         try {
-            logger.info("Updating document status: documentId={}, status={}", documentId, status);
+            Map<String, AttributeValue> item = metadataCache.getIfPresent(documentId);
+            if (item == null) {
+                logger.info("Retrieving projected document metadata from DynamoDB: documentId={}, fields={}",
+                        documentId, fields.names());
 
-            Map<String, AttributeValue> key = Map.of(
-                    "documentId", AttributeValue.builder().s(documentId).build()
-            );
+                Map<String, String> names = new HashMap<>();
+                GetItemRequest request = GetItemRequest.builder()
+                        .tableName(tableName)
+                        .key(Map.of("documentId", AttributeValue.builder().s(documentId).build()))
+                        .projectionExpression(projectionExpression(fields.names(), names))
+                        .expressionAttributeNames(names)
+                        .build();
+                GetItemResponse response = getItemHedger.call(() -> dynamoDbClient.getItem(request));
+                item = response.item().isEmpty() ? null : response.item();
+            }
 
-            Map<String, AttributeValueUpdate> updates = new HashMap<>();
-            updates.put("status", AttributeValueUpdate.builder()
-                    .value(AttributeValue.builder().s(status.name()).build())
-                    .action(AttributeAction.PUT)
-                    .build());
+            if (item == null) {
+                logger.info("Document not found: documentId={}", documentId);
+                return null;
+            }
+            return attributeMapToDocument(item, fields);
 
-            if (status == Document.ProcessingStatus.COMPLETED || status == Document.ProcessingStatus.FAILED) {
-                updates.put("processedAt", AttributeValueUpdate.builder()
-                        .value(AttributeValue.builder().s(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).build())
-                        .action(AttributeAction.PUT)
-                        .build());
+        } catch (Exception e) {
+            logger.error("Failed to retrieve document metadata: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to retrieve document metadata", e);
+        }
+    }
+
+    /**
+     * Read a document item from DynamoDB
+     * @return The item, or null if it does not exist
+     */
+    private Map<String, AttributeValue> loadDocumentItem(String documentId) {
+        logger.info("Retrieving document metadata from DynamoDB: documentId={}", documentId);
+
+        GetItemRequest request = getItemRequest(documentId);
+        GetItemResponse response = getItemHedger.call(() -> dynamoDbClient.getItem(request));
+        return response.item().isEmpty() ? null : response.item();
+    }
+
+    GetItemRequest getItemRequest(String documentId) {
+        return GetItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("documentId", AttributeValue.builder().s(documentId).build()))
+                .build();
+    }
+
+    /**
+     * Look up many documents at once. IDs found in the metadata cache are served from it; the
+     * rest are read with concurrent BatchGetItem requests of up to 100 keys, retrying
+     * unprocessed keys with backoff.
+     * @param documentIds Document IDs; duplicates are looked up once
+     * @param fields Attributes to read, or null for whole documents (which are then cached)
+     * @return The documents found, in request order, and the IDs that do not exist
+     */
+    public DocumentLookup getDocuments(Collection<String> documentIds, DocumentFields fields) {
+        Set<String> ids = new LinkedHashSet<>(documentIds);
+        Map<String, Map<String, AttributeValue>> items = new ConcurrentHashMap<>();
+        List<String> toFetch = new ArrayList<>();
+        for (String id : ids) {
+            Map<String, AttributeValue> cached = metadataCache.getIfPresent(id);
+            if (cached != null) {
+                items.put(id, cached);
+            } else {
+                toFetch.add(id);
             }
+        }
+        logger.info("Looking up {} documents: cached={}, fetching={}", ids.size(), items.size(), toFetch.size());
 
-            if (notes != null && !notes.isEmpty()) {
-                updates.put("processingNotes", AttributeValueUpdate.builder()
-                        .value(AttributeValue.builder().s(notes).build())
-                        .action(AttributeAction.PUT)
-                        .build());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> batches = new ArrayList<>();
+            for (int start = 0; start < toFetch.size(); start += BATCH_GET_SIZE) {
+                List<String> chunk = toFetch.subList(start, Math.min(start + BATCH_GET_SIZE, toFetch.size()));
+                batches.add(executor.submit(() -> {
+                    for (Map<String, AttributeValue> item : readBatchWithRetry(chunk, fields)) {
+                        String documentId = item.get("documentId").s();
+                        if (fields == null) {
+                            metadataCache.put(documentId, item);
+                        }
+                        items.put(documentId, item);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> batch : batches) {
+                batch.get();
             }
+        } catch (ExecutionException e) {
+            logger.error("Failed to look up documents: {}", e.getCause().getMessage(), e.getCause());
+            throw new RuntimeException("Failed to look up documents", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Document lookup interrupted", e);
+        }
 
-            UpdateItemRequest updateItemRequest = UpdateItemRequest.builder()
-                    .tableName(tableName)
-                    .key(key)
-                    .attributeUpdates(updates)
-                    .build();
+        List<Document> documents = new ArrayList<>(items.size());
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            Map<String, AttributeValue> item = items.get(id);
+            if (item != null) {
+                documents.add(attributeMapToDocument(item, fields));
+            } else {
+                missing.add(id);
+            }
+        }
+        return new DocumentLookup(documents, missing);
+    }
+
+    /**
+     * Read one chunk of keys, retrying UnprocessedKeys until all are read
+     * @return The items that exist
+     */
+    private List<Map<String, AttributeValue>> readBatchWithRetry(List<String> documentIds, DocumentFields fields)
+            throws InterruptedException {
+        List<Map<String, AttributeValue>> keys = new ArrayList<>(documentIds.size());
+        for (String documentId : documentIds) {
+            keys.add(Map.of("documentId", AttributeValue.builder().s(documentId).build()));
+        }
+
+        Map<String, String> names = new HashMap<>();
+        String projection = projectionExpression(fields != null ? fields.names() : DocumentFields.ALL_NAMES, names);
+        Map<String, KeysAndAttributes> requestItems = Map.of(tableName, KeysAndAttributes.builder()
+                .keys(keys)
+                .projectionExpression(projection)
+                .expressionAttributeNames(names)
+                .consistentRead(true)
+                .build());
+
+        List<Map<String, AttributeValue>> items = new ArrayList<>(documentIds.size());
+        for (int attempt = 1; ; attempt++) {
+            BatchGetItemResponse response = dynamoDbClient.batchGetItem(BatchGetItemRequest.builder()
+                    .requestItems(requestItems)
+                    .build());
+            items.addAll(response.responses().getOrDefault(tableName, Collections.emptyList()));
+
+            Map<String, KeysAndAttributes> unprocessed = response.unprocessedKeys();
+            if (unprocessed == null || unprocessed.isEmpty()) {
+                return items;
+            }
+            if (attempt >= MAX_BATCH_ATTEMPTS) {
+                throw new IllegalStateException(unprocessed.get(tableName).keys().size()
+                        + " keys still unprocessed after " + attempt + " attempts");
+            }
+
+            logger.warn("Retrying {} unprocessed keys, attempt={}", unprocessed.get(tableName).keys().size(), attempt);
+            backoff(attempt);
+            requestItems = unprocessed;
+        }
+    }
 
-            dynamoDbClient.updateItem(updateItemRequest);
+    /**
+     * Build a ProjectionExpression with a placeholder per attribute, so reserved words such as
+     * "status" need no special casing
+     * @param names Receives the placeholder to attribute name mapping
+     */
+    private static String projectionExpression(Collection<String> attributes, Map<String, String> names) {
+        List<String> placeholders = new ArrayList<>(attributes.size());
+        for (String attribute : attributes) {
+            names.put("#" + attribute, attribute);
+            placeholders.add("#" + attribute);
+        }
+        return String.join(", ", placeholders);
+    }
+
+    /**
+     * Move a document from one processing status to another in a single conditional update.
+     * The write only succeeds if the document is still in the expected status, so duplicate
+     * and out-of-order transitions are rejected atomically.
+     * @param documentId Document ID
+     * @param expectedStatus Status the document must currently have
+     * @param status New processing status
+     * @param notes Optional processing notes
+     * @return The document as stored after the update
+     * @throws StatusTransitionException if the document is missing or not in the expected status
+     */
+    public Document updateDocumentStatus(String documentId, Document.ProcessingStatus expectedStatus,
+                                         Document.ProcessingStatus status, String notes) {
+        try {
+            Map<String, AttributeValue> updated = dynamoDbClient.updateItem(
+                    statusUpdateRequest(documentId, expectedStatus, status, notes)).attributes();
+            adjustCounters(onStatusUpdated(documentId, expectedStatus, status, updated));
 
             logger.info("Document status updated successfully: documentId={}, status={}", documentId, status);
+            return attributeMapToDocument(updated);
 
+        } catch (ConditionalCheckFailedException e) {
+            throw transitionRejected(documentId, expectedStatus, status, e);
         } catch (Exception e) {
+            metadataCache.invalidate(documentId);
             logger.error("Failed to update document status: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to update document status", e);
         }
     }
 
+    UpdateItemRequest statusUpdateRequest(String documentId, Document.ProcessingStatus expectedStatus,
+                                          Document.ProcessingStatus status, String notes) {
+        logger.info("Updating document status: documentId={}, {} -> {}", documentId, expectedStatus, status);
+
+        Map<String, AttributeValue> key = Map.of(
+                "documentId", AttributeValue.builder().s(documentId).build()
+        );
+
+        // "status" is a DynamoDB reserved word, hence the #status placeholder
+        List<String> assignments = new ArrayList<>();
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        names.put("#status", "status");
+        assignments.add("#status = :status");
+        values.put(":status", AttributeValue.builder().s(status.name()).build());
+        values.put(":expected", AttributeValue.builder().s(expectedStatus.name()).build());
+
+        if (status == Document.ProcessingStatus.COMPLETED || status == Document.ProcessingStatus.FAILED) {
+            assignments.add("processedAt = :processedAt");
+            values.put(":processedAt", AttributeValue.builder()
+                    .s(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).build());
+        }
+
+        if (notes != null && !notes.isEmpty()) {
+            assignments.add("processingNotes = :notes");
+            values.put(":notes", AttributeValue.builder().s(notes).build());
+        }
+
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(key)
+                .updateExpression("SET " + String.join(", ", assignments))
+                .conditionExpression("#status = :expected")
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .returnValues(ReturnValue.ALL_NEW)
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build();
+    }
+
     /**
-     * Get all documents (for listing purposes)
+     * Cache the item as stored after a status transition
+     * @return The counter changes caused by the transition
+     */
+    CounterDelta onStatusUpdated(String documentId, Document.ProcessingStatus expectedStatus,
+                                 Document.ProcessingStatus status, Map<String, AttributeValue> updated) {
+        metadataCache.put(documentId, updated);
+        return new CounterDelta().move(expectedStatus, status);
+    }
+
+    /**
+     * Drop the cached item after a rejected transition and describe what was found instead
+     */
+    StatusTransitionException transitionRejected(String documentId, Document.ProcessingStatus expectedStatus,
+                                                 Document.ProcessingStatus status, ConditionalCheckFailedException e) {
+        metadataCache.invalidate(documentId);
+        Document.ProcessingStatus actualStatus = e.hasItem() && e.item().containsKey("status")
+                ? Document.ProcessingStatus.valueOf(e.item().get("status").s())
+                : null;
+        logger.warn("Rejected status transition: documentId={}, expected={}, actual={}, requested={}",
+                documentId, expectedStatus, actualStatus, status);
+        return new StatusTransitionException(documentId, expectedStatus, actualStatus);
+    }
+
+    /**
+     * Get all documents (for listing purposes). Follows LastEvaluatedKey across scan pages,
+     * so the whole table is loaded into memory; prefer {@link #listDocuments} or
+     * {@link #scanDocuments} for large tables.
      * @return List of all documents
      */
     public List<Document> getAllDocuments() {
@@ -157,10 +519,8 @@ public class DynamoDBService {
                     .tableName(tableName)
                     .build();
 
-            ScanResponse response = dynamoDbClient.scan(scanRequest);
-
             List<Document> documents = new ArrayList<>();
-            for (Map<String, AttributeValue> item : response.items()) {
+            for (Map<String, AttributeValue> item : dynamoDbClient.scanPaginator(scanRequest).items()) {
                 documents.add(attributeMapToDocument(item));
             }
 
@@ -174,23 +534,138 @@ public class DynamoDBService {
     }
 
     /**
-     * Delete document metadata
-     * @param documentId Document ID
+     * Get one page of documents
+     * @param limit Maximum number of documents on the page
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param fields Attributes to read, or null for whole documents
+     * @return The page, with a cursor for the next one if the scan is not finished
+     * @throws IllegalArgumentException if the cursor is malformed
      */
-    public void deleteDocument(String documentId) {
+    public DocumentPage listDocuments(int limit, String cursor, DocumentFields fields) {
+        Map<String, AttributeValue> startKey = PageCursor.decode(cursor);
+        try {
+            logger.info("Listing documents from DynamoDB: limit={}, continued={}", limit, startKey != null);
+
+            ScanRequest.Builder request = ScanRequest.builder()
+                    .tableName(tableName)
+                    .limit(limit)
+                    .exclusiveStartKey(startKey);
+            if (fields != null) {
+                Map<String, String> names = new HashMap<>();
+                request.projectionExpression(projectionExpression(fields.names(), names))
+                        .expressionAttributeNames(names);
+            }
+            ScanResponse response = dynamoDbClient.scan(request.build());
+
+            List<Document> documents = new ArrayList<>(response.items().size());
+            for (Map<String, AttributeValue> item : response.items()) {
+                documents.add(attributeMapToDocument(item, fields));
+            }
+            String nextCursor = response.hasLastEvaluatedKey() ? PageCursor.encode(response.lastEvaluatedKey()) : null;
+            return new DocumentPage(documents, nextCursor);
+
+        } catch (Exception e) {
+            logger.error("Failed to list documents: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to list documents", e);
+        }
+    }
+
+    /**
+     * Get one page of documents in a given status, newest first, using the status/uploadedAt
+     * global secondary index. Only matching items are read, so the cost follows the result size.
+     * @param status Processing status to match
+     * @param since Earliest upload time (inclusive), or null for no lower bound
+     * @param until Latest upload time (inclusive), or null for no upper bound
+     * @param limit Maximum number of documents on the page
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param fields Attributes to read, or null for whole documents
+     * @return The page, with a cursor for the next one if more documents match
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public DocumentPage queryDocumentsByStatus(Document.ProcessingStatus status, LocalDateTime since,
+                                               LocalDateTime until, int limit, String cursor,
+                                               DocumentFields fields) {
+        Map<String, AttributeValue> startKey = PageCursor.decode(cursor);
         try {
-            logger.info("Deleting document metadata from DynamoDB: documentId={}", documentId);
+            logger.info("Querying documents by status: status={}, since={}, until={}, limit={}", status, since, until, limit);
 
-            Map<String, AttributeValue> key = Map.of(
-                    "documentId", AttributeValue.builder().s(documentId).build()
-            );
+            Map<String, AttributeValue> values = new HashMap<>();
+            values.put(":status", AttributeValue.builder().s(status.name()).build());
+            String keyCondition = "#status = :status";
+            if (since != null && until != null) {
+                keyCondition += " AND uploadedAt BETWEEN :since AND :until";
+                values.put(":since", timestamp(since));
+                values.put(":until", timestamp(until));
+            } else if (since != null) {
+                keyCondition += " AND uploadedAt >= :since";
+                values.put(":since", timestamp(since));
+            } else if (until != null) {
+                keyCondition += " AND uploadedAt <= :until";
+                values.put(":until", timestamp(until));
+            }
 
-            DeleteItemRequest deleteItemRequest = DeleteItemRequest.builder()
+            Map<String, String> names = new HashMap<>();
+            names.put("#status", "status");
+            QueryRequest.Builder request = QueryRequest.builder()
                     .tableName(tableName)
-                    .key(key)
-                    .build();
+                    .indexName(statusIndexName)
+                    .keyConditionExpression(keyCondition)
+                    .expressionAttributeValues(values)
+                    .scanIndexForward(false)
+                    .limit(limit)
+                    .exclusiveStartKey(startKey);
+            if (fields != null) {
+                request.projectionExpression(projectionExpression(fields.names(), names));
+            }
+            QueryResponse response = dynamoDbClient.query(request.expressionAttributeNames(names).build());
+
+            List<Document> documents = new ArrayList<>(response.items().size());
+            for (Map<String, AttributeValue> item : response.items()) {
+                documents.add(attributeMapToDocument(item, fields));
+            }
+            String nextCursor = response.hasLastEvaluatedKey() ? PageCursor.encode(response.lastEvaluatedKey()) : null;
+            return new DocumentPage(documents, nextCursor);
 
-            dynamoDbClient.deleteItem(deleteItemRequest);
+        } catch (Exception e) {
+            logger.error("Failed to query documents by status: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to query documents by status", e);
+        }
+    }
+
+    /**
+     * Scan the whole table with a parallel segmented scan. Each segment is read by its own
+     * virtual thread and items are handed to the caller through a bounded queue, so a slow
+     * consumer holds back the scan instead of the table piling up in memory.
+     *
+     * The returned stream must be closed; closing it early stops the remaining segments.
+     * @return Sequential stream of every document in the table, in no particular order
+     */
+    public Stream<Document> scanDocuments() {
+        logger.info("Starting segmented scan: table={}, segments={}", tableName, scanSegments);
+        SegmentedScan scan = new SegmentedScan(scanSegments, scanBufferSize);
+        Iterator<Document> documents = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return scan.hasNext();
+            }
+
+            @Override
+            public Document next() {
+                return attributeMapToDocument(scan.next());
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(documents, Spliterator.NONNULL), false)
+                .onClose(scan::close);
+    }
+
+    /**
+     * Delete document metadata
+     * @param documentId Document ID
+     */
+    public void deleteDocument(String documentId) {
+        try {
+            DeleteItemResponse response = dynamoDbClient.deleteItem(deleteRequest(documentId));
+            adjustCounters(onDeleted(documentId, response));
 
             logger.info("Document metadata deleted successfully: documentId={}", documentId);
 
@@ -200,6 +675,283 @@ public class DynamoDBService {
         }
     }
 
+    DeleteItemRequest deleteRequest(String documentId) {
+        logger.info("Deleting document metadata from DynamoDB: documentId={}", documentId);
+
+        return DeleteItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("documentId", AttributeValue.builder().s(documentId).build()))
+                .returnValues(ReturnValue.ALL_OLD)
+                .build();
+    }
+
+    /**
+     * Drop a deleted item from the cache
+     * @return The counter changes caused by the delete
+     */
+    CounterDelta onDeleted(String documentId, DeleteItemResponse response) {
+        metadataCache.invalidate(documentId);
+        CounterDelta delta = new CounterDelta();
+        if (response != null && response.hasAttributes()) {
+            delta.remove(response.attributes());
+        }
+        return delta;
+    }
+
+    /**
+     * Read the materialized per-status counters with a single GetItem
+     * @return The counters, all zero if they have never been written
+     */
+    public ProcessingCounters getProcessingCounters() {
+        try {
+            GetItemResponse response = dynamoDbClient.getItem(GetItemRequest.builder()
+                    .tableName(statsTableName)
+                    .key(statsKey())
+                    .build());
+
+            Map<Document.ProcessingStatus, Long> counts = new EnumMap<>(Document.ProcessingStatus.class);
+            long totalSize = 0;
+            if (response.hasItem()) {
+                Map<String, AttributeValue> item = response.item();
+                for (Document.ProcessingStatus status : Document.ProcessingStatus.values()) {
+                    AttributeValue count = item.get(status.name());
+                    counts.put(status, count != null ? Long.parseLong(count.n()) : 0L);
+                }
+                AttributeValue size = item.get(TOTAL_SIZE_ATTRIBUTE);
+                totalSize = size != null ? Long.parseLong(size.n()) : 0L;
+            }
+            return new ProcessingCounters(counts, totalSize);
+
+        } catch (Exception e) {
+            logger.error("Failed to read processing counters: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to read processing counters", e);
+        }
+    }
+
+    /**
+     * Overwrite the materialized counters, used by the reconciliation job after a full scan
+     * @param counters Freshly computed counters
+     */
+    public void replaceProcessingCounters(ProcessingCounters counters) {
+        Map<String, AttributeValue> item = new HashMap<>(statsKey());
+        for (Document.ProcessingStatus status : Document.ProcessingStatus.values()) {
+            item.put(status.name(), number(counters.count(status)));
+        }
+        item.put(TOTAL_SIZE_ATTRIBUTE, number(counters.totalSize()));
+        item.put("reconciledAt", AttributeValue.builder()
+                .s(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).build());
+
+        dynamoDbClient.putItem(PutItemRequest.builder()
+                .tableName(statsTableName)
+                .item(item)
+                .build());
+        logger.info("Processing counters reconciled: total={}, totalSize={}", counters.total(), counters.totalSize());
+    }
+
+    /**
+     * Apply counter changes with one atomic ADD. Failures are logged rather than thrown: the
+     * document write already succeeded and the next reconciliation corrects any drift.
+     */
+    private void adjustCounters(CounterDelta delta) {
+        UpdateItemRequest request = counterUpdateRequest(delta);
+        if (request == null) {
+            return;
+        }
+        try {
+            dynamoDbClient.updateItem(request);
+        } catch (Exception e) {
+            logger.warn("Failed to update processing counters, the next reconciliation will correct them: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return The ADD update for the counter changes, or null if nothing changed
+     */
+    UpdateItemRequest counterUpdateRequest(CounterDelta delta) {
+        List<String> additions = new ArrayList<>();
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        delta.counts.forEach((status, change) -> {
+            if (change != 0) {
+                additions.add("#" + status.name() + " :" + status.name());
+                names.put("#" + status.name(), status.name());
+                values.put(":" + status.name(), number(change));
+            }
+        });
+        if (delta.size != 0) {
+            additions.add("#totalSize :totalSize");
+            names.put("#totalSize", TOTAL_SIZE_ATTRIBUTE);
+            values.put(":totalSize", number(delta.size));
+        }
+        if (additions.isEmpty()) {
+            return null;
+        }
+
+        return UpdateItemRequest.builder()
+                .tableName(statsTableName)
+                .key(statsKey())
+                .updateExpression("ADD " + String.join(", ", additions))
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .build();
+    }
+
+    private static Map<String, AttributeValue> statsKey() {
+        return Map.of("statsId", AttributeValue.builder().s(STATS_ID).build());
+    }
+
+    /**
+     * Timestamps are stored as ISO local date-time strings, which sort chronologically
+     */
+    private static AttributeValue timestamp(LocalDateTime time) {
+        return AttributeValue.builder().s(time.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).build();
+    }
+
+    private static AttributeValue number(long value) {
+        return AttributeValue.builder().n(Long.toString(value)).build();
+    }
+
+    /**
+     * Per-status document counts and total bytes, as kept in the stats table
+     */
+    public record ProcessingCounters(Map<Document.ProcessingStatus, Long> statusCounts, long totalSize) {
+
+        public long count(Document.ProcessingStatus status) {
+            return statusCounts.getOrDefault(status, 0L);
+        }
+
+        public long total() {
+            return statusCounts.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    /**
+     * Accumulates counter changes caused by one write
+     */
+    static final class CounterDelta {
+        private final Map<Document.ProcessingStatus, Long> counts = new EnumMap<>(Document.ProcessingStatus.class);
+        private long size;
+
+        CounterDelta add(Document.ProcessingStatus status, long fileSize) {
+            counts.merge(status, 1L, Long::sum);
+            size += fileSize;
+            return this;
+        }
+
+        /**
+         * Take away a previously stored item
+         */
+        CounterDelta remove(Map<String, AttributeValue> item) {
+            AttributeValue status = item.get("status");
+            if (status != null) {
+                counts.merge(Document.ProcessingStatus.valueOf(status.s()), -1L, Long::sum);
+            }
+            AttributeValue fileSize = item.get("fileSize");
+            if (fileSize != null) {
+                size -= Long.parseLong(fileSize.n());
+            }
+            return this;
+        }
+
+        CounterDelta move(Document.ProcessingStatus from, Document.ProcessingStatus to) {
+            counts.merge(from, -1L, Long::sum);
+            counts.merge(to, 1L, Long::sum);
+            return this;
+        }
+    }
+
+    /**
+     * Producer side of {@link #scanDocuments}: one worker per segment feeding a shared queue.
+     * Workers signal completion (or failure) with a marker so the consumer knows when every
+     * segment has finished.
+     */
+    private final class SegmentedScan implements Iterator<Map<String, AttributeValue>>, AutoCloseable {
+
+        private final Map<String, AttributeValue> endOfSegment = new HashMap<>();
+        private final BlockingQueue<Map<String, AttributeValue>> queue;
+        private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final int totalSegments;
+        private int finishedSegments;
+        private Map<String, AttributeValue> next;
+
+        SegmentedScan(int totalSegments, int bufferSize) {
+            this.totalSegments = totalSegments;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+            for (int segment = 0; segment < totalSegments; segment++) {
+                int current = segment;
+                workers.execute(() -> scanSegment(current));
+            }
+        }
+
+        private void scanSegment(int segment) {
+            ScanRequest request = ScanRequest.builder()
+                    .tableName(tableName)
+                    .segment(segment)
+                    .totalSegments(totalSegments)
+                    .build();
+            try {
+                for (Map<String, AttributeValue> item : dynamoDbClient.scanPaginator(request).items()) {
+                    queue.put(item);
+                }
+            } catch (InterruptedException e) {
+                // Closed by the consumer, which no longer waits for the marker
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                // Always mark the segment finished, or the consumer would wait for it forever
+                if (!Thread.currentThread().isInterrupted()) {
+                    try {
+                        queue.put(endOfSegment);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null && finishedSegments < totalSegments) {
+                    Map<String, AttributeValue> item = queue.take();
+                    if (item == endOfSegment) {
+                        finishedSegments++;
+                        if (failure.get() != null) {
+                            // One failed segment makes the result incomplete; stop the others
+                            close();
+                            throw new RuntimeException("Segmented scan failed", failure.get());
+                        }
+                    } else {
+                        next = item;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new RuntimeException("Segmented scan interrupted", e);
+            }
+            return next != null;
+        }
+
+        @Override
+        public Map<String, AttributeValue> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Map<String, AttributeValue> item = next;
+            next = null;
+            return item;
+        }
+
+        @Override
+        public void close() {
+            workers.shutdownNow();
+        }
+    }
+
     /**
      * Convert Document object to DynamoDB attribute map
      */
@@ -226,35 +978,69 @@ public class DynamoDBService {
             item.put("processingNotes", AttributeValue.builder().s(document.getProcessingNotes()).build());
         }
 
+        if (document.getContentHash() != null) {
+            item.put("contentHash", AttributeValue.builder().s(document.getContentHash()).build());
+        }
+
+        if (document.getPriority() != null) {
+            item.put("priority", AttributeValue.builder().s(document.getPriority().name()).build());
+        }
+
         return item;
     }
 
     /**
      * Convert DynamoDB attribute map to Document object
      */
-    private Document attributeMapToDocument(Map<String, AttributeValue> item) {
+    Document attributeMapToDocument(Map<String, AttributeValue> item) {
+        return attributeMapToDocument(item, null);
+    }
+
+    /**
+     * Convert a (possibly projected) DynamoDB item to a Document, decoding only the selected
+     * attributes. Attributes missing from the item are left unset.
+     * @param fields Attributes to decode, or null for all of them
+     */
+    private Document attributeMapToDocument(Map<String, AttributeValue> item, DocumentFields fields) {
         Document document = new Document();
 
-        document.setDocumentId(item.get("documentId").s());
-        document.setFileName(item.get("fileName").s());
-        document.setContentType(item.get("contentType").s());
-        document.setFileSize(Long.parseLong(item.get("fileSize").n()));
-        document.setS3Key(item.get("s3Key").s());
-        document.setS3Bucket(item.get("s3Bucket").s());
-        document.setStatus(Document.ProcessingStatus.valueOf(item.get("status").s()));
+        String documentId = string(item, "documentId", fields);
+        document.setDocumentId(documentId);
+        document.setFileName(string(item, "fileName", fields));
+        document.setContentType(string(item, "contentType", fields));
+        document.setS3Key(string(item, "s3Key", fields));
+        document.setS3Bucket(string(item, "s3Bucket", fields));
+        document.setProcessingNotes(string(item, "processingNotes", fields));
+        document.setContentHash(string(item, "contentHash", fields));
 
-        if (item.containsKey("uploadedAt") && item.get("uploadedAt") != null) {
+        if (selected(item, "fileSize", fields)) {
+            document.setFileSize(Long.parseLong(item.get("fileSize").n()));
+        }
+
+        if (selected(item, "status", fields)) {
+            document.setStatus(Document.ProcessingStatus.valueOf(item.get("status").s()));
+        }
+
+        if (selected(item, "uploadedAt", fields)) {
             document.setUploadedAt(LocalDateTime.parse(item.get("uploadedAt").s()));
         }
 
-        if (item.containsKey("processedAt") && item.get("processedAt") != null) {
+        if (selected(item, "processedAt", fields)) {
             document.setProcessedAt(LocalDateTime.parse(item.get("processedAt").s()));
         }
 
-        if (item.containsKey("processingNotes") && item.get("processingNotes") != null) {
-            document.setProcessingNotes(item.get("processingNotes").s());
+        if (selected(item, "priority", fields)) {
+            document.setPriority(Document.ProcessingPriority.valueOf(item.get("priority").s()));
         }
 
         return document;
     }
+
+    private static boolean selected(Map<String, AttributeValue> item, String name, DocumentFields fields) {
+        return (fields == null || fields.includes(name)) && item.get(name) != null;
+    }
+
+    private static String string(Map<String, AttributeValue> item, String name, DocumentFields fields) {
+        return selected(item, name, fields) ? item.get(name).s() : null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.example.Doc_Ohpp.service;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the processing executor or an upload stage has no room for another document:
+ * every worker is busy and the queue is full. Uploads fail fast with this instead of storing
+ * content that could not be processed.
+ */
+public class ProcessingCapacityExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ProcessingCapacityExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public ProcessingCapacityExceededException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return How long clients should wait before trying again
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
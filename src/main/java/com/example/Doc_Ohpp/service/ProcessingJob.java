@@ -0,0 +1,58 @@
+package com.example.Doc_Ohpp.service;
+
+import com.example.Doc_Ohpp.model.Document;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A document processing run as submitted to the processing executor. The lane and the
+ * estimated processing time decide its place in the {@link ProcessingJobQueue}.
+ */
+public final class ProcessingJob implements Runnable {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final String documentId;
+    private final Document.ProcessingPriority lane;
+    private final long estimatedMillis;
+    private final long sequence = SEQUENCE.incrementAndGet();
+    private final Runnable task;
+    // Set by the queue when the job starts waiting
+    long enqueuedAt;
+
+    public ProcessingJob(String documentId, Document.ProcessingPriority lane, long estimatedMillis, Runnable task) {
+        this.documentId = documentId;
+        this.lane = lane;
+        this.estimatedMillis = estimatedMillis;
+        this.task = task;
+    }
+
+    @Override
+    public void run() {
+        task.run();
+    }
+
+    public String documentId() {
+        return documentId;
+    }
+
+    public Document.ProcessingPriority lane() {
+        return lane;
+    }
+
+    public long estimatedMillis() {
+        return estimatedMillis;
+    }
+
+    /**
+     * @return Submission order, the tie-breaker between jobs of equal estimate
+     */
+    long sequence() {
+        return sequence;
+    }
+
+    @Override
+    public String toString() {
+        return "ProcessingJob[documentId=" + documentId + ", lane=" + lane + ", estimatedMillis=" + estimatedMillis + "]";
+    }
+}
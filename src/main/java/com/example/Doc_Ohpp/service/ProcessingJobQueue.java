@@ -0,0 +1,325 @@
+package com.example.Doc_Ohpp.service;
+
+import com.example.Doc_Ohpp.model.Document;
+
+import java.time.Duration;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded work queue of the processing executor that orders waiting documents instead of
+ * serving them first come, first served.
+ *
+ * Jobs wait in one lane per priority. The highest non-empty lane is served first, and within
+ * a lane the job with the shortest estimated processing time (shortest job first). To keep long
+ * or low priority jobs from starving, a job that has waited longer than the maximum wait is
+ * served ahead of everything else, oldest first. Other tasks (async continuations, @Async
+ * methods) are short and are served before any job, in submission order.
+ */
+public class ProcessingJobQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private static final Comparator<ProcessingJob> SHORTEST_FIRST =
+            Comparator.comparingLong(ProcessingJob::estimatedMillis).thenComparingLong(ProcessingJob::sequence);
+
+    private final int capacity;
+    private final long maxWaitNanos;
+    private final LongSupplier clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    private final Map<Document.ProcessingPriority, PriorityQueue<ProcessingJob>> lanes =
+            new EnumMap<>(Document.ProcessingPriority.class);
+    // Every waiting job in arrival order; its head is the job that has waited longest
+    private final ArrayDeque<ProcessingJob> arrivals = new ArrayDeque<>();
+    private int count;
+
+    public ProcessingJobQueue(int capacity, Duration maxWait) {
+        this(capacity, maxWait, System::nanoTime);
+    }
+
+    ProcessingJobQueue(int capacity, Duration maxWait, LongSupplier clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.clock = clock;
+        for (Document.ProcessingPriority lane : Document.ProcessingPriority.values()) {
+            lanes.put(lane, new PriorityQueue<>(SHORTEST_FIRST));
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable runnable) {
+        if (runnable == null) {
+            throw new NullPointerException();
+        }
+        lock.lock();
+        try {
+            if (count == capacity) {
+                return false;
+            }
+            enqueue(runnable);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable runnable, long timeout, TimeUnit unit) throws InterruptedException {
+        if (runnable == null) {
+            throw new NullPointerException();
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(runnable);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Runnable runnable) throws InterruptedException {
+        if (runnable == null) {
+            throw new NullPointerException();
+        }
+        lock.lockInterruptibly();
+        try {
+            while (count == capacity) {
+                notFull.await();
+            }
+            enqueue(runnable);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll() {
+        lock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            Runnable task = tasks.peekFirst();
+            return task != null ? task : nextJob();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of jobs waiting in a lane
+     */
+    public int size(Document.ProcessingPriority lane) {
+        lock.lock();
+        try {
+            return lanes.get(lane).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        lock.lock();
+        try {
+            boolean removed = o instanceof ProcessingJob job
+                    ? lanes.get(job.lane()).remove(job) && arrivals.remove(job)
+                    : tasks.remove(o);
+            if (removed) {
+                count--;
+                notFull.signal();
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        lock.lock();
+        try {
+            int drained = 0;
+            while (count > 0 && drained < maxElements) {
+                c.add(dequeue());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Iterates over a snapshot of the waiting tasks; removal goes back to the queue
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        List<Runnable> snapshot;
+        lock.lock();
+        try {
+            snapshot = new ArrayList<>(tasks);
+            snapshot.addAll(arrivals);
+        } finally {
+            lock.unlock();
+        }
+        Iterator<Runnable> iterator = snapshot.iterator();
+        return new Iterator<>() {
+            private Runnable last;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Runnable next() {
+                last = iterator.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                ProcessingJobQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    private void enqueue(Runnable runnable) {
+        if (runnable instanceof ProcessingJob job) {
+            job.enqueuedAt = clock.getAsLong();
+            lanes.get(job.lane()).add(job);
+            arrivals.addLast(job);
+        } else {
+            tasks.addLast(runnable);
+        }
+        count++;
+        notEmpty.signal();
+    }
+
+    private Runnable dequeue() {
+        Runnable next = tasks.pollFirst();
+        if (next == null) {
+            ProcessingJob job = nextJob();
+            lanes.get(job.lane()).remove(job);
+            arrivals.remove(job);
+            next = job;
+        }
+        count--;
+        notFull.signal();
+        return next;
+    }
+
+    /**
+     * The job to serve next: one that has waited past the maximum wait, else the shortest job
+     * of the highest non-empty lane
+     */
+    private ProcessingJob nextJob() {
+        ProcessingJob oldest = arrivals.peekFirst();
+        if (oldest != null && clock.getAsLong() - oldest.enqueuedAt >= maxWaitNanos) {
+            return oldest;
+        }
+        for (PriorityQueue<ProcessingJob> lane : lanes.values()) {
+            if (!lane.isEmpty()) {
+                return lane.peek();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.Doc_Ohpp.service;
+
+import com.example.Doc_Ohpp.model.Document;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processes uploaded documents from the processing queue, so any node can pick up the work and
+ * an upload survives the restart of the node that received it. The processing queue
+ * ({@code aws.sqs.processing-queue-name}) only carries processing work; the lifecycle events
+ * stay on the event queue for its own consumers.
+ *
+ * Pollers long-poll the queue and only receive as many messages as there are free worker slots.
+ * A DOCUMENT_UPLOADED message is deleted once processing has recorded its outcome, and left for
+ * redelivery otherwise. While a document is being processed, its message's visibility timeout is
+ * extended periodically, so SQS only redelivers it if this node stops working on it. Conditional
+ * status transitions make a duplicate delivery harmless.
+ */
+@Component
+@ConditionalOnProperty(name = "document.processing.dispatch", havingValue = "queue")
+public class ProcessingQueueWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessingQueueWorker.class);
+
+    static final String UPLOADED_EVENT = "DOCUMENT_UPLOADED";
+
+    private static final int MAX_RECEIVE = 10;
+    private static final Duration WAIT_TIME = Duration.ofSeconds(20);
+    private static final Duration EMPTY_RECEIVE_BACKOFF = Duration.ofSeconds(1);
+
+    private final SQSService sqsService;
+    private final DocumentProcessingService documentProcessingService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int pollers;
+    private final int concurrency;
+    private final Duration visibilityTimeout;
+    private final Duration shutdownTimeout;
+    private final Semaphore slots;
+    private final Map<String, Message> inFlight = new ConcurrentHashMap<>();
+    private final List<Thread> pollerThreads = new ArrayList<>();
+    private final ScheduledExecutorService heartbeat =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("processing-queue-heartbeat").factory());
+    private volatile boolean running;
+
+    public ProcessingQueueWorker(SQSService sqsService,
+                                 DocumentProcessingService documentProcessingService,
+                                 @Value("${document.processing.workers.pollers:2}") int pollers,
+                                 @Value("${document.processing.workers.concurrency:16}") int concurrency,
+                                 @Value("${document.processing.workers.visibility-timeout:60s}") Duration visibilityTimeout,
+                                 @Value("${document.processing.workers.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        this.sqsService = sqsService;
+        this.documentProcessingService = documentProcessingService;
+        this.pollers = Math.max(1, pollers);
+        this.concurrency = Math.max(1, concurrency);
+        this.visibilityTimeout = visibilityTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+        this.slots = new Semaphore(this.concurrency);
+    }
+
+    /**
+     * Start polling once the application is ready to process
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!sqsService.isProcessingQueueAvailable()) {
+            logger.warn("Processing queue not available; processing queue workers not started");
+            return;
+        }
+        running = true;
+        for (int i = 0; i < pollers; i++) {
+            pollerThreads.add(Thread.ofVirtual().name("processing-queue-poller-" + i).start(this::pollLoop));
+        }
+        long period = Math.max(1000, visibilityTimeout.toMillis() / 2);
+        heartbeat.scheduleAtFixedRate(this::extendVisibility, period, period, TimeUnit.MILLISECONDS);
+        logger.info("Processing queue workers started: pollers={}, concurrency={}, visibilityTimeout={}",
+                pollers, concurrency, visibilityTimeout);
+    }
+
+    /**
+     * Stop receiving and give running work the chance to finish, so its messages are deleted
+     * instead of redelivered
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        pollerThreads.forEach(Thread::interrupt);
+        try {
+            if (slots.tryAcquire(concurrency, shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                slots.release(concurrency);
+            } else {
+                logger.warn("Stopping with {} documents still processing; their messages will be redelivered",
+                        inFlight.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        heartbeat.shutdownNow();
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                // Only receive what free workers can take right away
+                slots.acquire();
+                int permits = 1;
+                while (permits < MAX_RECEIVE && slots.tryAcquire()) {
+                    permits++;
+                }
+
+                long started = System.nanoTime();
+                List<Message> messages = running
+                        ? sqsService.receiveProcessingMessages(permits, visibilityTimeout, WAIT_TIME)
+                        : List.of();
+                slots.release(permits - messages.size());
+                messages.forEach(this::dispatch);
+
+                // An empty answer well before the long poll ends means the receive call failed
+                if (messages.isEmpty() && System.nanoTime() - started < EMPTY_RECEIVE_BACKOFF.toNanos()) {
+                    Thread.sleep(EMPTY_RECEIVE_BACKOFF.toMillis());
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Hand one received message to a worker; the caller holds a worker slot for it
+     */
+    void dispatch(Message message) {
+        JsonNode body;
+        String eventType;
+        String documentId;
+        try {
+            body = objectMapper.readTree(message.body());
+            eventType = body.path("eventType").asText();
+            documentId = body.path("documentId").asText(null);
+        } catch (IOException e) {
+            logger.warn("Discarding unreadable queue message: messageId={}, error={}", message.messageId(), e.getMessage());
+            complete(message, true);
+            return;
+        }
+
+        if (!UPLOADED_EVENT.equals(eventType) || documentId == null) {
+            logger.warn("Discarding unexpected processing queue message: messageId={}, eventType={}",
+                    message.messageId(), eventType);
+            complete(message, true);
+            return;
+        }
+
+        boolean redelivered = receiveCount(message) > 1;
+        inFlight.put(message.messageId(), message);
+        documentProcessingService.processDocumentAsync(uploadedDocument(documentId, body), redelivered)
+                .whenComplete((ignored, error) -> {
+                    inFlight.remove(message.messageId());
+                    if (error != null) {
+                        logger.warn("Processing outcome not recorded, leaving message for redelivery: documentId={}, error={}",
+                                documentId, error.getMessage());
+                    }
+                    complete(message, error == null);
+                });
+    }
+
+    /**
+     * The document as described by its upload event: enough to schedule its processing and to
+     * find a cached result for its content
+     */
+    private static Document uploadedDocument(String documentId, JsonNode body) {
+        Document document = new Document();
+        document.setDocumentId(documentId);
+        document.setContentType(body.path("contentType").asText(null));
+        document.setFileSize(body.path("fileSize").asLong(-1));
+        document.setContentHash(body.path("contentHash").asText(null));
+        try {
+            document.setPriority(Document.ProcessingPriority.parse(body.path("priority").asText(null)));
+        } catch (IllegalArgumentException e) {
+            logger.debug("Ignoring priority of upload event: documentId={}, error={}", documentId, e.getMessage());
+        }
+        return document;
+    }
+
+    private void complete(Message message, boolean delete) {
+        try {
+            if (delete) {
+                sqsService.deleteProcessingMessage(message);
+            }
+        } finally {
+            slots.release();
+        }
+    }
+
+    private void extendVisibility() {
+        List<Message> messages = new ArrayList<>(inFlight.values());
+        if (!messages.isEmpty()) {
+            logger.debug("Extending visibility of {} in-flight messages", messages.size());
+            sqsService.extendProcessingVisibility(messages, visibilityTimeout);
+        }
+    }
+
+    private static int receiveCount(Message message) {
+        String count = message.attributes().get(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT);
+        try {
+            return count == null ? 1 : Integer.parseInt(count);
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+}
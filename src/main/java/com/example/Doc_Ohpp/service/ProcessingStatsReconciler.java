@@ -0,0 +1,55 @@
+package com.example.Doc_Ohpp.service;
+
+import com.example.Doc_Ohpp.model.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Periodically rebuilds the materialized processing counters from a full segmented scan.
+ *
+ * The counters are maintained incrementally on every write, but a counter update can fail
+ * after its document write succeeded. Writes that land while the scan is running may be off
+ * by a few until the next run.
+ */
+@Component
+public class ProcessingStatsReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessingStatsReconciler.class);
+
+    private final DynamoDBService dynamoDBService;
+
+    public ProcessingStatsReconciler(DynamoDBService dynamoDBService) {
+        this.dynamoDBService = dynamoDBService;
+    }
+
+    /**
+     * Recount every document and overwrite the stats item
+     */
+    @Scheduled(initialDelayString = "${document.stats.reconcile-initial-delay:PT1M}",
+            fixedDelayString = "${document.stats.reconcile-interval:PT6H}")
+    public void reconcile() {
+        logger.info("Reconciling processing counters");
+        long startedAt = System.currentTimeMillis();
+
+        Map<Document.ProcessingStatus, Long> counts = new EnumMap<>(Document.ProcessingStatus.class);
+        long totalSize = 0;
+        try (Stream<Document> documents = dynamoDBService.scanDocuments()) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                counts.merge(document.getStatus(), 1L, Long::sum);
+                totalSize += document.getFileSize();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to reconcile processing counters: {}", e.getMessage(), e);
+            return;
+        }
+
+        dynamoDBService.replaceProcessingCounters(new DynamoDBService.ProcessingCounters(counts, totalSize));
+        logger.info("Processing counters reconciled in {} ms", System.currentTimeMillis() - startedAt);
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.Doc_Ohpp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * The document processing runs in flight on this instance, keyed by document ID, so deleting a
+ * document can stop its processing.
+ *
+ * Cancellation is cooperative: a cancelled {@link Task} interrupts the thread running it, runs
+ * its cancel actions (pulling a queued job off the executor, cancelling a pending stage of an
+ * async run), and fails its next {@link Task#throwIfCancelled()} check. Runs on other instances
+ * are not reached; the conditional status transitions stop those when they find the document gone.
+ */
+@Component
+public class ProcessingTaskRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessingTaskRegistry.class);
+
+    // Usually one task per document; a redelivered processing message can add a second
+    private final ConcurrentMap<String, List<Task>> tasks = new ConcurrentHashMap<>();
+    private final Counter cancellations;
+
+    public ProcessingTaskRegistry(MeterRegistry meterRegistry) {
+        this.cancellations = Counter.builder("document.processing.cancelled")
+                .description("Processing runs cancelled because their document was deleted")
+                .register(meterRegistry);
+        Gauge.builder("document.processing.inflight", tasks, ConcurrentMap::size)
+                .description("Documents with a processing run in flight on this instance")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Track a processing run; the caller unregisters it once the run is over
+     */
+    public Task register(String documentId) {
+        Task task = new Task(documentId);
+        tasks.compute(documentId, (id, running) -> {
+            List<Task> registered = running == null ? new ArrayList<>(1) : new ArrayList<>(running);
+            registered.add(task);
+            return List.copyOf(registered);
+        });
+        return task;
+    }
+
+    public void unregister(Task task) {
+        tasks.computeIfPresent(task.documentId(), (id, running) -> {
+            List<Task> remaining = new ArrayList<>(running);
+            remaining.remove(task);
+            return remaining.isEmpty() ? null : List.copyOf(remaining);
+        });
+    }
+
+    /**
+     * Cancel every run in flight for a document
+     * @return Whether there was one
+     */
+    public boolean cancel(String documentId) {
+        List<Task> running = tasks.remove(documentId);
+        if (running == null) {
+            return false;
+        }
+        for (Task task : running) {
+            task.cancel();
+            cancellations.increment();
+        }
+        logger.info("Cancelled document processing: documentId={}, runs={}", documentId, running.size());
+        return true;
+    }
+
+    /**
+     * @return Number of documents with a processing run in flight
+     */
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * Handle on one processing run of a document
+     */
+    public static final class Task {
+
+        private final String documentId;
+        private volatile boolean cancelled;
+        // Guarded by this
+        private Thread runner;
+        private final List<Runnable> cancelActions = new ArrayList<>();
+
+        Task(String documentId) {
+            this.documentId = documentId;
+        }
+
+        public String documentId() {
+            return documentId;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @throws CancellationException if the run was cancelled
+         */
+        public void throwIfCancelled() {
+            if (cancelled) {
+                throw new CancellationException("Processing of document " + documentId + " was cancelled");
+            }
+        }
+
+        /**
+         * Run part of the processing on the current thread, which cancelling interrupts
+         * @throws CancellationException if the run was cancelled before it started
+         */
+        public <T> T run(Supplier<T> work) {
+            synchronized (this) {
+                throwIfCancelled();
+                runner = Thread.currentThread();
+            }
+            try {
+                return work.get();
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    if (cancelled) {
+                        // Don't leave a pooled worker thread interrupted
+                        Thread.interrupted();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Run an action when the run is cancelled, or right away if it already was
+         */
+        public void onCancel(Runnable action) {
+            synchronized (this) {
+                if (!cancelled) {
+                    cancelActions.add(action);
+                    return;
+                }
+            }
+            action.run();
+        }
+
+        void cancel() {
+            List<Runnable> actions;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                if (runner != null) {
+                    runner.interrupt();
+                }
+                actions = List.copyOf(cancelActions);
+                cancelActions.clear();
+            }
+            for (Runnable action : actions) {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Cancel action failed: documentId={}, error={}", documentId, e.getMessage());
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "ProcessingTaskRegistry.Task[documentId=" + documentId + ", cancelled=" + cancelled + "]";
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.Doc_Ohpp.service;
+
+import com.amazonaws.xray.AWSXRay;
+import com.amazonaws.xray.entities.Entity;
+import com.example.Doc_Ohpp.util.Futures;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Opt-in hedging of idempotent AWS reads, to cut their tail latency.
+ *
+ * A hedged read that has not answered within the recent {@code percentile} latency of its
+ * operation is sent a second time, and whichever attempt answers first wins. The late answer is
+ * discarded, not cancelled, so it still counts towards the percentile. Hedges are paid for from a
+ * token bucket that every read tops up by {@code budget}, which caps the extra load at that share
+ * of the operation's reads (5% by default) plus a small burst.
+ */
+@Component
+public class RequestHedging {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestHedging.class);
+
+    // Recent latencies an operation's percentile is taken from, and how many it needs before hedging
+    static final int WINDOW = 1024;
+    static final int MIN_SAMPLES = 100;
+    private static final int RECOMPUTE_INTERVAL = 64;
+    // The budget is kept in thousandths of a hedge; it can save up 10 hedges for a burst of slow reads
+    private static final long TOKEN = 1000;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final double percentile;
+    private final long budgetTokens;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final ExecutorService attempts = Executors.newVirtualThreadPerTaskExecutor();
+
+    public RequestHedging(MeterRegistry meterRegistry,
+                          @Value("${aws.hedging.enabled:false}") boolean enabled,
+                          @Value("${aws.hedging.percentile:95}") double percentile,
+                          @Value("${aws.hedging.budget:0.05}") double budget,
+                          @Value("${aws.hedging.min-delay:5ms}") Duration minDelay,
+                          @Value("${aws.hedging.max-delay:1s}") Duration maxDelay) {
+        if (percentile <= 0 || percentile >= 100) {
+            throw new IllegalArgumentException("Hedging percentile must be between 0 and 100: " + percentile);
+        }
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.budgetTokens = Math.round(budget * TOKEN);
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    /**
+     * Hedging turned off: every read runs once, on the caller's thread
+     */
+    static RequestHedging disabled() {
+        return new RequestHedging(null, false, 95, 0, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * @param operation Names the read in metrics; each operation tracks its own latency and budget
+     */
+    public Hedger hedger(String operation) {
+        return new Hedger(operation);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        attempts.shutdownNow();
+    }
+
+    /**
+     * Hedges the reads of one operation
+     */
+    public final class Hedger {
+
+        private final String operation;
+        private final Counter requests;
+        private final Counter hedges;
+        private final Counter wins;
+        private final Counter throttled;
+
+        // Guarded by this
+        private final long[] samples = new long[WINDOW];
+        private int sampleCount;
+        private int nextSample;
+        private int sinceRecompute;
+        private long tokens;
+
+        // Nanoseconds a read waits before it is hedged; negative until there are enough samples
+        private volatile long delayNanos = -1;
+
+        private Hedger(String operation) {
+            this.operation = operation;
+            if (!enabled) {
+                requests = hedges = wins = throttled = null;
+                return;
+            }
+            this.requests = counter("aws.hedging.requests", "Reads that could be hedged");
+            this.hedges = counter("aws.hedging.hedges", "Second attempts sent for slow reads");
+            this.wins = counter("aws.hedging.wins", "Second attempts that answered first");
+            this.throttled = counter("aws.hedging.throttled", "Slow reads not hedged because the budget was spent");
+            Gauge.builder("aws.hedging.delay", this, hedger -> Math.max(hedger.delayNanos, 0) / 1e6)
+                    .description("Wait before a read is hedged, in milliseconds")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+            Gauge.builder("aws.hedging.hedge.rate", this, hedger -> ratio(hedger.hedges, hedger.requests))
+                    .description("Share of reads that were hedged")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+            Gauge.builder("aws.hedging.win.rate", this, hedger -> ratio(hedger.wins, hedger.hedges))
+                    .description("Share of hedges that answered first")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Run an idempotent read, hedged if it is slow
+         * @see #call(Supplier, Consumer)
+         */
+        public <T> T call(Supplier<T> read) {
+            return call(read, null);
+        }
+
+        /**
+         * Run an idempotent read, hedged if it is slow. Only the first failure is rethrown, and
+         * only once every attempt sent has failed.
+         * @param read The read; may run twice, concurrently, on other threads
+         * @param discard Releases the result of the attempt that lost, e.g. aborts its stream; may be null
+         * @return The result of the first attempt to succeed
+         */
+        public <T> T call(Supplier<T> read, Consumer<? super T> discard) {
+            if (!enabled) {
+                return read.get();
+            }
+            requests.increment();
+            deposit();
+
+            Race<T> race = new Race<>(read, discard, AWSXRay.getTraceEntity());
+            race.start();
+            long delay = delayNanos;
+            if (delay >= 0 && !race.answeredWithin(delay)) {
+                if (!withdraw()) {
+                    throttled.increment();
+                } else if (race.start()) {
+                    hedges.increment();
+                } else {
+                    // The read answered while the budget was checked, so no hedge is needed
+                    refund();
+                }
+            }
+            T result = Futures.join(race.outcome);
+            if (race.winner > 0) {
+                wins.increment();
+            }
+            return result;
+        }
+
+        /**
+         * @return The current wait before a read is hedged, or null while there are too few
+         *         samples to hedge
+         */
+        public Duration delay() {
+            long delay = delayNanos;
+            return delay < 0 ? null : Duration.ofNanos(delay);
+        }
+
+        public String operation() {
+            return operation;
+        }
+
+        private synchronized void record(long latencyNanos) {
+            samples[nextSample] = latencyNanos;
+            nextSample = (nextSample + 1) % WINDOW;
+            if (sampleCount < WINDOW) {
+                sampleCount++;
+            }
+            sinceRecompute++;
+            if (sampleCount >= MIN_SAMPLES && (delayNanos < 0 || sinceRecompute >= RECOMPUTE_INTERVAL)) {
+                long[] sorted = Arrays.copyOf(samples, sampleCount);
+                Arrays.sort(sorted);
+                int rank = (int) Math.ceil(percentile / 100 * sampleCount) - 1;
+                long latency = sorted[Math.min(Math.max(rank, 0), sampleCount - 1)];
+                delayNanos = Math.min(Math.max(latency, minDelayNanos), maxDelayNanos);
+                sinceRecompute = 0;
+            }
+        }
+
+        private synchronized void deposit() {
+            tokens = Math.min(tokens + budgetTokens, MAX_TOKENS);
+        }
+
+        private synchronized boolean withdraw() {
+            if (tokens < TOKEN) {
+                return false;
+            }
+            tokens -= TOKEN;
+            return true;
+        }
+
+        private synchronized void refund() {
+            tokens = Math.min(tokens + TOKEN, MAX_TOKENS);
+        }
+
+        private Counter counter(String name, String description) {
+            return Counter.builder(name)
+                    .description(description)
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+        }
+
+        private static double ratio(Counter part, Counter whole) {
+            double total = whole.count();
+            return total == 0 ? 0 : part.count() / total;
+        }
+
+        /**
+         * The attempts of one read. The first to succeed completes the outcome; the outcome
+         * fails only once every attempt started has failed.
+         */
+        private final class Race<T> {
+
+            private final Supplier<T> read;
+            private final Consumer<? super T> discard;
+            private final Entity traceEntity;
+            private final CompletableFuture<T> outcome = new CompletableFuture<>();
+
+            // Guarded by this
+            private int started;
+            private int failed;
+            private Throwable firstFailure;
+            // Attempt that won, 0 for the original; written before the outcome completes
+            private volatile int winner = -1;
+
+            Race(Supplier<T> read, Consumer<? super T> discard, Entity traceEntity) {
+                this.read = read;
+                this.discard = discard;
+                this.traceEntity = traceEntity;
+            }
+
+            /**
+             * Start another attempt, unless the read already has its outcome. The attempt is
+             * counted under the lock, so the outcome cannot fail between the check and the start.
+             * @return Whether an attempt was started
+             */
+            boolean start() {
+                int attempt;
+                synchronized (this) {
+                    if (outcome.isDone()) {
+                        return false;
+                    }
+                    attempt = started++;
+                }
+                attempts.execute(() -> {
+                    if (traceEntity != null) {
+                        AWSXRay.setTraceEntity(traceEntity);
+                    }
+                    long startedAt = System.nanoTime();
+                    try {
+                        T result = read.get();
+                        record(System.nanoTime() - startedAt);
+                        succeeded(attempt, result);
+                    } catch (Throwable e) {
+                        failed(e);
+                    } finally {
+                        if (traceEntity != null) {
+                            AWSXRay.clearTraceEntity();
+                        }
+                    }
+                });
+                return true;
+            }
+
+            /**
+             * @return Whether the read answered, successfully or not, within the delay
+             */
+            boolean answeredWithin(long delayNanos) {
+                try {
+                    outcome.get(delayNanos, TimeUnit.NANOSECONDS);
+                    return true;
+                } catch (TimeoutException e) {
+                    return false;
+                } catch (ExecutionException e) {
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted waiting for " + operation, e);
+                }
+            }
+
+            private void succeeded(int attempt, T result) {
+                synchronized (this) {
+                    if (!outcome.isDone()) {
+                        winner = attempt;
+                        outcome.complete(result);
+                        return;
+                    }
+                }
+                if (discard != null) {
+                    try {
+                        discard.accept(result);
+                    } catch (RuntimeException e) {
+                        logger.debug("Failed to discard late {} result: {}", operation, e.getMessage());
+                    }
+                }
+            }
+
+            private synchronized void failed(Throwable error) {
+                if (firstFailure == null) {
+                    firstFailure = error;
+                }
+                if (++failed == started && !outcome.isDone()) {
+                    outcome.completeExceptionally(firstFailure);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.Doc_Ohpp.service;
+
+import com.example.Doc_Ohpp.util.Futures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link S3Service} operations on the async client. The returned futures complete on the
+ * SDK's threads; no caller thread waits on the network.
+ */
+@Service
+@ConditionalOnProperty(name = "aws.client.mode", havingValue = "async")
+public class S3AsyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3AsyncService.class);
+
+    private final S3AsyncClient s3AsyncClient;
+
+    @Value("${aws.s3.bucket-name}")
+    private String bucketName;
+
+    public S3AsyncService(S3AsyncClient s3AsyncClient) {
+        this.s3AsyncClient = s3AsyncClient;
+    }
+
+    /**
+     * Download a whole object into memory
+     * @param s3Key The S3 object key
+     * @return The object content
+     */
+    public CompletableFuture<byte[]> downloadDocument(String s3Key) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .build();
+        return s3AsyncClient.getObject(getObjectRequest, AsyncResponseTransformer.toBytes())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw new RuntimeException("Failed to download document from S3", Futures.unwrap(error));
+                    }
+                    return response.asByteArrayUnsafe();
+                });
+    }
+
+    /**
+     * Delete an object
+     * @param s3Key The S3 object key
+     */
+    public CompletableFuture<Void> deleteDocument(String s3Key) {
+        DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .build();
+        return s3AsyncClient.deleteObject(deleteObjectRequest)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw new RuntimeException("Failed to delete document from S3", Futures.unwrap(error));
+                    }
+                    logger.debug("Deleted S3 object: s3Key={}", s3Key);
+                    return null;
+                });
+    }
+}
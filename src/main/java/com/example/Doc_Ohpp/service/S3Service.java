@@ -1,26 +1,78 @@
 package com.example.Doc_Ohpp.service;
 
+import com.example.Doc_Ohpp.util.Futures;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class S3Service {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3Service.class);
+
     private final S3Client s3Client;
+    // Hedges the wait for a GetObject response (time to first byte), not the body transfer
+    private final RequestHedging.Hedger getObjectHedger;
+    private final ExecutorService partUploadExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     @Value("${aws.s3.bucket-name}")
     private String bucketName;
 
-    public S3Service(S3Client s3Client) {
+    @Value("${aws.s3.multipart.threshold:16MB}")
+    private DataSize multipartThreshold = DataSize.ofMegabytes(16);
+
+    @Value("${aws.s3.multipart.part-size:8MB}")
+    private DataSize partSize = DataSize.ofMegabytes(8);
+
+    @Value("${aws.s3.multipart.parallelism:4}")
+    private int parallelism = 4;
+
+    @Value("${aws.s3.multipart.max-part-attempts:3}")
+    private int maxPartAttempts = 3;
+
+    public S3Service(S3Client s3Client, RequestHedging requestHedging) {
         this.s3Client = s3Client;
+        this.getObjectHedger = requestHedging.hedger("s3.getObject");
     }
 
     public String uploadDocument(String fileName, String contentType, byte[] content) {
@@ -34,12 +86,203 @@ public class S3Service {
         return s3Key;
     }
 
-    public byte[] downloadDocument(String s3Key) {
-        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+    /**
+     * Stream a document into S3 without buffering it on the heap.
+     * Content above the multipart threshold, or of unknown length ({@code contentLength < 0}),
+     * is sent as a parallel multipart upload.
+     */
+    public String uploadDocument(String fileName, String contentType, InputStream content, long contentLength) {
+        String s3Key = "documents/" + UUID.randomUUID() + "-" + fileName;
+        uploadObject(s3Key, contentType, content, contentLength);
+        return s3Key;
+    }
+
+    /**
+     * Stream content to the given key, choosing between a single PUT and a multipart upload.
+     * @param contentLength Content length in bytes, or -1 when unknown
+     */
+    public void uploadObject(String s3Key, String contentType, InputStream content, long contentLength) {
+        if (contentLength >= 0 && contentLength <= multipartThreshold.toBytes()) {
+            PutObjectRequest request = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .contentType(contentType)
+                    .contentLength(contentLength)
+                    .build();
+            s3Client.putObject(request, RequestBody.fromInputStream(content, contentLength));
+        } else {
+            multipartUpload(s3Key, contentType, content);
+        }
+    }
+
+    /**
+     * Split the stream into parts and upload them concurrently. At most {@code parallelism}
+     * part buffers exist at a time, so heap use is bounded by part size times parallelism.
+     * Individual parts are retried; any part that still fails aborts the whole upload, once the
+     * parts still in flight have given up, so none lands on the aborted upload.
+     */
+    private void multipartUpload(String s3Key, String contentType, InputStream content) {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .contentType(contentType)
+                .build()).uploadId();
+        logger.info("Started multipart upload: key={}, uploadId={}, partSize={}, parallelism={}",
+                s3Key, uploadId, partSize, parallelism);
+
+        int partSizeBytes = (int) partSize.toBytes();
+        Semaphore partBuffers = new Semaphore(parallelism);
+        // Completed with the first failure; the parts still running watch it to stop early
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        try {
+            for (int partNumber = 1; !failure.isDone(); partNumber++) {
+                partBuffers.acquire();
+                byte[] data = !failure.isDone() ? readPart(content, partSizeBytes) : null;
+                if (data == null) {
+                    partBuffers.release();
+                    break;
+                }
+
+                int number = partNumber;
+                CompletableFuture<CompletedPart> part = CompletableFuture.supplyAsync(
+                        () -> uploadPart(s3Key, uploadId, number, data, failure), partUploadExecutor);
+                part.whenComplete((completed, e) -> {
+                    if (e != null) {
+                        failure.complete(e);
+                    }
+                    partBuffers.release();
+                });
+                parts.add(part);
+            }
+
+            List<CompletedPart> completedParts = new ArrayList<>(parts.size());
+            for (CompletableFuture<CompletedPart> part : parts) {
+                completedParts.add(part.join());
+            }
+
+            if (completedParts.isEmpty()) {
+                // S3 needs at least one part; an empty stream becomes an empty object
+                abortMultipartUpload(s3Key, uploadId);
+                s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(s3Key)
+                        .contentType(contentType)
+                        .build(), RequestBody.empty());
+                return;
+            }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+            logger.info("Completed multipart upload: key={}, parts={}", s3Key, completedParts.size());
+
+        } catch (Exception e) {
+            // Tell the parts still running to stop retrying, and wait for them before aborting
+            failure.complete(e);
+            CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).handle((ignored, error) -> null).join();
+            abortMultipartUpload(s3Key, uploadId);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new RuntimeException("Multipart upload to S3 failed", Futures.unwrap(failure.getNow(e)));
+        }
+    }
+
+    /**
+     * Upload one part, retrying transient failures until another part has failed the upload
+     * @param failure Completes once the upload has failed; the part then stops retrying
+     */
+    private CompletedPart uploadPart(String s3Key, String uploadId, int partNumber, byte[] data,
+                                     CompletableFuture<Throwable> failure) {
+        UploadPartRequest request = UploadPartRequest.builder()
                 .bucket(bucketName)
                 .key(s3Key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) data.length)
                 .build();
-        try (InputStream inputStream = s3Client.getObject(getObjectRequest);
+
+        for (int attempt = 1; ; attempt++) {
+            if (failure.isDone()) {
+                throw new CancellationException("Part " + partNumber + " not uploaded, the upload already failed");
+            }
+            try {
+                // Content provider instead of fromBytes so the part buffer is not copied again
+                UploadPartResponse response = s3Client.uploadPart(request,
+                        RequestBody.fromContentProvider(() -> new ByteArrayInputStream(data), data.length,
+                                "application/octet-stream"));
+                return CompletedPart.builder()
+                        .partNumber(partNumber)
+                        .eTag(response.eTag())
+                        .build();
+            } catch (RuntimeException e) {
+                if (!isRetryable(e)) {
+                    logger.error("Part upload failed, not retryable: key={}, part={}, error={}", s3Key, partNumber, e.getMessage());
+                    throw e;
+                }
+                if (attempt >= maxPartAttempts) {
+                    logger.error("Part upload failed after {} attempts: key={}, part={}", attempt, s3Key, partNumber);
+                    throw e;
+                }
+                logger.warn("Retrying part upload: key={}, part={}, attempt={}, error={}",
+                        s3Key, partNumber, attempt, e.getMessage());
+                try {
+                    // Back off, but wake up as soon as another part fails the upload
+                    failure.get(100L << (attempt - 1), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException | ExecutionException backedOff) {
+                    // No other part failed meanwhile; try again
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(ie);
+                }
+            }
+        }
+    }
+
+    /**
+     * Only transient failures are worth another attempt: server errors, throttling, and what the
+     * SDK flags as retryable. Client errors (AccessDenied, NoSuchUpload, InvalidPart) fail at once.
+     */
+    private static boolean isRetryable(RuntimeException e) {
+        if (e instanceof SdkServiceException serviceException) {
+            return serviceException.statusCode() >= 500 || serviceException.isThrottlingException()
+                    || serviceException.retryable();
+        }
+        return e instanceof SdkException sdkException && sdkException.retryable();
+    }
+
+    private void abortMultipartUpload(String s3Key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .uploadId(uploadId)
+                    .build());
+            logger.info("Aborted multipart upload: key={}, uploadId={}", s3Key, uploadId);
+        } catch (Exception e) {
+            logger.error("Failed to abort multipart upload: key={}, uploadId={}, error={}", s3Key, uploadId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Fill one part buffer from the stream.
+     * @return The part bytes, or null once the stream is exhausted
+     */
+    private static byte[] readPart(InputStream content, int partSizeBytes) throws IOException {
+        byte[] buffer = new byte[partSizeBytes];
+        int filled = content.readNBytes(buffer, 0, partSizeBytes);
+        if (filled == 0) {
+            return null;
+        }
+        return filled == partSizeBytes ? buffer : Arrays.copyOf(buffer, filled);
+    }
+
+    public byte[] downloadDocument(String s3Key) {
+        try (InputStream inputStream = openDocument(s3Key, null, null);
              ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
             byte[] buffer = new byte[8192];
             int bytesRead;
@@ -52,6 +295,48 @@ public class S3Service {
         }
     }
 
+    /**
+     * Open a streaming read of an object. The caller owns the stream and must close it,
+     * or abort it when giving up before the end. A slow response may be hedged; the stream
+     * of the losing request is aborted.
+     * @param start First byte to read, or null for the whole object
+     * @param end Last byte to read (inclusive), or null for the rest of the object
+     */
+    public ResponseInputStream<GetObjectResponse> openDocument(String s3Key, Long start, Long end) {
+        GetObjectRequest.Builder request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key);
+        if (start != null) {
+            request.range("bytes=" + start + "-" + (end != null ? end : ""));
+        }
+        GetObjectRequest getObjectRequest = request.build();
+        return getObjectHedger.call(() -> s3Client.getObject(getObjectRequest), ResponseInputStream::abort);
+    }
+
+    /**
+     * Download an object into a local file, which must not exist yet
+     */
+    public void downloadToFile(String s3Key, Path target) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .build();
+        s3Client.getObject(getObjectRequest, ResponseTransformer.toFile(target));
+    }
+
+    /**
+     * Copy an object within the bucket; S3 copies the data server-side
+     */
+    public void copyObject(String sourceKey, String targetKey) {
+        CopyObjectRequest copyObjectRequest = CopyObjectRequest.builder()
+                .sourceBucket(bucketName)
+                .sourceKey(sourceKey)
+                .destinationBucket(bucketName)
+                .destinationKey(targetKey)
+                .build();
+        s3Client.copyObject(copyObjectRequest);
+    }
+
     public void deleteDocument(String s3Key) {
         DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
                 .bucket(bucketName)
@@ -60,4 +345,9 @@ public class S3Service {
         s3Client.deleteObject(deleteObjectRequest);
     }
 
-}
\ No newline at end of file
+    @PreDestroy
+    void shutdown() {
+        partUploadExecutor.shutdownNow();
+    }
+
+}
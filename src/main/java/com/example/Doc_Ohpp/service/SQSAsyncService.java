@@ -0,0 +1,114 @@
+package com.example.Doc_Ohpp.service;
+
+import com.example.Doc_Ohpp.model.Document;
+import com.example.Doc_Ohpp.util.Futures;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Document event notifications on the async client. Messages are built by {@link SQSService},
+ * and go through its event batcher when batching is enabled, without waiting for buffer space:
+ * a full buffer drops the event, or under SEND_DIRECT sends it on the async client.
+ * Like the blocking methods, a failed send is logged and never fails the returned future,
+ * so callers can fire events without waiting for them; only queueing a document on the
+ * processing queue reports its failure.
+ */
+@Service
+@ConditionalOnProperty(name = "aws.client.mode", havingValue = "async")
+public class SQSAsyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SQSAsyncService.class);
+
+    private final SqsAsyncClient sqsAsyncClient;
+    private final SQSService sqsService;
+
+    public SQSAsyncService(SqsAsyncClient sqsAsyncClient, SQSService sqsService) {
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.sqsService = sqsService;
+    }
+
+    public CompletableFuture<Void> sendDocumentUploadedMessage(Document document) {
+        return send(sqsService.createDocumentMessage(document, "DOCUMENT_UPLOADED"));
+    }
+
+    /**
+     * Queue a document on the processing queue, bypassing the event batcher. Unlike the events,
+     * a failed send fails the returned future.
+     * @see SQSService#sendDocumentForProcessing(Document)
+     */
+    public CompletableFuture<Void> sendDocumentForProcessing(Document document) {
+        if (!sqsService.isProcessingQueueAvailable()) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "SQS processing queue not available for document " + document.getDocumentId()));
+        }
+        SendMessageRequest request;
+        try {
+            request = sqsService.processingMessageRequest(document);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to serialize message content", e));
+        }
+        return sqsAsyncClient.sendMessage(request)
+                .thenAccept(response -> logger.info("Document uploaded message sent for processing: documentId={}, messageId={}",
+                        document.getDocumentId(), response.messageId()));
+    }
+
+    public CompletableFuture<Void> sendDocumentProcessingStartedMessage(Document document) {
+        return send(sqsService.createDocumentMessage(document, "PROCESSING_STARTED"));
+    }
+
+    public CompletableFuture<Void> sendDocumentProcessingCompletedMessage(Document document) {
+        return send(sqsService.createDocumentMessage(document, "PROCESSING_COMPLETED"));
+    }
+
+    public CompletableFuture<Void> sendDocumentProcessingFailedMessage(Document document, String errorMessage) {
+        Map<String, Object> message = sqsService.createDocumentMessage(document, "PROCESSING_FAILED");
+        message.put("errorMessage", errorMessage);
+        return send(message);
+    }
+
+    public CompletableFuture<Void> sendDocumentDeletedMessage(String documentId, String fileName) {
+        return send(sqsService.createDeletedMessage(documentId, fileName));
+    }
+
+    private CompletableFuture<Void> send(Map<String, Object> message) {
+        Object eventType = message.get("eventType");
+        Object documentId = message.get("documentId");
+        if (!sqsService.isQueueAvailable()) {
+            logger.debug("SQS queue not available; skipping {} message: documentId={}", eventType, documentId);
+            return CompletableFuture.completedFuture(null);
+        }
+        // Often called on an SDK completion thread, so never wait for buffer space or send on it;
+        // what the batcher does not take is sent with the async client
+        if (sqsService.offer(message)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        SendMessageRequest request;
+        try {
+            request = sqsService.messageRequest(message);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize message content: {}", e.getMessage(), e);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return sqsAsyncClient.sendMessage(request)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        logger.error("Failed to send {} message: documentId={}, error={}",
+                                eventType, documentId, Futures.unwrap(error).getMessage());
+                    } else {
+                        logger.info("{} message sent: documentId={}, messageId={}",
+                                eventType, documentId, response.messageId());
+                    }
+                    return null;
+                });
+    }
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.example.Doc_Ohpp.model.Document;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,12 +13,16 @@ import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.sqs.SqsClient;
 import software.amazon.awssdk.services.sqs.model.*;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 @XRayEnabled
@@ -25,6 +30,8 @@ public class SQSService {
 
     private static final Logger logger = LoggerFactory.getLogger(SQSService.class);
 
+    private static final int MAX_BATCH_ENTRIES = SqsEventBatcher.MAX_BATCH_ENTRIES;
+
     private final SqsClient sqsClient;
     private final ObjectMapper objectMapper;
 
@@ -33,6 +40,39 @@ public class SQSService {
 
     private String queueUrl;
 
+    // Work queue of the processing queue workers, kept apart from the lifecycle events
+    @Value("${aws.sqs.processing-queue-name:}")
+    private String processingQueueName;
+
+    private String processingQueueUrl;
+
+    @Value("${aws.sqs.batching.enabled:true}")
+    private boolean batchingEnabled = true;
+
+    @Value("${aws.sqs.batching.buffer-capacity:10000}")
+    private int batchBufferCapacity = 10000;
+
+    @Value("${aws.sqs.batching.linger:50ms}")
+    private Duration batchLinger = Duration.ofMillis(50);
+
+    @Value("${aws.sqs.batching.overflow:block}")
+    private SqsEventBatcher.OverflowPolicy batchOverflow = SqsEventBatcher.OverflowPolicy.BLOCK;
+
+    @Value("${aws.sqs.batching.block-timeout:1s}")
+    private Duration batchBlockTimeout = Duration.ofSeconds(1);
+
+    @Value("${aws.sqs.batching.max-attempts:3}")
+    private int batchMaxAttempts = 3;
+
+    @Value("${aws.sqs.batching.flushers:2}")
+    private int batchFlushers = 2;
+
+    @Value("${aws.sqs.batching.shutdown-timeout:10s}")
+    private Duration batchShutdownTimeout = Duration.ofSeconds(10);
+
+    // Buffers event messages for SendMessageBatch; null when batching is disabled or there is no queue
+    private SqsEventBatcher batcher;
+
     public SQSService(SqsClient sqsClient) {
         this.sqsClient = sqsClient;
         this.objectMapper = new ObjectMapper();
@@ -44,6 +84,7 @@ public class SQSService {
      */
     @PostConstruct
     private void initializeQueueUrl() {
+        initializeProcessingQueueUrl();
         try {
             if (queueName == null || queueName.trim().isEmpty()) {
                 logger.warn("Queue name is not configured. Skipping SQS queue URL initialization.");
@@ -73,16 +114,62 @@ public class SQSService {
             this.queueUrl = response.queueUrl();
             logger.info("SQS Queue URL initialized: {}", queueUrl);
 
+            if (batchingEnabled) {
+                batcher = new SqsEventBatcher(this::sendBatchOnce, batchBufferCapacity, batchLinger, batchOverflow,
+                        batchBlockTimeout, batchMaxAttempts, batchFlushers);
+                logger.info("SQS event batching enabled: linger={}, capacity={}, overflow={}",
+                        batchLinger, batchBufferCapacity, batchOverflow);
+            }
+
         } catch (Exception e) {
             logger.error("Unexpected error while initializing SQS queue URL for queue '{}': {}", queueName, e.getMessage(), e);
             this.queueUrl = null; // do not fail application startup
         }
     }
 
-    private boolean isQueueAvailable() {
+    /**
+     * Resolve the processing queue, if one is configured. Without it uploads are processed on
+     * the node that received them, whatever the dispatch setting.
+     */
+    private void initializeProcessingQueueUrl() {
+        if (processingQueueName == null || processingQueueName.trim().isEmpty()) {
+            return;
+        }
+        try {
+            GetQueueUrlResponse response = sqsClient.getQueueUrl(GetQueueUrlRequest.builder()
+                    .queueName(processingQueueName.trim())
+                    .build());
+            processingQueueUrl = response == null ? null : response.queueUrl();
+        } catch (Exception e) {
+            logger.warn("SQS getQueueUrl call failed for processing queue '{}': {}", processingQueueName, e.getMessage());
+            processingQueueUrl = null;
+        }
+        if (processingQueueUrl == null) {
+            logger.warn("SQS processing queue '{}' not available; documents are processed where they are uploaded",
+                    processingQueueName);
+        } else {
+            logger.info("SQS processing queue URL initialized: {}", processingQueueUrl);
+        }
+    }
+
+    boolean isQueueAvailable() {
         return queueUrl != null && !queueUrl.trim().isEmpty();
     }
 
+    boolean isProcessingQueueAvailable() {
+        return processingQueueUrl != null && !processingQueueUrl.trim().isEmpty();
+    }
+
+    /**
+     * Send the event messages still buffered before the application stops
+     */
+    @PreDestroy
+    void shutdown() {
+        if (batcher != null) {
+            batcher.close(batchShutdownTimeout);
+        }
+    }
+
     /**
      * Send document upload notification
      * @param document The uploaded document
@@ -100,6 +187,89 @@ public class SQSService {
         }
     }
 
+    /**
+     * Queue a document on the processing queue, for the processing queue workers. The message
+     * goes straight to SQS, never through the event batcher, so it is not dropped on overflow
+     * and is not lost with the buffer if the instance stops. It has the body of the
+     * DOCUMENT_UPLOADED event, which is still sent to the event queue on its own.
+     * @param document The uploaded document
+     * @throws RuntimeException if the processing queue is not available or the message could not be sent
+     */
+    public void sendDocumentForProcessing(Document document) {
+        if (!isProcessingQueueAvailable()) {
+            throw new IllegalStateException("SQS processing queue not available for document " + document.getDocumentId());
+        }
+        sendMessageNow(processingQueueUrl, createDocumentMessage(document, "DOCUMENT_UPLOADED"), "DocumentUploaded");
+
+        logger.info("Document uploaded message sent for processing: documentId={}", document.getDocumentId());
+    }
+
+    /**
+     * Queue several documents on the processing queue with SendMessageBatch, bypassing the
+     * event batcher
+     * @see #sendDocumentForProcessing(Document)
+     * @return The documents that could not be queued
+     */
+    public List<Document> sendDocumentsForProcessing(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (!isProcessingQueueAvailable()) {
+            logger.error("SQS processing queue not available; {} documents cannot be queued", documents.size());
+            return documents;
+        }
+        Map<String, Document> byId = new HashMap<>();
+        List<Map<String, Object>> messages = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            byId.put(document.getDocumentId(), document);
+            messages.add(createDocumentMessage(document, "DOCUMENT_UPLOADED"));
+        }
+        try {
+            List<Document> failed = sendMessages(processingQueueUrl, messages).stream()
+                    .map(message -> byId.get(message.get("documentId").toString()))
+                    .toList();
+
+            logger.info("Document uploaded messages sent for processing: count={}, failed={}",
+                    documents.size() - failed.size(), failed.size());
+            return failed;
+
+        } catch (Exception e) {
+            logger.error("Failed to send document uploaded messages: {}", e.getMessage(), e);
+            return documents;
+        }
+    }
+
+    /**
+     * Send upload notifications for several documents with SendMessageBatch, 10 per request
+     * @param documents The uploaded documents
+     */
+    public void sendDocumentUploadedMessages(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        if (!isQueueAvailable()) {
+            logger.debug("SQS queue not available; skipping {} document uploaded messages", documents.size());
+            return;
+        }
+        if (batcher != null) {
+            documents.forEach(document -> batcher.submit(createDocumentMessage(document, "DOCUMENT_UPLOADED")));
+            return;
+        }
+        try {
+            List<Map<String, Object>> messages = new ArrayList<>(documents.size());
+            for (Document document : documents) {
+                messages.add(createDocumentMessage(document, "DOCUMENT_UPLOADED"));
+            }
+            int failed = sendMessages(queueUrl, messages).size();
+
+            logger.info("Document uploaded messages sent: count={}, failed={}", documents.size() - failed, failed);
+
+        } catch (Exception e) {
+            logger.error("Failed to send document uploaded messages: {}", e.getMessage(), e);
+            // Don't throw exception here - we don't want to fail the upload if notification fails
+        }
+    }
+
     /**
      * Send document processing started notification
      * @param document The document being processed
@@ -157,12 +327,7 @@ public class SQSService {
      */
     public void sendDocumentDeletedMessage(String documentId, String fileName) {
         try {
-            Map<String, Object> message = new HashMap<>();
-            message.put("eventType", "DOCUMENT_DELETED");
-            message.put("documentId", documentId);
-            message.put("fileName", fileName);
-            message.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-
+            Map<String, Object> message = createDeletedMessage(documentId, fileName);
             sendMessage(message, "DocumentDeleted");
 
             logger.info("Document deleted message sent: documentId={}", documentId);
@@ -182,20 +347,44 @@ public class SQSService {
             logger.debug("SQS queue not available; returning empty message list");
             return Collections.emptyList();
         }
+        return receiveMessages(queueUrl, maxMessages, null, Duration.ofSeconds(10));
+    }
+
+    /**
+     * Long-poll the processing queue for documents to process
+     * @param maxMessages Maximum number of messages to receive (1-10)
+     * @param visibilityTimeout How long received messages stay hidden from other workers,
+     *                          or null for the queue default
+     * @param waitTime How long to wait for messages to arrive (at most 20 seconds)
+     * @return The received messages, with their receive counts; empty if none arrived or the call failed
+     */
+    public List<Message> receiveProcessingMessages(int maxMessages, Duration visibilityTimeout, Duration waitTime) {
+        if (!isProcessingQueueAvailable()) {
+            logger.debug("SQS processing queue not available; returning empty message list");
+            return Collections.emptyList();
+        }
+        return receiveMessages(processingQueueUrl, maxMessages, visibilityTimeout, waitTime);
+    }
+
+    private List<Message> receiveMessages(String fromQueueUrl, int maxMessages, Duration visibilityTimeout,
+                                          Duration waitTime) {
         try {
-            logger.info("Receiving up to {} messages from SQS queue", maxMessages);
+            logger.debug("Receiving up to {} messages from SQS queue", maxMessages);
 
-            ReceiveMessageRequest receiveMessageRequest = ReceiveMessageRequest.builder()
-                    .queueUrl(queueUrl)
+            ReceiveMessageRequest.Builder receiveMessageRequest = ReceiveMessageRequest.builder()
+                    .queueUrl(fromQueueUrl)
                     .maxNumberOfMessages(maxMessages)
-                    .waitTimeSeconds(10) // Long polling
-                    .messageAttributeNames("All")
-                    .build();
+                    .waitTimeSeconds((int) waitTime.toSeconds()) // Long polling
+                    .attributeNames(QueueAttributeName.ALL)
+                    .messageAttributeNames("All");
+            if (visibilityTimeout != null) {
+                receiveMessageRequest.visibilityTimeout((int) visibilityTimeout.toSeconds());
+            }
 
-            ReceiveMessageResponse response = sqsClient.receiveMessage(receiveMessageRequest);
+            ReceiveMessageResponse response = sqsClient.receiveMessage(receiveMessageRequest.build());
             List<Message> messages = response.messages();
 
-            logger.info("Received {} messages from SQS queue", messages.size());
+            logger.debug("Received {} messages from SQS queue", messages.size());
             return messages;
 
         } catch (Exception e) {
@@ -204,6 +393,41 @@ public class SQSService {
         }
     }
 
+    /**
+     * Keep processing queue messages hidden from other workers while they are still being
+     * worked on. Uses ChangeMessageVisibilityBatch, 10 messages per request.
+     * @param messages Messages currently held by this worker
+     * @param visibilityTimeout New visibility timeout, counted from now
+     */
+    public void extendProcessingVisibility(List<Message> messages, Duration visibilityTimeout) {
+        if (!isProcessingQueueAvailable() || messages.isEmpty()) {
+            return;
+        }
+        for (int start = 0; start < messages.size(); start += MAX_BATCH_ENTRIES) {
+            List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>();
+            for (int i = start; i < Math.min(start + MAX_BATCH_ENTRIES, messages.size()); i++) {
+                entries.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+                        .id(String.valueOf(i - start))
+                        .receiptHandle(messages.get(i).receiptHandle())
+                        .visibilityTimeout((int) visibilityTimeout.toSeconds())
+                        .build());
+            }
+            try {
+                ChangeMessageVisibilityBatchResponse response = sqsClient.changeMessageVisibilityBatch(
+                        ChangeMessageVisibilityBatchRequest.builder()
+                                .queueUrl(processingQueueUrl)
+                                .entries(entries)
+                                .build());
+                for (BatchResultErrorEntry error : response.failed()) {
+                    logger.warn("Failed to extend message visibility: id={}, code={}, message={}",
+                            error.id(), error.code(), error.message());
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to extend message visibility: {}", e.getMessage());
+            }
+        }
+    }
+
     /**
      * Delete a message from the queue after processing
      * @param message The message to delete
@@ -213,9 +437,25 @@ public class SQSService {
             logger.debug("SQS queue not available; deleteMessage is a no-op");
             return;
         }
+        deleteMessage(queueUrl, message);
+    }
+
+    /**
+     * Delete a processing queue message once its document's outcome is recorded
+     * @param message The message to delete
+     */
+    public void deleteProcessingMessage(Message message) {
+        if (!isProcessingQueueAvailable()) {
+            logger.debug("SQS processing queue not available; deleteProcessingMessage is a no-op");
+            return;
+        }
+        deleteMessage(processingQueueUrl, message);
+    }
+
+    private void deleteMessage(String fromQueueUrl, Message message) {
         try {
             DeleteMessageRequest deleteMessageRequest = DeleteMessageRequest.builder()
-                    .queueUrl(queueUrl)
+                    .queueUrl(fromQueueUrl)
                     .receiptHandle(message.receiptHandle())
                     .build();
 
@@ -258,7 +498,7 @@ public class SQSService {
     /**
      * Create a standard document message
      */
-    private Map<String, Object> createDocumentMessage(Document document, String eventType) {
+    Map<String, Object> createDocumentMessage(Document document, String eventType) {
         Map<String, Object> message = new HashMap<>();
         message.put("eventType", eventType);
         message.put("documentId", document.getDocumentId());
@@ -274,32 +514,91 @@ public class SQSService {
             message.put("processingNotes", document.getProcessingNotes());
         }
 
+        if (document.getPriority() != null) {
+            message.put("priority", document.getPriority().name());
+        }
+
+        if (document.getContentHash() != null) {
+            message.put("contentHash", document.getContentHash());
+        }
+
         return message;
     }
 
     /**
-     * Send a message to the SQS queue
+     * Create the deletion message for a document
      */
-    private void sendMessage(Map<String, Object> messageContent, String messageGroupId) {
-        try {
-            String messageBody = objectMapper.writeValueAsString(messageContent);
+    Map<String, Object> createDeletedMessage(String documentId, String fileName) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("eventType", "DOCUMENT_DELETED");
+        message.put("documentId", documentId);
+        message.put("fileName", fileName);
+        message.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        return message;
+    }
 
-            SendMessageRequest sendMessageRequest = SendMessageRequest.builder()
-                    .queueUrl(queueUrl)
-                    .messageBody(messageBody)
-                    .messageAttributes(Map.of(
-                            "EventType", MessageAttributeValue.builder()
-                                    .stringValue(messageContent.get("eventType").toString())
-                                    .dataType("String")
-                                    .build(),
-                            "DocumentId", MessageAttributeValue.builder()
-                                    .stringValue(messageContent.get("documentId").toString())
-                                    .dataType("String")
-                                    .build()
-                    ))
-                    .build();
+    /**
+     * Build the SendMessage request for a message; shared with {@link SQSAsyncService}
+     */
+    SendMessageRequest messageRequest(Map<String, Object> messageContent) throws JsonProcessingException {
+        return messageRequest(queueUrl, messageContent);
+    }
+
+    /**
+     * Build the SendMessage request that queues a document on the processing queue; shared with
+     * {@link SQSAsyncService}
+     */
+    SendMessageRequest processingMessageRequest(Document document) throws JsonProcessingException {
+        return messageRequest(processingQueueUrl, createDocumentMessage(document, "DOCUMENT_UPLOADED"));
+    }
 
-            SendMessageResponse response = sqsClient.sendMessage(sendMessageRequest);
+    private SendMessageRequest messageRequest(String toQueueUrl, Map<String, Object> messageContent)
+            throws JsonProcessingException {
+        return SendMessageRequest.builder()
+                .queueUrl(toQueueUrl)
+                .messageBody(objectMapper.writeValueAsString(messageContent))
+                .messageAttributes(messageAttributes(messageContent))
+                .build();
+    }
+
+    /**
+     * Hand a message to the event batcher, if batching is enabled
+     * @return true if the message was buffered, false if the caller has to send it
+     */
+    boolean buffer(Map<String, Object> messageContent) {
+        if (batcher == null) {
+            return false;
+        }
+        batcher.submit(messageContent);
+        return true;
+    }
+
+    /**
+     * Hand a message to the event batcher without ever blocking the calling thread
+     * @return true if the message was buffered or dropped, false if the caller has to send it
+     * @see SqsEventBatcher#offer(Map)
+     */
+    boolean offer(Map<String, Object> messageContent) {
+        return batcher != null && batcher.offer(messageContent);
+    }
+
+    /**
+     * Send a message to the SQS queue, through the event batcher when batching is enabled
+     */
+    private void sendMessage(Map<String, Object> messageContent, String messageGroupId) {
+        if (buffer(messageContent)) {
+            logger.debug("Message buffered for batch send: groupId={}", messageGroupId);
+            return;
+        }
+        sendMessageNow(queueUrl, messageContent, messageGroupId);
+    }
+
+    /**
+     * Send a message to the SQS queue with its own SendMessage call
+     */
+    private void sendMessageNow(String toQueueUrl, Map<String, Object> messageContent, String messageGroupId) {
+        try {
+            SendMessageResponse response = sqsClient.sendMessage(messageRequest(toQueueUrl, messageContent));
 
             logger.debug("Message sent to SQS: messageId={}, groupId={}", response.messageId(), messageGroupId);
 
@@ -311,4 +610,100 @@ public class SQSService {
             throw new RuntimeException("Failed to send message to SQS", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Send messages with SendMessageBatch in chunks of 10. Entries the batch call reports
+     * as failed are retried once.
+     * @return The messages that could not be sent
+     */
+    private List<Map<String, Object>> sendMessages(String toQueueUrl, List<Map<String, Object>> messages)
+            throws JsonProcessingException {
+        List<Map<String, Object>> failed = new ArrayList<>();
+        for (int start = 0; start < messages.size(); start += MAX_BATCH_ENTRIES) {
+            List<SendMessageBatchRequestEntry> entries = new ArrayList<>();
+            for (int i = start; i < Math.min(start + MAX_BATCH_ENTRIES, messages.size()); i++) {
+                entries.add(batchEntry(String.valueOf(i - start), messages.get(i)));
+            }
+
+            List<SendMessageBatchRequestEntry> pending = entries;
+            for (int attempt = 1; attempt <= 2 && !pending.isEmpty(); attempt++) {
+                pending = sendBatch(toQueueUrl, pending);
+            }
+            for (SendMessageBatchRequestEntry entry : pending) {
+                failed.add(messages.get(start + Integer.parseInt(entry.id())));
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Send up to 10 messages with one SendMessageBatch call, for the event batcher
+     * @return The messages SQS did not accept
+     */
+    private List<Map<String, Object>> sendBatchOnce(List<Map<String, Object>> messages) {
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                entries.add(batchEntry(String.valueOf(i), messages.get(i)));
+            } catch (JsonProcessingException e) {
+                logger.error("Failed to serialize message content: {}", e.getMessage(), e);
+            }
+        }
+        if (entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return sendBatch(queueUrl, entries).stream()
+                .map(entry -> messages.get(Integer.parseInt(entry.id())))
+                .toList();
+    }
+
+    private SendMessageBatchRequestEntry batchEntry(String id, Map<String, Object> messageContent)
+            throws JsonProcessingException {
+        return SendMessageBatchRequestEntry.builder()
+                .id(id)
+                .messageBody(objectMapper.writeValueAsString(messageContent))
+                .messageAttributes(messageAttributes(messageContent))
+                .build();
+    }
+
+    /**
+     * @return The entries SQS reported as failed
+     */
+    private List<SendMessageBatchRequestEntry> sendBatch(String toQueueUrl, List<SendMessageBatchRequestEntry> entries) {
+        try {
+            SendMessageBatchResponse response = sqsClient.sendMessageBatch(SendMessageBatchRequest.builder()
+                    .queueUrl(toQueueUrl)
+                    .entries(entries)
+                    .build());
+
+            if (response.failed().isEmpty()) {
+                logger.debug("Message batch sent to SQS: count={}", entries.size());
+                return Collections.emptyList();
+            }
+
+            Set<String> failedIds = new HashSet<>();
+            for (BatchResultErrorEntry error : response.failed()) {
+                logger.warn("SQS batch entry failed: id={}, code={}, message={}", error.id(), error.code(), error.message());
+                failedIds.add(error.id());
+            }
+            return entries.stream().filter(entry -> failedIds.contains(entry.id())).toList();
+
+        } catch (Exception e) {
+            logger.error("Failed to send message batch to SQS: {}", e.getMessage(), e);
+            return entries;
+        }
+    }
+
+    private static Map<String, MessageAttributeValue> messageAttributes(Map<String, Object> messageContent) {
+        return Map.of(
+                "EventType", MessageAttributeValue.builder()
+                        .stringValue(messageContent.get("eventType").toString())
+                        .dataType("String")
+                        .build(),
+                "DocumentId", MessageAttributeValue.builder()
+                        .stringValue(messageContent.get("documentId").toString())
+                        .dataType("String")
+                        .build()
+        );
+    }
+}
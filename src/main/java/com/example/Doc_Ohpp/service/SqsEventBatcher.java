@@ -0,0 +1,225 @@
+package com.example.Doc_Ohpp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers outgoing event messages and sends them with SendMessageBatch, up to 10 per call.
+ *
+ * Flusher threads take messages from a bounded buffer and send a batch as soon as it is full,
+ * or once its first message has waited for the linger time. Entries SQS rejects are retried
+ * with backoff; whatever is left after the last attempt is logged and dropped, as a failed
+ * single send always was. When the buffer is full the overflow policy decides between waiting,
+ * dropping the message or sending it on the caller's thread; {@link #offer} never does either,
+ * and leaves a message it cannot buffer to the caller. Closing sends what is buffered.
+ */
+final class SqsEventBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqsEventBatcher.class);
+
+    static final int MAX_BATCH_ENTRIES = 10;
+    private static final long IDLE_POLL_MILLIS = 200;
+
+    /**
+     * What {@link #submit} does when the buffer is full
+     */
+    enum OverflowPolicy {
+        /** Wait up to the block timeout for space, then drop the message */
+        BLOCK,
+        /** Drop the message right away */
+        DROP,
+        /** Send the message on the caller's thread */
+        SEND_DIRECT
+    }
+
+    /**
+     * Sends up to 10 messages in one call
+     */
+    @FunctionalInterface
+    interface BatchSender {
+        /**
+         * @return The messages that were not accepted
+         */
+        List<Map<String, Object>> send(List<Map<String, Object>> messages);
+    }
+
+    private final BatchSender sender;
+    private final BlockingQueue<Map<String, Object>> buffer;
+    private final long lingerNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration blockTimeout;
+    private final int maxAttempts;
+    private final List<Thread> flushers = new ArrayList<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed;
+
+    SqsEventBatcher(BatchSender sender, int capacity, Duration linger, OverflowPolicy overflowPolicy,
+                    Duration blockTimeout, int maxAttempts, int flusherCount) {
+        this.sender = sender;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.lingerNanos = linger.toNanos();
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeout = blockTimeout;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        for (int i = 0; i < Math.max(1, flusherCount); i++) {
+            flushers.add(Thread.ofVirtual().name("sqs-event-flusher-" + i).start(this::flushLoop));
+        }
+    }
+
+    /**
+     * Queue a message for the next batch
+     */
+    void submit(Map<String, Object> message) {
+        if (closed) {
+            sendWithRetry(List.of(message));
+            return;
+        }
+        if (buffer.offer(message)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    if (buffer.offer(message, blockTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                drop(message);
+            }
+            case DROP -> drop(message);
+            case SEND_DIRECT -> sendWithRetry(List.of(message));
+        }
+    }
+
+    /**
+     * Queue a message for the next batch without ever waiting or sending on the caller's thread,
+     * for callers on SDK completion threads. A full buffer drops the message, unless the policy
+     * is SEND_DIRECT.
+     * @return false if the caller has to send the message itself: the batcher is closed, or the
+     *         buffer is full and the policy is SEND_DIRECT
+     */
+    boolean offer(Map<String, Object> message) {
+        if (closed) {
+            return false;
+        }
+        if (buffer.offer(message)) {
+            return true;
+        }
+        if (overflowPolicy == OverflowPolicy.SEND_DIRECT) {
+            return false;
+        }
+        drop(message);
+        return true;
+    }
+
+    /**
+     * @return Messages dropped because the buffer was full
+     */
+    long droppedCount() {
+        return dropped.get();
+    }
+
+    int bufferedCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Stop accepting messages into the buffer and wait for the flushers to send what it holds
+     */
+    void close(Duration timeout) {
+        closed = true;
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            for (Thread flusher : flushers) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !flusher.join(Duration.ofNanos(remaining))) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushers.forEach(Thread::interrupt);
+        if (!buffer.isEmpty()) {
+            logger.error("Shutting down with {} event messages not sent", buffer.size());
+        }
+    }
+
+    private void flushLoop() {
+        List<Map<String, Object>> batch = new ArrayList<>(MAX_BATCH_ENTRIES);
+        try {
+            while (true) {
+                Map<String, Object> first = buffer.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+
+                // Fill the batch with what is buffered, then wait for more until the linger time is up,
+                // or until close() asks for everything to be sent
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < MAX_BATCH_ENTRIES) {
+                    buffer.drainTo(batch, MAX_BATCH_ENTRIES - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= MAX_BATCH_ENTRIES || remaining <= 0 || closed) {
+                        break;
+                    }
+                    Map<String, Object> next = buffer.poll(
+                            Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(IDLE_POLL_MILLIS)), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+
+                sendWithRetry(List.copyOf(batch));
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sendWithRetry(List<Map<String, Object>> messages) {
+        List<Map<String, Object>> pending = messages;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                pending = sender.send(pending);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to send event batch (attempt {}): {}", attempt, e.getMessage());
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            if (attempt >= maxAttempts) {
+                break;
+            }
+            try {
+                Thread.sleep(100L << (attempt - 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        logger.error("Dropping {} event messages that could not be sent after {} attempts", pending.size(), maxAttempts);
+    }
+
+    private void drop(Map<String, Object> message) {
+        long count = dropped.incrementAndGet();
+        logger.warn("Event buffer full, dropping {} message: documentId={}, dropped so far={}",
+                message.get("eventType"), message.get("documentId"), count);
+    }
+}
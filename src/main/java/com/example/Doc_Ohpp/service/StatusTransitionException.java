@@ -0,0 +1,38 @@
+package com.example.Doc_Ohpp.service;
+
+import com.example.Doc_Ohpp.model.Document;
+
+/**
+ * Thrown when a conditional status update is rejected because the document is no longer in
+ * the expected status (a duplicate or out-of-order transition) or no longer exists.
+ */
+public class StatusTransitionException extends RuntimeException {
+
+    private final String documentId;
+    private final Document.ProcessingStatus expectedStatus;
+    private final Document.ProcessingStatus actualStatus;
+
+    public StatusTransitionException(String documentId, Document.ProcessingStatus expectedStatus,
+                                     Document.ProcessingStatus actualStatus) {
+        super("Document " + documentId + " is " + (actualStatus != null ? actualStatus : "missing")
+                + ", expected " + expectedStatus);
+        this.documentId = documentId;
+        this.expectedStatus = expectedStatus;
+        this.actualStatus = actualStatus;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public Document.ProcessingStatus getExpectedStatus() {
+        return expectedStatus;
+    }
+
+    /**
+     * @return The status the document actually had, or null if it does not exist
+     */
+    public Document.ProcessingStatus getActualStatus() {
+        return actualStatus;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.Doc_Ohpp.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The stages a single upload goes through, each on its own {@link UploadStage}: storing the
+ * content (validate, hash, S3), persisting the metadata (DynamoDB), announcing the upload (SQS)
+ * and dispatching processing.
+ *
+ * A slow downstream fills only its own stage's queue, and uploads are turned away at the door
+ * as soon as any stage is saturated rather than piling up behind it. Each stage is configured
+ * with {@code document.upload.stages.<stage>.concurrency} and {@code .queue-capacity}.
+ */
+@Component
+public class UploadPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadPipeline.class);
+
+    public enum Stage {
+        STORE(32, 256),
+        PERSIST(32, 256),
+        NOTIFY(16, 1000),
+        DISPATCH(8, 1000);
+
+        private final int defaultConcurrency;
+        private final int defaultQueueCapacity;
+
+        Stage(int defaultConcurrency, int defaultQueueCapacity) {
+            this.defaultConcurrency = defaultConcurrency;
+            this.defaultQueueCapacity = defaultQueueCapacity;
+        }
+
+        /**
+         * @return Name of the stage in configuration and metrics
+         */
+        public String key() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final Map<Stage, UploadStage> stages = new EnumMap<>(Stage.class);
+
+    @Autowired
+    public UploadPipeline(MeterRegistry meterRegistry, Environment environment) {
+        this(meterRegistry, stage -> {
+            String prefix = "document.upload.stages." + stage.key();
+            int concurrency = environment.getProperty(prefix + ".concurrency", Integer.class, stage.defaultConcurrency);
+            int queueCapacity = environment.getProperty(prefix + ".queue-capacity", Integer.class, stage.defaultQueueCapacity);
+            Duration keepAlive = environment.getProperty("document.upload.stages.keep-alive", Duration.class, Duration.ofSeconds(60));
+
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency,
+                    keepAlive.toMillis(), TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    Thread.ofVirtual().name("upload-" + stage.key() + "-", 0).factory(),
+                    new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            new ExecutorServiceMetrics(executor, "uploadStage", Tags.of("stage", stage.key())).bindTo(meterRegistry);
+            return executor;
+        });
+    }
+
+    /**
+     * @param executors The executor each stage runs on
+     */
+    UploadPipeline(MeterRegistry meterRegistry, Function<Stage, Executor> executors) {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new UploadStage(stage.key(), executors.apply(stage), meterRegistry));
+        }
+    }
+
+    /**
+     * Run work on a stage and wait for it. The work joins the caller's X-Ray trace.
+     * @return The work's result
+     * @throws RejectedExecutionException if the stage is saturated
+     * @throws Exception whatever the work threw
+     */
+    public <T> T await(Stage stage, Callable<T> work) throws Exception {
+        try {
+            return stages.get(stage).submit(work, true).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for upload stage " + stage.key(), e);
+        }
+    }
+
+    /**
+     * Run work on a stage without waiting for it. Failures are logged. If the stage is
+     * saturated the caller runs the work itself, which slows the caller down but never drops
+     * work whose upload was already accepted.
+     * @return Completes when the work is done, successfully or not
+     */
+    public CompletableFuture<Void> background(Stage stage, Runnable work) {
+        CompletableFuture<Object> outcome;
+        try {
+            outcome = stages.get(stage).submit(() -> {
+                work.run();
+                return null;
+            }, false);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Upload stage {} saturated, running work on the caller", stage.key());
+            outcome = new CompletableFuture<>();
+            try {
+                work.run();
+                outcome.complete(null);
+            } catch (RuntimeException failure) {
+                outcome.completeExceptionally(failure);
+            }
+        }
+        return outcome.handle((ignored, error) -> {
+            if (error != null) {
+                logger.warn("Upload stage {} failed: {}", stage.key(), error.getMessage());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return The first stage that would reject new work, or null if every stage has room
+     */
+    public Stage saturatedStage() {
+        for (Map.Entry<Stage, UploadStage> stage : stages.entrySet()) {
+            if (stage.getValue().isSaturated()) {
+                return stage.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Load and latency of every stage, in pipeline order
+     */
+    public List<UploadStage.Stats> stats() {
+        return stages.values().stream().map(UploadStage::stats).toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stages.values().forEach(UploadStage::shutdown);
+    }
+}
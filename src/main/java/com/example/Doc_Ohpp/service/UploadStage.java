@@ -0,0 +1,129 @@
+package com.example.Doc_Ohpp.service;
+
+import com.amazonaws.xray.AWSXRay;
+import com.amazonaws.xray.entities.Entity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One stage of the {@link UploadPipeline}: an executor with bounded concurrency and a bounded
+ * queue in front of it. Every task is timed twice, for the time it waited in the queue and for
+ * the time it ran, so comparing stages shows where uploads spend their time.
+ */
+public class UploadStage {
+
+    private final String name;
+    private final Executor executor;
+    private final Timer duration;
+    private final Timer queueWait;
+    private final Counter rejections;
+
+    UploadStage(String name, Executor executor, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.executor = executor;
+        this.duration = Timer.builder("upload.stage.duration")
+                .description("Time an upload spends running in a stage")
+                .tag("stage", name)
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("upload.stage.wait")
+                .description("Time an upload waits in a stage's queue")
+                .tag("stage", name)
+                .register(meterRegistry);
+        this.rejections = Counter.builder("upload.stage.rejected")
+                .description("Uploads turned away because the stage was saturated")
+                .tag("stage", name)
+                .register(meterRegistry);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Queue work on this stage
+     * @param traced Whether the work joins the caller's X-Ray trace; only for work the caller
+     *               waits for, since the trace ends with the request
+     * @return Completes with the work's result or failure
+     * @throws RejectedExecutionException if the stage's queue is full
+     */
+    <T> CompletableFuture<T> submit(Callable<T> work, boolean traced) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Entity traceEntity = traced ? AWSXRay.getTraceEntity() : null;
+        long submittedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                if (traceEntity != null) {
+                    AWSXRay.setTraceEntity(traceEntity);
+                }
+                try {
+                    result.complete(work.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    duration.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                    if (traceEntity != null) {
+                        AWSXRay.clearTraceEntity();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new RejectedExecutionException("Upload stage " + name + " is at capacity", e);
+        }
+        return result;
+    }
+
+    /**
+     * @return Whether every worker is busy and the queue is full, so new work would be rejected
+     */
+    boolean isSaturated() {
+        return executor instanceof ThreadPoolExecutor pool
+                && pool.getActiveCount() >= pool.getMaximumPoolSize()
+                && pool.getQueue().remainingCapacity() == 0;
+    }
+
+    public Stats stats() {
+        int concurrency = 0;
+        int active = 0;
+        int queued = 0;
+        int queueCapacity = 0;
+        if (executor instanceof ThreadPoolExecutor pool) {
+            concurrency = pool.getMaximumPoolSize();
+            active = pool.getActiveCount();
+            queued = pool.getQueue().size();
+            queueCapacity = queued + pool.getQueue().remainingCapacity();
+        }
+        return new Stats(name, concurrency, active, queued, queueCapacity, duration.count(),
+                (long) rejections.count(), duration.mean(TimeUnit.MILLISECONDS),
+                duration.max(TimeUnit.MILLISECONDS), queueWait.mean(TimeUnit.MILLISECONDS));
+    }
+
+    void shutdown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Load and latency of a stage. A stage whose queue stays full, or whose wait time grows
+     * while the others' do not, is the bottleneck.
+     * @param completed Tasks run since startup
+     * @param meanMillis Mean run time; maxMillis is the longest of the recent past
+     * @param meanWaitMillis Mean time tasks waited in the queue
+     */
+    public record Stats(String stage, int concurrency, int active, int queued, int queueCapacity,
+                        long completed, long rejected, double meanMillis, double maxMillis,
+                        double meanWaitMillis) {
+    }
+}
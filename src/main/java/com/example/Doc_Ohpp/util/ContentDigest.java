@@ -0,0 +1,51 @@
+package com.example.Doc_Ohpp.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 digest and size of a piece of content, computed in a single streaming pass.
+ */
+public record ContentDigest(String sha256, long size) {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Hash the stream to its end.
+     * @throws SizeLimitedInputStream.SizeLimitExceededException as soon as more than maxBytes have been read
+     */
+    public static ContentDigest compute(InputStream content, long maxBytes) throws IOException {
+        return copy(content, OutputStream.nullOutputStream(), maxBytes);
+    }
+
+    /**
+     * Copy the stream into the sink while hashing it, e.g. to spool a request body to disk.
+     * @throws SizeLimitedInputStream.SizeLimitExceededException as soon as more than maxBytes have been read
+     */
+    public static ContentDigest copy(InputStream content, OutputStream sink, long maxBytes) throws IOException {
+        SizeLimitedInputStream limited = new SizeLimitedInputStream(content, maxBytes);
+        DigestInputStream digesting = new DigestInputStream(limited, sha256Digest());
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = digesting.read(buffer)) != -1) {
+            sink.write(buffer, 0, read);
+        }
+
+        String hash = HexFormat.of().formatHex(digesting.getMessageDigest().digest());
+        return new ContentDigest(hash, limited.getBytesRead());
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
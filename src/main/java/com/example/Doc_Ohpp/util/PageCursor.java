@@ -0,0 +1,80 @@
+package com.example.Doc_Ohpp.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opaque continuation tokens for paged DynamoDB reads.
+ *
+ * A cursor is the LastEvaluatedKey of the previous page, serialized as JSON and URL-safe
+ * base64 encoded. Key attributes are always strings or numbers, so only those two types are
+ * supported.
+ */
+public final class PageCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Map<String, String>>> CURSOR_TYPE = new TypeReference<>() {};
+
+    private PageCursor() {
+    }
+
+    /**
+     * @param lastEvaluatedKey The key returned with a page, may be null or empty
+     * @return The cursor, or null when there are no more pages
+     */
+    public static String encode(Map<String, AttributeValue> lastEvaluatedKey) {
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            return null;
+        }
+        Map<String, Map<String, String>> key = new HashMap<>();
+        lastEvaluatedKey.forEach((name, value) -> {
+            if (value.s() != null) {
+                key.put(name, Map.of("S", value.s()));
+            } else if (value.n() != null) {
+                key.put(name, Map.of("N", value.n()));
+            } else {
+                throw new IllegalStateException("Unsupported key attribute type for " + name);
+            }
+        });
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(key));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode page cursor", e);
+        }
+    }
+
+    /**
+     * @param cursor A cursor previously returned by {@link #encode}, may be null or blank
+     * @return The ExclusiveStartKey for the next page, or null to start from the beginning
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static Map<String, AttributeValue> decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            Map<String, Map<String, String>> key =
+                    MAPPER.readValue(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8), CURSOR_TYPE);
+            Map<String, AttributeValue> startKey = new HashMap<>();
+            key.forEach((name, typed) -> {
+                if (typed.containsKey("S")) {
+                    startKey.put(name, AttributeValue.builder().s(typed.get("S")).build());
+                } else if (typed.containsKey("N")) {
+                    startKey.put(name, AttributeValue.builder().n(typed.get("N")).build());
+                } else {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+            });
+            return startKey;
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
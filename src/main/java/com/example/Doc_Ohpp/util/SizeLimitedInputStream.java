@@ -0,0 +1,104 @@
+package com.example.Doc_Ohpp.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream wrapper that counts the bytes flowing through it and fails as soon as
+ * more than {@code maxBytes} have been read, instead of after the whole body has been consumed.
+ */
+public class SizeLimitedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long bytesRead;
+    private long markedBytesRead;
+
+    public SizeLimitedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            count(skipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        super.mark(readLimit);
+        markedBytesRead = bytesRead;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        super.reset();
+        bytesRead = markedBytesRead;
+    }
+
+    /**
+     * @return Number of bytes read so far
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    private void count(long n) throws SizeLimitExceededException {
+        bytesRead += n;
+        if (bytesRead > maxBytes) {
+            throw new SizeLimitExceededException(maxBytes);
+        }
+    }
+
+    /**
+     * Raised from inside the read call that pushed the byte count over the limit.
+     */
+    public static class SizeLimitExceededException extends IOException {
+
+        private final long maxBytes;
+
+        public SizeLimitExceededException(long maxBytes) {
+            super("Stream exceeded maximum size of " + maxBytes + " bytes");
+            this.maxBytes = maxBytes;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        /**
+         * Find a size limit violation anywhere in a cause chain; AWS SDK calls wrap
+         * stream failures in their own exceptions.
+         */
+        public static SizeLimitExceededException findIn(Throwable throwable) {
+            for (Throwable t = throwable; t != null; t = t.getCause()) {
+                if (t instanceof SizeLimitExceededException limitExceeded) {
+                    return limitExceeded;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.Doc_Ohpp.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writer that keeps text in memory up to {@code inlineLimit} characters and moves it to a
+ * temporary UTF-8 file as soon as it grows past that, so memory stays bounded however much text
+ * is written. Closing the writer deletes the file. Writing past {@code maxLength} characters
+ * fails, so a document that expands into endless text cannot fill the disk.
+ */
+public class SpillingTextWriter extends Writer {
+
+    private final int inlineLimit;
+    private final long maxLength;
+    private final StringBuilder inline = new StringBuilder();
+    private Path spillFile;
+    private Writer spill;
+    private long length;
+    private boolean closed;
+
+    public SpillingTextWriter(int inlineLimit) {
+        this(inlineLimit, Long.MAX_VALUE);
+    }
+
+    public SpillingTextWriter(int inlineLimit, long maxLength) {
+        this.inlineLimit = inlineLimit;
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Writer closed");
+        }
+        if (length + len > maxLength) {
+            throw new IOException("Extracted text exceeds maximum length of " + maxLength + " characters");
+        }
+        if (spill == null && inline.length() + len > inlineLimit) {
+            spillFile = Files.createTempFile("docohpp-text-", ".txt");
+            spill = new BufferedWriter(Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8));
+            spill.append(inline);
+            inline.setLength(0);
+        }
+        if (spill != null) {
+            spill.write(cbuf, off, len);
+        } else {
+            inline.append(cbuf, off, len);
+        }
+        length += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (spill != null) {
+            spill.flush();
+        }
+    }
+
+    /**
+     * @return Characters written so far
+     */
+    public long length() {
+        return length;
+    }
+
+    public boolean isSpilled() {
+        return spill != null;
+    }
+
+    /**
+     * @return The text, if it is still held in memory
+     * @throws IllegalStateException if the text was moved to a file
+     */
+    public String inlineText() {
+        if (spill != null) {
+            throw new IllegalStateException("Text was spilled to " + spillFile);
+        }
+        return inline.toString();
+    }
+
+    /**
+     * @return The UTF-8 file holding the text, flushed; only valid once spilled and until closed
+     */
+    public Path spillFile() throws IOException {
+        if (spill == null) {
+            throw new IllegalStateException("Text is held in memory");
+        }
+        spill.flush();
+        return spillFile;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (spill != null) {
+            try {
+                spill.close();
+            } finally {
+                Files.deleteIfExists(spillFile);
+            }
+        }
+    }
+}
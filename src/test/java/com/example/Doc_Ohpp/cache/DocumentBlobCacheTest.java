@@ -0,0 +1,152 @@
+package com.example.Doc_Ohpp.cache;
+
+import com.example.Doc_Ohpp.service.DocumentContent;
+import com.example.Doc_Ohpp.service.S3Service;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentBlobCacheTest {
+
+    @Mock
+    private S3Service s3Service;
+
+    @TempDir
+    Path cacheDirectory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DocumentBlobCache blobCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        blobCache = new DocumentBlobCache(s3Service, meterRegistry, true, cacheDirectory.toString(),
+                DataSize.ofBytes(100), DataSize.ofBytes(60));
+    }
+
+    @AfterEach
+    void tearDown() {
+        blobCache.shutdown();
+    }
+
+    @Test
+    void get_ShouldDownloadOnce_WhenSameKeyIsRequestedConcurrently() throws Exception {
+        // Given
+        CountDownLatch downloadStarted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            downloadStarted.countDown();
+            Thread.sleep(100);
+            Files.writeString(invocation.getArgument(1), "cached content");
+            return null;
+        }).when(s3Service).downloadToFile(eq("blobs/a"), any(Path.class));
+
+        // When
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<DocumentBlobCache.CachedBlob>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(callers.submit(() -> blobCache.get("blobs/a", 14)));
+        }
+        downloadStarted.await();
+        callers.shutdown();
+
+        // Then
+        DocumentBlobCache.CachedBlob first = results.get(0).get();
+        for (Future<DocumentBlobCache.CachedBlob> result : results) {
+            assertSame(first, result.get());
+        }
+        verify(s3Service, times(1)).downloadToFile(eq("blobs/a"), any(Path.class));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void open_ShouldServeRequestedRange_FromCachedFile() throws Exception {
+        // Given
+        doAnswer(invocation -> Files.writeString(invocation.getArgument(1), "0123456789"))
+                .when(s3Service).downloadToFile(eq("blobs/a"), any(Path.class));
+        DocumentBlobCache.CachedBlob blob = blobCache.get("blobs/a", 10);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        try (DocumentContent content = blob.open(2, 5)) {
+            content.transferTo(out);
+        }
+
+        // Then
+        assertEquals("2345", out.toString());
+    }
+
+    @Test
+    void get_ShouldBypassCache_WhenObjectExceedsEntryLimit() {
+        // When
+        DocumentBlobCache.CachedBlob blob = blobCache.get("blobs/huge", 61);
+
+        // Then
+        assertNull(blob);
+        verify(s3Service, never()).downloadToFile(anyString(), any(Path.class));
+    }
+
+    @Test
+    void invalidate_ShouldDeleteCachedFile() throws Exception {
+        // Given
+        doAnswer(invocation -> Files.writeString(invocation.getArgument(1), "content"))
+                .when(s3Service).downloadToFile(eq("blobs/a"), any(Path.class));
+        DocumentBlobCache.CachedBlob blob = blobCache.get("blobs/a", 7);
+
+        // When
+        blobCache.invalidate("blobs/a");
+
+        // Then: removal listeners run asynchronously
+        for (int i = 0; i < 50 && Files.exists(blob.file()); i++) {
+            Thread.sleep(20);
+        }
+        assertFalse(Files.exists(blob.file()));
+        assertNull(blobCache.getIfPresent("blobs/a"));
+    }
+
+    @Test
+    void get_ShouldEvictEntries_WhenSizeBudgetIsExceeded() throws Exception {
+        // Given
+        doAnswer(invocation -> Files.write(invocation.getArgument(1), new byte[40]))
+                .when(s3Service).downloadToFile(anyString(), any(Path.class));
+
+        // When: three 40 byte entries against a 100 byte budget
+        blobCache.get("blobs/a", 40);
+        blobCache.get("blobs/b", 40);
+        blobCache.get("blobs/c", 40);
+
+        // Then
+        long cachedFiles = 0;
+        for (int i = 0; i < 50; i++) {
+            try (var files = Files.list(cacheDirectory)) {
+                cachedFiles = files.count();
+            }
+            if (cachedFiles <= 2) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+        assertTrue(cachedFiles <= 2);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.Doc_Ohpp.processor;
+
+import com.example.Doc_Ohpp.model.Document;
+import com.example.Doc_Ohpp.model.DocumentMetadata;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocxDocumentProcessorTest {
+
+    static final String W = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    private final DocxDocumentProcessor processor = new DocxDocumentProcessor();
+
+    @Test
+    void process_ShouldExtractRunsTabsAndPageBreaks() throws IOException {
+        // Given: a tab stop definition in the paragraph properties is not text
+        String body = "<w:p><w:pPr><w:tabs><w:tab w:val=\"left\" w:pos=\"720\"/></w:tabs></w:pPr>"
+                + "<w:r><w:t>The first</w:t></w:r><w:r><w:tab/><w:t xml:space=\"preserve\"> part of the text</w:t></w:r></w:p>"
+                + "<w:p><w:r><w:br w:type=\"page\"/><w:t>Second &amp; last</w:t></w:r></w:p>";
+        Map<String, String> parts = new LinkedHashMap<>();
+        parts.put("word/document.xml", documentXml(body));
+        parts.put("docProps/app.xml", "<Properties><Pages>3</Pages></Properties>");
+        StringWriter text = new StringWriter();
+
+        // When
+        DocumentMetadata metadata = processor.process(document(), new ByteArrayInputStream(docx(parts)), text);
+
+        // Then
+        assertEquals("The first\t part of the text\n\fSecond & last\n", text.toString());
+        assertEquals(3, metadata.getPageCount());
+        assertEquals("en", metadata.getLanguage());
+        assertEquals(DocxDocumentProcessor.ENGINE, metadata.getProcessingEngine());
+        assertEquals(8L, metadata.getMetadata().get("wordCount"));
+        assertEquals(2L, metadata.getMetadata().get("paragraphCount"));
+    }
+
+    @Test
+    void process_ShouldCountPageBreaks_WhenPageCountIsNotRecorded() throws IOException {
+        // Given
+        String body = "<w:p><w:r><w:t>One</w:t></w:r></w:p>"
+                + "<w:p><w:r><w:lastRenderedPageBreak/><w:t>Two</w:t></w:r></w:p>"
+                + "<w:p><w:r><w:lastRenderedPageBreak/><w:t>Three</w:t></w:r></w:p>";
+
+        // When
+        DocumentMetadata metadata = processor.process(document(),
+                new ByteArrayInputStream(docx(Map.of("word/document.xml", documentXml(body)))), new StringWriter());
+
+        // Then
+        assertEquals(3, metadata.getPageCount());
+    }
+
+    @Test
+    void process_ShouldRefuseExternalEntities() throws IOException {
+        // Given
+        String xml = "<?xml version=\"1.0\"?><!DOCTYPE w:document [<!ENTITY xxe SYSTEM \"file:///etc/hostname\">]>"
+                + "<w:document xmlns:w=\"" + W + "\"><w:body><w:p><w:r><w:t>&xxe;</w:t></w:r></w:p></w:body></w:document>";
+        byte[] content = docx(Map.of("word/document.xml", xml));
+
+        // When & Then
+        assertThrows(IOException.class,
+                () -> processor.process(document(), new ByteArrayInputStream(content), new StringWriter()));
+    }
+
+    @Test
+    void process_ShouldFail_WhenPackageHasNoMainDocument() throws IOException {
+        // Given
+        byte[] content = docx(Map.of("xl/workbook.xml", "<workbook/>"));
+
+        // When & Then
+        assertThrows(IOException.class,
+                () -> processor.process(document(), new ByteArrayInputStream(content), new StringWriter()));
+    }
+
+    @Test
+    void process_ShouldFail_WhenMainDocumentInflatesPastMaxPartSize() throws IOException {
+        // Given: a small package whose document.xml inflates to about a megabyte
+        String body = "<w:p><w:r><w:t>" + "a".repeat(1024 * 1024) + "</w:t></w:r></w:p>";
+        byte[] content = docx(Map.of("word/document.xml", documentXml(body)));
+        ReflectionTestUtils.setField(processor, "maxPartSize", DataSize.ofKilobytes(64));
+        StringWriter text = new StringWriter();
+
+        // When
+        IOException e = assertThrows(IOException.class,
+                () -> processor.process(document(), new ByteArrayInputStream(content), text));
+
+        // Then
+        assertTrue(content.length < 64 * 1024);
+        assertTrue(e.getMessage().contains("inflates past"), e.getMessage());
+        assertTrue(text.getBuffer().length() <= 64 * 1024);
+    }
+
+    static String documentXml(String body) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<w:document xmlns:w=\"" + W + "\"><w:body>" + body + "</w:body></w:document>";
+    }
+
+    static byte[] docx(Map<String, String> parts) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (Map.Entry<String, String> part : parts.entrySet()) {
+                zip.putNextEntry(new ZipEntry(part.getKey()));
+                zip.write(part.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static Document document() {
+        Document document = new Document("test.docx", DocxDocumentProcessor.CONTENT_TYPE, 0, "test-bucket", "blobs/abc/gen");
+        document.setDocumentId("test-id");
+        return document;
+    }
+}
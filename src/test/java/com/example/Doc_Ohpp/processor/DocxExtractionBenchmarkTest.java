@@ -0,0 +1,111 @@
+package com.example.Doc_Ohpp.processor;
+
+import com.example.Doc_Ohpp.model.Document;
+import com.example.Doc_Ohpp.model.DocumentMetadata;
+import com.example.Doc_Ohpp.util.SpillingTextWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Extraction throughput and peak heap on synthetic DOCX files of growing size. Peak heap should
+ * stay roughly flat as the documents grow, since neither the package nor the text is buffered.
+ *
+ * Not part of the regular build; run with
+ * {@code mvn test -Dtest=DocxExtractionBenchmarkTest -Dbenchmark=true}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DocxExtractionBenchmarkTest {
+
+    private static final int[] PARAGRAPHS = {10_000, 100_000, 1_000_000};
+    private static final String SENTENCE = "The quick brown fox jumps over the lazy dog and keeps running into the night. ";
+
+    private final DocxDocumentProcessor processor = new DocxDocumentProcessor();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void measureExtractionThroughput() throws IOException {
+        // Warm up
+        extract(writeDocx(PARAGRAPHS[0]), PARAGRAPHS[0]);
+
+        for (int paragraphs : PARAGRAPHS) {
+            Path file = writeDocx(paragraphs);
+            System.gc();
+            resetPeakHeap();
+
+            long start = System.nanoTime();
+            DocumentMetadata metadata = extract(file, paragraphs);
+            long nanos = System.nanoTime() - start;
+
+            double megabytes = metadata.getExtractedTextLength() / (1024.0 * 1024.0);
+            System.out.printf("%,d paragraphs (%,d KB docx, %.1f MB text): %d ms, %.1f MB/s text, peak heap %d MB%n",
+                    paragraphs, Files.size(file) / 1024, megabytes, nanos / 1_000_000,
+                    megabytes * 1e9 / nanos, peakHeap() / (1024 * 1024));
+        }
+    }
+
+    private DocumentMetadata extract(Path file, int paragraphs) throws IOException {
+        Document document = new Document("benchmark.docx", DocxDocumentProcessor.CONTENT_TYPE,
+                Files.size(file), "benchmark-bucket", "benchmark-key");
+        document.setDocumentId("benchmark");
+        try (InputStream content = Files.newInputStream(file);
+             SpillingTextWriter text = new SpillingTextWriter(32768)) {
+            DocumentMetadata metadata = processor.process(document, content, text);
+            metadata.setExtractedTextLength(text.length());
+            assertEquals((long) paragraphs, metadata.getMetadata().get("paragraphCount"));
+            return metadata;
+        }
+    }
+
+    private Path writeDocx(int paragraphs) throws IOException {
+        Path file = directory.resolve("synthetic-" + paragraphs + ".docx");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            zip.putNextEntry(new ZipEntry("word/document.xml"));
+            OutputStream out = zip;
+            out.write(("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><w:document xmlns:w=\""
+                    + DocxDocumentProcessorTest.W + "\"><w:body>").getBytes(StandardCharsets.UTF_8));
+            byte[] paragraph = ("<w:p><w:r><w:t>" + SENTENCE + "</w:t></w:r><w:r><w:tab/><w:t>" + SENTENCE
+                    + "</w:t></w:r></w:p>").getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < paragraphs; i++) {
+                out.write(paragraph);
+            }
+            out.write("</w:body></w:document>".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        return file;
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.Doc_Ohpp.processor;
+
+import com.example.Doc_Ohpp.model.Document;
+import com.example.Doc_Ohpp.model.DocumentMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextDocumentProcessorTest {
+
+    private final TextDocumentProcessor processor = new TextDocumentProcessor();
+
+    @Test
+    void process_ShouldCopyTextAndCountIt() throws IOException {
+        // Given
+        String content = "The quick brown fox\nand the lazy dog\fof the second page";
+        StringWriter text = new StringWriter();
+
+        // When
+        DocumentMetadata metadata = processor.process(document("text/plain"),
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), text);
+
+        // Then
+        assertEquals(content, text.toString());
+        assertEquals(2, metadata.getPageCount());
+        assertEquals("en", metadata.getLanguage());
+        assertEquals(TextDocumentProcessor.ENGINE, metadata.getProcessingEngine());
+        assertEquals((long) content.length(), metadata.getMetadata().get("characterCount"));
+        assertEquals(12L, metadata.getMetadata().get("wordCount"));
+        assertEquals(2L, metadata.getMetadata().get("lineCount"));
+    }
+
+    @Test
+    void process_ShouldDecodeWithCharsetOfContentType() throws IOException {
+        // Given
+        StringWriter text = new StringWriter();
+
+        // When
+        DocumentMetadata metadata = processor.process(document("text/plain; charset=ISO-8859-1"),
+                new ByteArrayInputStream("Grüße".getBytes(StandardCharsets.ISO_8859_1)), text);
+
+        // Then
+        assertEquals("Grüße", text.toString());
+        assertEquals("ISO-8859-1", metadata.getMetadata().get("charset"));
+        assertNull(metadata.getLanguage());
+    }
+
+    @Test
+    void supports_ShouldAcceptOnlyText() {
+        assertTrue(processor.supports("text/csv"));
+        assertFalse(processor.supports("application/pdf"));
+        assertFalse(processor.supports(null));
+    }
+
+    private static Document document(String contentType) {
+        Document document = new Document("test.txt", contentType, 0, "test-bucket", "blobs/abc/gen");
+        document.setDocumentId("test-id");
+        return document;
+    }
+}
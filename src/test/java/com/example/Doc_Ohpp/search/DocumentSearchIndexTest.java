@@ -0,0 +1,116 @@
+package com.example.Doc_Ohpp.search;
+
+import com.example.Doc_Ohpp.model.SearchHit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentSearchIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void search_ShouldRankDocumentsByRelevance() throws IOException {
+        // Given
+        DocumentSearchIndex index = new DocumentSearchIndex("");
+        index.index("invoice", new StringReader("Invoice for services. Invoice total due in thirty days."));
+        index.index("contract", new StringReader("Service contract between the parties, including the invoice schedule."));
+        index.index("letter", new StringReader("A short letter about the weather."));
+
+        // When
+        List<SearchHit> hits = index.search("INVOICE due", 10);
+
+        // Then
+        assertEquals(List.of("invoice", "contract"), documentIds(hits));
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+    }
+
+    @Test
+    void search_ShouldSkipRemovedAndReplacedDocuments() throws IOException {
+        // Given
+        DocumentSearchIndex index = new DocumentSearchIndex("");
+        index.index("a", new StringReader("quarterly report"));
+        index.index("b", new StringReader("quarterly report draft"));
+        index.index("a", new StringReader("meeting notes"));
+
+        // When
+        index.remove("b");
+
+        // Then
+        assertTrue(index.search("quarterly", 10).isEmpty());
+        assertEquals("a", index.search("notes", 10).get(0).documentId());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void compact_ShouldKeepResults() throws IOException {
+        // Given
+        DocumentSearchIndex index = new DocumentSearchIndex("");
+        for (int i = 0; i < 10; i++) {
+            index.index("doc-" + i, new StringReader("common term " + (i % 2 == 0 ? "even" : "odd")));
+        }
+        for (int i = 0; i < 10; i += 3) {
+            index.remove("doc-" + i);
+        }
+        List<String> before = documentIds(index.search("even common", 10));
+
+        // When
+        index.compact();
+
+        // Then: scores shift slightly, since tombstones no longer count towards term frequencies
+        assertEquals(before, documentIds(index.search("even common", 10)));
+        assertEquals(6, index.size());
+    }
+
+    @Test
+    void index_ShouldCompact_WhenReplacedDocumentsPileUp() throws IOException {
+        // Given
+        DocumentSearchIndex index = new DocumentSearchIndex("");
+        index.index("stable", new StringReader("archived contract"));
+
+        // When: one document is re-indexed over and over, never removed
+        for (int i = 0; i < 1100; i++) {
+            index.index("draft", new StringReader("draft revision " + i));
+        }
+
+        // Then: the tombstones left by its old versions were compacted away
+        assertTrue(index.tombstoneCount() < 1024, "tombstones: " + index.tombstoneCount());
+        assertEquals(2, index.size());
+        assertEquals(List.of("draft"), documentIds(index.search("1099", 10)));
+        assertTrue(index.search("1000", 10).isEmpty());
+        assertEquals(List.of("stable"), documentIds(index.search("contract", 10)));
+    }
+
+    @Test
+    void load_ShouldRestoreSnapshot() throws IOException {
+        // Given
+        String snapshot = directory.resolve("search.idx").toString();
+        DocumentSearchIndex index = new DocumentSearchIndex(snapshot);
+        index.index("a", new StringReader("annual budget review"));
+        index.index("b", new StringReader("budget"));
+        index.remove("a");
+        index.index("c", new StringReader("annual planning"));
+        index.snapshot();
+
+        // When
+        DocumentSearchIndex restored = new DocumentSearchIndex(snapshot);
+        restored.load();
+
+        // Then
+        assertEquals(index.search("annual budget", 10), restored.search("annual budget", 10));
+        assertEquals(2, restored.size());
+        restored.index("d", new StringReader("annual report"));
+        assertEquals(2, restored.search("annual", 10).size());
+    }
+
+    private static List<String> documentIds(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::documentId).toList();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.Doc_Ohpp.service;
+
+import com.example.Doc_Ohpp.cache.DocumentMetadataCache;
+import com.example.Doc_Ohpp.model.Document;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares metadata writes through the blocking and the async DynamoDB service against clients
+ * that answer after a fixed network latency. The blocking path gets a fixed pool of platform
+ * threads, as a servlet container would; the async path issues every call from one thread.
+ *
+ * Not part of the regular build; run with
+ * {@code mvn test -Dtest=AsyncClientBenchmarkTest -Dbenchmark=true}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AsyncClientBenchmarkTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(20);
+    private static final int CALLS = 2000;
+    private static final int BLOCKING_THREADS = 32;
+
+    private DynamoDBService dynamoDBService;
+    private DynamoDBAsyncService dynamoDBAsyncService;
+
+    @BeforeEach
+    void setUp() {
+        DynamoDbClient dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+        when(dynamoDbClient.putItem(any(PutItemRequest.class))).thenAnswer(invocation -> {
+            Thread.sleep(LATENCY.toMillis());
+            return PutItemResponse.builder().build();
+        });
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class))).thenAnswer(invocation -> {
+            Thread.sleep(LATENCY.toMillis());
+            return UpdateItemResponse.builder().build();
+        });
+
+        DynamoDbAsyncClient dynamoDbAsyncClient = Mockito.mock(DynamoDbAsyncClient.class);
+        when(dynamoDbAsyncClient.putItem(any(PutItemRequest.class)))
+                .thenAnswer(invocation -> afterLatency(PutItemResponse.builder().build()));
+        when(dynamoDbAsyncClient.updateItem(any(UpdateItemRequest.class)))
+                .thenAnswer(invocation -> afterLatency(UpdateItemResponse.builder().build()));
+
+        DocumentMetadataCache metadataCache = new DocumentMetadataCache(new SimpleMeterRegistry(), CALLS, Duration.ofMinutes(1));
+        dynamoDBService = new DynamoDBService(dynamoDbClient, metadataCache, RequestHedging.disabled());
+        ReflectionTestUtils.setField(dynamoDBService, "tableName", "benchmark-table");
+        dynamoDBAsyncService = new DynamoDBAsyncService(dynamoDbAsyncClient, dynamoDBService, metadataCache);
+    }
+
+    @Test
+    void compareBlockingAndAsyncMetadataWrites() throws Exception {
+        // Warm up both paths
+        runBlocking(200);
+        runAsync(200);
+
+        long blockingNanos = runBlocking(CALLS);
+        long asyncNanos = runAsync(CALLS);
+
+        System.out.printf("Blocking (%d threads): %d saves in %d ms (%.0f/s)%n",
+                BLOCKING_THREADS, CALLS, TimeUnit.NANOSECONDS.toMillis(blockingNanos), CALLS * 1e9 / blockingNanos);
+        System.out.printf("Async (1 caller thread): %d saves in %d ms (%.0f/s)%n",
+                CALLS, TimeUnit.NANOSECONDS.toMillis(asyncNanos), CALLS * 1e9 / asyncNanos);
+    }
+
+    private long runBlocking(int calls) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(BLOCKING_THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<Document>> saves = new ArrayList<>(calls);
+            for (int i = 0; i < calls; i++) {
+                saves.add(threads.submit(() -> dynamoDBService.saveDocument(newDocument())));
+            }
+            for (Future<Document> save : saves) {
+                save.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    private long runAsync(int calls) {
+        long start = System.nanoTime();
+        List<CompletableFuture<Document>> saves = new ArrayList<>(calls);
+        for (int i = 0; i < calls; i++) {
+            saves.add(dynamoDBAsyncService.saveDocument(newDocument()));
+        }
+        CompletableFuture.allOf(saves.toArray(CompletableFuture[]::new)).join();
+        assertEquals(calls, saves.size());
+        return System.nanoTime() - start;
+    }
+
+    private static Document newDocument() {
+        return new Document("benchmark.txt", "text/plain", 1024, "benchmark-bucket", "benchmark-key");
+    }
+
+    private static <T> CompletableFuture<T> afterLatency(T response) {
+        return CompletableFuture.supplyAsync(() -> response,
+                CompletableFuture.delayedExecutor(LATENCY.toMillis(), TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.Doc_Ohpp.service;
+
+import com.example.Doc_Ohpp.util.ContentDigest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BlobStoreServiceTest {
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private DynamoDbClient dynamoDbClient;
+
+    private BlobStoreService blobStoreService;
+
+    private final byte[] content = "Same content".getBytes();
+
+    @BeforeEach
+    void setUp() {
+        blobStoreService = new BlobStoreService(s3Service, dynamoDbClient);
+        ReflectionTestUtils.setField(blobStoreService, "blobTableName", "test-blobs");
+    }
+
+    @Test
+    void store_ShouldSkipS3Put_WhenBlobAlreadyExists() throws IOException {
+        // Given
+        ContentDigest digest = digest();
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(UpdateItemResponse.builder().attributes(Map.of(
+                        "s3Key", AttributeValue.builder().s("blobs/" + digest.sha256() + "/gen-1").build(),
+                        "refCount", AttributeValue.builder().n("2").build()
+                )).build());
+
+        // When
+        BlobStoreService.StoredBlob blob = blobStoreService.store(digest, "text/plain", new ByteArrayResource(content));
+
+        // Then
+        assertTrue(blob.deduplicated());
+        assertEquals("blobs/" + digest.sha256() + "/gen-1", blob.s3Key());
+        verify(s3Service, never()).uploadObject(anyString(), anyString(), any(InputStream.class), anyLong());
+        verify(dynamoDbClient, never()).putItem(any(PutItemRequest.class));
+    }
+
+    @Test
+    void store_ShouldUploadAndRegisterBlob_WhenContentIsNew() throws IOException {
+        // Given
+        ContentDigest digest = digest();
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("no blob").build());
+        when(dynamoDbClient.putItem(any(PutItemRequest.class))).thenReturn(PutItemResponse.builder().build());
+
+        // When
+        BlobStoreService.StoredBlob blob = blobStoreService.store(digest, "text/plain", new ByteArrayResource(content));
+
+        // Then
+        assertFalse(blob.deduplicated());
+        assertTrue(blob.s3Key().startsWith("blobs/" + digest.sha256() + "/"));
+        verify(s3Service).uploadObject(eq(blob.s3Key()), eq("text/plain"), any(InputStream.class), eq((long) content.length));
+
+        ArgumentCaptor<PutItemRequest> putCaptor = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(dynamoDbClient).putItem(putCaptor.capture());
+        assertEquals("1", putCaptor.getValue().item().get("refCount").n());
+    }
+
+    @Test
+    void release_ShouldDeleteBlob_WhenLastReferenceIsReleased() {
+        // Given
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(UpdateItemResponse.builder().attributes(Map.of(
+                        "s3Key", AttributeValue.builder().s("blobs/abc/gen-1").build(),
+                        "refCount", AttributeValue.builder().n("0").build()
+                )).build());
+
+        // When
+        blobStoreService.release("abc");
+
+        // Then
+        verify(s3Service).deleteDocument("blobs/abc/gen-1");
+        verify(dynamoDbClient).deleteItem(any(DeleteItemRequest.class));
+    }
+
+    @Test
+    void release_ShouldKeepBlob_WhenOtherDocumentsStillReferenceIt() {
+        // Given
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(UpdateItemResponse.builder().attributes(Map.of(
+                        "s3Key", AttributeValue.builder().s("blobs/abc/gen-1").build(),
+                        "refCount", AttributeValue.builder().n("1").build()
+                )).build());
+
+        // When
+        blobStoreService.release("abc");
+
+        // Then
+        verify(s3Service, never()).deleteDocument(anyString());
+        verify(dynamoDbClient, never()).deleteItem(any(DeleteItemRequest.class));
+    }
+
+    private ContentDigest digest() throws IOException {
+        return ContentDigest.compute(new ByteArrayInputStream(content), Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.Doc_Ohpp.service;
+
+import com.example.Doc_Ohpp.model.Document;
+import com.example.Doc_Ohpp.model.DocumentMetadata;
+import com.example.Doc_Ohpp.processor.TextDocumentProcessor;
+import com.example.Doc_Ohpp.search.DocumentSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentExtractionServiceTest {
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private DynamoDbClient dynamoDbClient;
+
+    private DocumentSearchIndex searchIndex;
+    private DocumentExtractionService extractionService;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new DocumentSearchIndex("");
+        extractionService = new DocumentExtractionService(s3Service, dynamoDbClient,
+                List.of(new TextDocumentProcessor()), searchIndex);
+        ReflectionTestUtils.setField(extractionService, "inlineTextLimit", 16);
+        lenient().when(dynamoDbClient.putItem(any(PutItemRequest.class))).thenReturn(PutItemResponse.builder().build());
+    }
+
+    @Test
+    void extract_ShouldKeepShortTextInline() {
+        // Given
+        Document document = document("short text");
+
+        // When
+        DocumentMetadata metadata = extractionService.extract(document);
+
+        // Then
+        assertEquals("short text", metadata.getExtractedText());
+        assertNull(metadata.getExtractedTextKey());
+        ArgumentCaptor<PutItemRequest> put = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(dynamoDbClient).putItem(put.capture());
+        assertEquals("short text", put.getValue().item().get("extractedText").s());
+        verify(s3Service, never()).uploadObject(anyString(), anyString(), any(InputStream.class), anyLong());
+        assertEquals("test-id", searchIndex.search("short", 10).get(0).documentId());
+    }
+
+    @Test
+    void extract_ShouldOffloadTextToS3_WhenLongerThanInlineLimit() {
+        // Given
+        String content = "a longer text that does not fit inline";
+        Document document = document(content);
+        byte[][] uploaded = new byte[1][];
+        doAnswer(invocation -> {
+            uploaded[0] = invocation.<InputStream>getArgument(2).readAllBytes();
+            return null;
+        }).when(s3Service).uploadObject(eq("extracted/test-id.txt"), anyString(), any(InputStream.class), anyLong());
+
+        // When
+        DocumentMetadata metadata = extractionService.extract(document);
+
+        // Then
+        assertNull(metadata.getExtractedText());
+        assertEquals("extracted/test-id.txt", metadata.getExtractedTextKey());
+        assertEquals(content.length(), metadata.getExtractedTextLength());
+        assertEquals(content, new String(uploaded[0], StandardCharsets.UTF_8));
+        ArgumentCaptor<PutItemRequest> put = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(dynamoDbClient).putItem(put.capture());
+        assertFalse(put.getValue().item().containsKey("extractedText"));
+        assertEquals("test-id", searchIndex.search("inline", 10).get(0).documentId());
+    }
+
+    @Test
+    void reuse_ShouldCopyOffloadedTextAndStoreMetadataForNewDocument() {
+        // Given
+        DocumentMetadata source = new DocumentMetadata("source-id");
+        source.setProcessingEngine("text-stream");
+        source.setExtractedTextKey("extracted/source-id.txt");
+        source.setExtractedTextLength(40);
+        source.setPageCount(2);
+        when(s3Service.openDocument("extracted/other-id.txt", null, null)).thenReturn(new ResponseInputStream<>(
+                GetObjectResponse.builder().build(),
+                AbortableInputStream.create(new ByteArrayInputStream("copied text".getBytes(StandardCharsets.UTF_8)))));
+
+        // When
+        DocumentMetadata metadata = extractionService.reuse("other-id", source);
+
+        // Then
+        verify(s3Service).copyObject("extracted/source-id.txt", "extracted/other-id.txt");
+        assertEquals("other-id", metadata.getDocumentId());
+        assertEquals("extracted/other-id.txt", metadata.getExtractedTextKey());
+        assertEquals(2, metadata.getPageCount());
+        assertEquals("extracted/source-id.txt", source.getExtractedTextKey());
+        ArgumentCaptor<PutItemRequest> put = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(dynamoDbClient).putItem(put.capture());
+        assertEquals("other-id", put.getValue().item().get("documentId").s());
+        assertEquals("other-id", searchIndex.search("copied", 10).get(0).documentId());
+    }
+
+    @Test
+    void extract_ShouldFail_WhenTextExceedsMaxLength() {
+        // Given
+        ReflectionTestUtils.setField(extractionService, "maxTextLength", 20L);
+        Document document = document("far more extracted text than the limit allows");
+
+        // When & Then
+        assertThrows(UncheckedIOException.class, () -> extractionService.extract(document));
+        verify(s3Service, never()).uploadObject(anyString(), anyString(), any(InputStream.class), anyLong());
+        verify(dynamoDbClient, never()).putItem(any(PutItemRequest.class));
+        assertTrue(searchIndex.search("extracted", 10).isEmpty());
+    }
+
+    @Test
+    void extract_ShouldReturnNull_WhenNoProcessorSupportsContentType() {
+        // Given
+        Document document = new Document("scan.png", "image/png", 10, "test-bucket", "blobs/abc/gen");
+
+        // When & Then
+        assertNull(extractionService.extract(document));
+        verifyNoInteractions(s3Service, dynamoDbClient);
+    }
+
+    private Document document(String content) {
+        Document document = new Document("test.txt", "text/plain", content.length(), "test-bucket", "blobs/abc/gen");
+        document.setDocumentId("test-id");
+        when(s3Service.openDocument("blobs/abc/gen", null, null)).thenReturn(new ResponseInputStream<>(
+                GetObjectResponse.builder().build(),
+                AbortableInputStream.create(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)))));
+        return document;
+    }
+}
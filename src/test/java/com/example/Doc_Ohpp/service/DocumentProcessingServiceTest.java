@@ -1,16 +1,38 @@
 package com.example.Doc_Ohpp.service;
 
+import com.example.Doc_Ohpp.cache.DocumentBlobCache;
+import com.example.Doc_Ohpp.cache.ProcessingResultCache;
 import com.example.Doc_Ohpp.model.Document;
+import com.example.Doc_Ohpp.model.DocumentFields;
+import com.example.Doc_Ohpp.model.DocumentLookup;
+import com.example.Doc_Ohpp.model.DocumentMetadata;
+import com.example.Doc_Ohpp.model.SearchHit;
+import com.example.Doc_Ohpp.util.ContentDigest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -28,14 +50,39 @@ class DocumentProcessingServiceTest {
     @Mock
     private SQSService sqsService;
 
+    @Mock
+    private BlobStoreService blobStoreService;
+
+    @Mock
+    private DocumentBlobCache blobCache;
+
+    @Mock
+    private DocumentExtractionService extractionService;
+
     @Mock
     private MultipartFile multipartFile;
 
+    @Mock
+    private S3AsyncService s3AsyncService;
+
+    @Mock
+    private DynamoDBAsyncService dynamoDBAsyncService;
+
+    @Mock
+    private SQSAsyncService sqsAsyncService;
+
+    private ProcessingResultCache resultCache;
+    private UploadPipeline uploadPipeline;
+    private ProcessingTaskRegistry processingTasks;
     private DocumentProcessingService documentProcessingService;
 
     @BeforeEach
     void setUp() {
-        documentProcessingService = new DocumentProcessingService(s3Service, dynamoDBService, sqsService);
+        resultCache = new ProcessingResultCache(new SimpleMeterRegistry(), true, DataSize.ofMegabytes(1), Duration.ofHours(1));
+        uploadPipeline = new UploadPipeline(new SimpleMeterRegistry(), stage -> Runnable::run);
+        processingTasks = new ProcessingTaskRegistry(new SimpleMeterRegistry());
+        documentProcessingService = new DocumentProcessingService(s3Service, dynamoDBService, sqsService, blobStoreService,
+                blobCache, resultCache, extractionService, uploadPipeline, processingTasks, Runnable::run, null);
     }
 
     @Test
@@ -49,17 +96,18 @@ class DocumentProcessingServiceTest {
         when(multipartFile.getOriginalFilename()).thenReturn(fileName);
         when(multipartFile.getContentType()).thenReturn(contentType);
         when(multipartFile.getSize()).thenReturn((long) content.length);
-        when(multipartFile.getBytes()).thenReturn(content);
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(content));
         when(multipartFile.isEmpty()).thenReturn(false);
 
-        when(s3Service.uploadDocument(eq(fileName), eq(contentType), eq(content))).thenReturn(s3Key);
+        when(blobStoreService.store(any(ContentDigest.class), eq(contentType), eq(multipartFile)))
+                .thenReturn(new BlobStoreService.StoredBlob(s3Key, "content-hash", false));
 
         Document savedDocument = new Document(fileName, contentType, content.length, "test-bucket", s3Key);
         savedDocument.setDocumentId("test-id");
         when(dynamoDBService.saveDocument(any(Document.class))).thenReturn(savedDocument);
 
-        // Mock getDocument calls for async processing
-        when(dynamoDBService.getDocument("test-id")).thenReturn(savedDocument);
+        // Status transitions made by the (inline) processing run
+        when(dynamoDBService.updateDocumentStatus(eq("test-id"), any(), any(), any())).thenReturn(savedDocument);
 
         // When
         Document result = documentProcessingService.uploadDocument(multipartFile);
@@ -70,11 +118,205 @@ class DocumentProcessingServiceTest {
         assertEquals(contentType, result.getContentType());
         assertEquals(Document.ProcessingStatus.UPLOADED, result.getStatus());
 
-        verify(s3Service).uploadDocument(eq(fileName), eq(contentType), eq(content));
+        ArgumentCaptor<Document> savedCaptor = ArgumentCaptor.forClass(Document.class);
+        verify(dynamoDBService).saveDocument(savedCaptor.capture());
+        assertEquals("content-hash", savedCaptor.getValue().getContentHash());
+        assertEquals(s3Key, savedCaptor.getValue().getS3Key());
+
+        ArgumentCaptor<ContentDigest> digestCaptor = ArgumentCaptor.forClass(ContentDigest.class);
+        verify(blobStoreService).store(digestCaptor.capture(), eq(contentType), eq(multipartFile));
+        assertEquals(content.length, digestCaptor.getValue().size());
+        assertEquals(64, digestCaptor.getValue().sha256().length());
+        verify(multipartFile, never()).getBytes();
         verify(dynamoDBService).saveDocument(any(Document.class));
         verify(sqsService).sendDocumentUploadedMessage(any(Document.class));
     }
 
+    @Test
+    void uploadDocument_ShouldReturnOnceStoredAndPersisted_BeforeUploadEventIsSent() throws IOException {
+        // Given: the notify and dispatch stages hold their work until it is run by hand
+        List<Runnable> deferred = new ArrayList<>();
+        Executor deferredStage = deferred::add;
+        UploadPipeline pipeline = new UploadPipeline(new SimpleMeterRegistry(), stage ->
+                stage == UploadPipeline.Stage.STORE || stage == UploadPipeline.Stage.PERSIST ? Runnable::run : deferredStage);
+        DocumentProcessingService service = new DocumentProcessingService(s3Service, dynamoDBService, sqsService,
+                blobStoreService, blobCache, resultCache, extractionService, pipeline, processingTasks, Runnable::run, null);
+        MultipartFile file = mockFile("a.txt", "Content");
+        when(blobStoreService.store(any(ContentDigest.class), eq("text/plain"), eq(file)))
+                .thenReturn(new BlobStoreService.StoredBlob("blobs/a", "hash-a", false));
+        Document savedDocument = new Document("a.txt", "text/plain", 7, "test-bucket", "blobs/a");
+        savedDocument.setDocumentId("test-id");
+        when(dynamoDBService.saveDocument(any(Document.class))).thenReturn(savedDocument);
+
+        // When
+        Document result = service.uploadDocument(file);
+
+        // Then
+        assertSame(savedDocument, result);
+        verify(sqsService, never()).sendDocumentUploadedMessage(any(Document.class));
+
+        // Dispatch is only queued once the upload event is out
+        assertEquals(1, deferred.size());
+        deferred.remove(0).run();
+        verify(sqsService).sendDocumentUploadedMessage(savedDocument);
+        assertEquals(1, deferred.size());
+    }
+
+    @Test
+    void uploadDocument_ShouldQueueForProcessing_AndStillSendUploadEvent_WithQueueDispatch() throws IOException {
+        // Given
+        ReflectionTestUtils.setField(documentProcessingService, "processingDispatch", "queue");
+        when(sqsService.isProcessingQueueAvailable()).thenReturn(true);
+        MultipartFile file = mockFile("a.txt", "Content");
+        when(blobStoreService.store(any(ContentDigest.class), eq("text/plain"), eq(file)))
+                .thenReturn(new BlobStoreService.StoredBlob("blobs/a", "hash-a", false));
+        Document savedDocument = new Document("a.txt", "text/plain", 7, "test-bucket", "blobs/a");
+        savedDocument.setDocumentId("test-id");
+        when(dynamoDBService.saveDocument(any(Document.class))).thenReturn(savedDocument);
+
+        // When
+        Document result = documentProcessingService.uploadDocument(file);
+
+        // Then: the queue workers process it, so nothing is processed here
+        assertSame(savedDocument, result);
+        verify(sqsService).sendDocumentForProcessing(savedDocument);
+        verify(sqsService).sendDocumentUploadedMessage(savedDocument);
+        verify(dynamoDBService, never()).updateDocumentStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void uploadDocument_ShouldFailAndUndoUpload_WhenDocumentCannotBeQueued() throws IOException {
+        // Given
+        ReflectionTestUtils.setField(documentProcessingService, "processingDispatch", "queue");
+        when(sqsService.isProcessingQueueAvailable()).thenReturn(true);
+        MultipartFile file = mockFile("a.txt", "Content");
+        when(blobStoreService.store(any(ContentDigest.class), eq("text/plain"), eq(file)))
+                .thenReturn(new BlobStoreService.StoredBlob("blobs/a", "hash-a", false));
+        Document savedDocument = new Document("a.txt", "text/plain", 7, "test-bucket", "blobs/a");
+        savedDocument.setDocumentId("test-id");
+        savedDocument.setContentHash("hash-a");
+        when(dynamoDBService.saveDocument(any(Document.class))).thenReturn(savedDocument);
+        doThrow(new RuntimeException("Failed to send message to SQS"))
+                .when(sqsService).sendDocumentForProcessing(savedDocument);
+
+        // When & Then
+        assertThrows(RuntimeException.class, () -> documentProcessingService.uploadDocument(file));
+        verify(dynamoDBService).deleteDocument("test-id");
+        verify(blobStoreService).release("hash-a");
+        verify(sqsService, never()).sendDocumentUploadedMessage(any(Document.class));
+    }
+
+    @Test
+    void uploadDocuments_ShouldFailAndUndoDocuments_ThatCannotBeQueued() throws IOException {
+        // Given
+        ReflectionTestUtils.setField(documentProcessingService, "processingDispatch", "queue");
+        when(sqsService.isProcessingQueueAvailable()).thenReturn(true);
+        MultipartFile first = mockFile("a.txt", "First file");
+        MultipartFile second = mockFile("b.txt", "Second file");
+        when(blobStoreService.store(any(ContentDigest.class), eq("text/plain"), any(MultipartFile.class)))
+                .thenAnswer(invocation -> new BlobStoreService.StoredBlob(
+                        "blobs/" + invocation.<ContentDigest>getArgument(0).sha256() + "/gen",
+                        invocation.<ContentDigest>getArgument(0).sha256(), false));
+        when(dynamoDBService.saveDocuments(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(sqsService.sendDocumentsForProcessing(anyList())).thenAnswer(invocation ->
+                invocation.<List<Document>>getArgument(0).stream()
+                        .filter(document -> "b.txt".equals(document.getFileName()))
+                        .toList());
+
+        // When
+        List<DocumentProcessingService.BatchUploadResult> results =
+                documentProcessingService.uploadDocuments(List.of(first, second));
+
+        // Then
+        assertTrue(results.get(0).success());
+        assertFalse(results.get(1).success());
+        assertEquals("Failed to queue document for processing", results.get(1).message());
+        verify(dynamoDBService).deleteDocument(anyString());
+        verify(blobStoreService).release(anyString());
+        verify(sqsService).sendDocumentUploadedMessages(argThat((List<Document> documents) ->
+                documents.size() == 1 && "a.txt".equals(documents.get(0).getFileName())));
+    }
+
+    @Test
+    void uploadDocuments_ShouldReturnResultPerFile_AndBatchMetadataAndEvents() throws IOException {
+        // Given
+        MultipartFile first = mockFile("a.txt", "First file");
+        MultipartFile second = mockFile("b.txt", "Second file");
+        MultipartFile empty = mock(MultipartFile.class);
+        when(empty.isEmpty()).thenReturn(true);
+        when(empty.getOriginalFilename()).thenReturn("empty.txt");
+
+        when(blobStoreService.store(any(ContentDigest.class), eq("text/plain"), any(MultipartFile.class)))
+                .thenAnswer(invocation -> new BlobStoreService.StoredBlob(
+                        "blobs/" + invocation.<ContentDigest>getArgument(0).sha256() + "/gen",
+                        invocation.<ContentDigest>getArgument(0).sha256(), false));
+        when(dynamoDBService.saveDocuments(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        List<DocumentProcessingService.BatchUploadResult> results =
+                documentProcessingService.uploadDocuments(List.of(first, empty, second));
+
+        // Then
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).success());
+        assertFalse(results.get(1).success());
+        assertEquals("File is empty", results.get(1).message());
+        assertTrue(results.get(2).success());
+        assertEquals("b.txt", results.get(2).fileName());
+
+        verify(dynamoDBService).saveDocuments(argThat(documents -> documents.size() == 2));
+        verify(dynamoDBService, never()).saveDocument(any(Document.class));
+        verify(sqsService).sendDocumentUploadedMessages(argThat(documents -> documents.size() == 2));
+        verify(sqsService, never()).sendDocumentUploadedMessage(any(Document.class));
+    }
+
+    @Test
+    void uploadDocuments_ShouldReleaseBlob_WhenMetadataCouldNotBeSaved() throws IOException {
+        // Given
+        MultipartFile file = mockFile("a.txt", "Content");
+        when(blobStoreService.store(any(ContentDigest.class), eq("text/plain"), any(MultipartFile.class)))
+                .thenReturn(new BlobStoreService.StoredBlob("blobs/hash/gen", "hash", false));
+        when(dynamoDBService.saveDocuments(anyList())).thenReturn(List.of());
+
+        // When
+        List<DocumentProcessingService.BatchUploadResult> results = documentProcessingService.uploadDocuments(List.of(file));
+
+        // Then
+        assertFalse(results.get(0).success());
+        verify(blobStoreService).release("hash");
+    }
+
+    @Test
+    void uploadDocument_ShouldRejectBeforeReading_WhenDeclaredSizeExceedsLimit() {
+        // Given
+        InputStream content = mock(InputStream.class);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> {
+            documentProcessingService.uploadDocument("big.pdf", "application/pdf", 11L * 1024 * 1024, content);
+        });
+
+        verifyNoInteractions(content, blobStoreService, dynamoDBService);
+    }
+
+    @Test
+    void uploadDocument_ShouldRejectAsSoonAsStreamExceedsLimit() {
+        // Given: a stream that keeps delivering bytes beyond the 10MB limit
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                return 'x';
+            }
+        };
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> {
+            documentProcessingService.uploadDocument("endless.txt", "text/plain", -1, endless);
+        });
+
+        verifyNoInteractions(blobStoreService, dynamoDBService);
+    }
+
     @Test
     void uploadDocument_ShouldThrowException_WhenFileIsEmpty() {
         // Given
@@ -85,7 +327,39 @@ class DocumentProcessingServiceTest {
             documentProcessingService.uploadDocument(multipartFile);
         });
 
-        verify(s3Service, never()).uploadDocument(anyString(), anyString(), any(byte[].class));
+        verifyNoInteractions(blobStoreService);
+    }
+
+    @Test
+    void uploadDocument_ShouldRejectBeforeStoring_WhenProcessingExecutorIsSaturated() throws InterruptedException {
+        // Given: the only worker is busy and the one queue slot is taken
+        ThreadPoolExecutor saturated = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        saturated.execute(() -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        saturated.execute(() -> { });
+        running.await();
+        DocumentProcessingService service = new DocumentProcessingService(s3Service, dynamoDBService, sqsService,
+                blobStoreService, blobCache, resultCache, extractionService, uploadPipeline, processingTasks, saturated, null);
+        when(multipartFile.isEmpty()).thenReturn(false);
+
+        try {
+            // When & Then
+            ProcessingCapacityExceededException exception = assertThrows(ProcessingCapacityExceededException.class,
+                    () -> service.uploadDocument(multipartFile));
+            assertTrue(exception.getRetryAfter().toSeconds() > 0);
+            verifyNoInteractions(blobStoreService, dynamoDBService);
+        } finally {
+            release.countDown();
+            saturated.shutdown();
+        }
     }
 
     @Test
@@ -151,10 +425,333 @@ class DocumentProcessingServiceTest {
 
         // Then
         verify(s3Service).deleteDocument(document.getS3Key());
+        verify(blobCache).invalidate(document.getS3Key());
         verify(dynamoDBService).deleteDocument(documentId);
         verify(sqsService).sendDocumentDeletedMessage(documentId, document.getFileName());
     }
 
+    @Test
+    void deleteDocument_ShouldReleaseSharedBlob_WhenDocumentIsContentAddressed() {
+        // Given
+        String documentId = "test-id";
+        Document document = new Document("test.txt", "text/plain", 1024, "test-bucket", "blobs/abc/gen");
+        document.setDocumentId(documentId);
+        document.setContentHash("abc");
+
+        when(dynamoDBService.getDocument(documentId)).thenReturn(document);
+
+        // When
+        documentProcessingService.deleteDocument(documentId);
+
+        // Then
+        verify(dynamoDBService).deleteDocument(documentId);
+        verify(blobStoreService).release("abc");
+        verify(s3Service, never()).deleteDocument(anyString());
+        verify(blobCache, never()).invalidate(anyString());
+    }
+
+    @Test
+    void deleteDocument_ShouldInvalidateCachedBlob_WhenLastReferenceIsReleased() {
+        // Given
+        String documentId = "test-id";
+        Document document = new Document("test.txt", "text/plain", 1024, "test-bucket", "blobs/abc/gen");
+        document.setDocumentId(documentId);
+        document.setContentHash("abc");
+
+        when(dynamoDBService.getDocument(documentId)).thenReturn(document);
+        when(blobStoreService.release("abc")).thenReturn(true);
+
+        // When
+        documentProcessingService.deleteDocument(documentId);
+
+        // Then
+        verify(blobCache).invalidate("blobs/abc/gen");
+    }
+
+    @Test
+    void deleteDocument_ShouldInterruptRunningProcessing_WithoutWritingItsOutcome() throws Exception {
+        // Given: simulated processing of a 2+ second job is under way
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        DocumentProcessingService service = new DocumentProcessingService(s3Service, dynamoDBService, sqsService,
+                blobStoreService, blobCache, resultCache, extractionService, uploadPipeline, processingTasks, executor, null);
+        Document document = new Document("test.txt", "text/plain", 0, "test-bucket", "test-key");
+        document.setDocumentId("test-id");
+        CountDownLatch started = new CountDownLatch(1);
+        when(dynamoDBService.updateDocumentStatus("test-id",
+                Document.ProcessingStatus.UPLOADED, Document.ProcessingStatus.PROCESSING, null))
+                .thenAnswer(invocation -> {
+                    started.countDown();
+                    return document;
+                });
+        when(dynamoDBService.getDocument("test-id")).thenReturn(document);
+
+        try {
+            CompletableFuture<Void> outcome = service.processDocumentAsync(document, false);
+            started.await();
+
+            // When
+            service.deleteDocument("test-id");
+
+            // Then: the worker is free long before the simulated work would have ended
+            outcome.get(1, TimeUnit.SECONDS);
+            verify(dynamoDBService, never()).updateDocumentStatus(eq("test-id"),
+                    eq(Document.ProcessingStatus.PROCESSING), any(), any());
+            verify(sqsService, never()).sendDocumentProcessingFailedMessage(any(), anyString());
+            verify(extractionService, atLeastOnce()).deleteMetadata("test-id");
+            assertEquals(0, processingTasks.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void deleteDocument_ShouldRemoveQueuedProcessing_FromTheExecutorQueue() throws Exception {
+        // Given: the only worker is busy, so the document waits in the queue
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        DocumentProcessingService service = new DocumentProcessingService(s3Service, dynamoDBService, sqsService,
+                blobStoreService, blobCache, resultCache, extractionService, uploadPipeline, processingTasks, executor, null);
+        Document document = new Document("test.txt", "text/plain", 0, "test-bucket", "test-key");
+        document.setDocumentId("test-id");
+        when(dynamoDBService.getDocument("test-id")).thenReturn(document);
+
+        try {
+            CompletableFuture<Void> outcome = service.processDocumentAsync(document, false);
+            assertEquals(1, executor.getQueue().size());
+
+            // When
+            service.deleteDocument("test-id");
+
+            // Then
+            outcome.get(1, TimeUnit.SECONDS);
+            assertEquals(0, executor.getQueue().size());
+            verify(dynamoDBService, never()).updateDocumentStatus(anyString(), any(), any(), any());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void processDocumentAsync_ShouldDropExtractedMetadata_WhenDocumentWasDeletedMeanwhile() {
+        // Given: another instance deleted the document while it was extracted here
+        Document document = new Document("notes.txt", "text/plain", 1024, "test-bucket", "blobs/abc/gen");
+        document.setDocumentId("test-id");
+        when(dynamoDBService.updateDocumentStatus("test-id",
+                Document.ProcessingStatus.UPLOADED, Document.ProcessingStatus.PROCESSING, null)).thenReturn(document);
+        DocumentMetadata metadata = new DocumentMetadata("test-id");
+        metadata.setProcessingEngine("text-stream");
+        when(extractionService.extract(document)).thenReturn(metadata);
+        when(dynamoDBService.updateDocumentStatus(eq("test-id"), eq(Document.ProcessingStatus.PROCESSING),
+                eq(Document.ProcessingStatus.COMPLETED), anyString()))
+                .thenThrow(new StatusTransitionException("test-id", Document.ProcessingStatus.PROCESSING, null));
+
+        // When
+        documentProcessingService.processDocumentAsync("test-id").join();
+
+        // Then: the conditional write refused to recreate the item, and the extraction is removed
+        verify(extractionService).deleteMetadata("test-id");
+        verify(dynamoDBService, never()).updateDocumentStatus(anyString(), any(),
+                eq(Document.ProcessingStatus.FAILED), any());
+        verify(sqsService, never()).sendDocumentProcessingCompletedMessage(any());
+    }
+
+    @Test
+    void processDocumentAsync_ShouldLeaveDocumentAlone_WhenAlreadyPickedUp() {
+        // Given
+        when(dynamoDBService.updateDocumentStatus("test-id",
+                Document.ProcessingStatus.UPLOADED, Document.ProcessingStatus.PROCESSING, null))
+                .thenThrow(new StatusTransitionException("test-id",
+                        Document.ProcessingStatus.UPLOADED, Document.ProcessingStatus.PROCESSING));
+
+        // When
+        documentProcessingService.processDocumentAsync("test-id").join();
+
+        // Then: a duplicate run neither emits events nor marks the document as failed
+        verify(dynamoDBService, times(1)).updateDocumentStatus(anyString(), any(), any(), any());
+        verify(sqsService, never()).sendDocumentProcessingStartedMessage(any());
+        verify(sqsService, never()).sendDocumentProcessingFailedMessage(any(), anyString());
+    }
+
+    @Test
+    void processDocumentAsync_ShouldCompleteWithExtractionNotes_WhenProcessorExtractedDocument() {
+        // Given
+        Document document = new Document("notes.txt", "text/plain", 1024, "test-bucket", "blobs/abc/gen");
+        document.setDocumentId("test-id");
+        when(dynamoDBService.updateDocumentStatus("test-id",
+                Document.ProcessingStatus.UPLOADED, Document.ProcessingStatus.PROCESSING, null)).thenReturn(document);
+        DocumentMetadata metadata = new DocumentMetadata("test-id");
+        metadata.setProcessingEngine("text-stream");
+        metadata.setExtractedTextLength(1000);
+        when(extractionService.extract(document)).thenReturn(metadata);
+        when(dynamoDBService.updateDocumentStatus(eq("test-id"), eq(Document.ProcessingStatus.PROCESSING),
+                eq(Document.ProcessingStatus.COMPLETED), anyString())).thenReturn(document);
+
+        // When
+        documentProcessingService.processDocumentAsync("test-id").join();
+
+        // Then
+        verify(dynamoDBService).updateDocumentStatus(eq("test-id"), eq(Document.ProcessingStatus.PROCESSING),
+                eq(Document.ProcessingStatus.COMPLETED), startsWith("Extracted 1000 characters with text-stream"));
+        verify(sqsService).sendDocumentProcessingCompletedMessage(document);
+    }
+
+    @Test
+    void processDocumentAsync_ShouldCompleteWithCachedResult_WhenSameContentWasProcessedBefore() {
+        // Given
+        Document first = new Document("first.txt", "text/plain", 1024, "test-bucket", "blobs/abc/gen1");
+        first.setDocumentId("first-id");
+        first.setContentHash("abc");
+        Document second = new Document("second.txt", "text/plain", 1024, "test-bucket", "blobs/abc/gen2");
+        second.setDocumentId("second-id");
+        second.setContentHash("abc");
+        DocumentMetadata extracted = new DocumentMetadata("first-id");
+        extracted.setProcessingEngine("text-stream");
+        extracted.setExtractedTextLength(1000);
+        DocumentMetadata reused = new DocumentMetadata("second-id");
+        reused.setProcessingEngine("text-stream");
+        reused.setExtractedTextLength(1000);
+
+        when(extractionService.processingVersion("text/plain")).thenReturn("text-stream/1");
+        when(dynamoDBService.updateDocumentStatus("first-id",
+                Document.ProcessingStatus.UPLOADED, Document.ProcessingStatus.PROCESSING, null)).thenReturn(first);
+        when(extractionService.extract(first)).thenReturn(extracted);
+        when(extractionService.reuse("second-id", extracted)).thenReturn(reused);
+        when(dynamoDBService.updateDocumentStatus(anyString(), any(Document.ProcessingStatus.class),
+                eq(Document.ProcessingStatus.COMPLETED), anyString())).thenReturn(first, second);
+
+        // When
+        documentProcessingService.processDocumentAsync(first, false).join();
+        documentProcessingService.processDocumentAsync(second, false).join();
+
+        // Then: the second document skips PROCESSING and extraction
+        verify(extractionService, times(1)).extract(any(Document.class));
+        verify(dynamoDBService, never()).updateDocumentStatus(eq("second-id"),
+                eq(Document.ProcessingStatus.UPLOADED), eq(Document.ProcessingStatus.PROCESSING), any());
+        verify(dynamoDBService).updateDocumentStatus(eq("second-id"), eq(Document.ProcessingStatus.UPLOADED),
+                eq(Document.ProcessingStatus.COMPLETED), contains("result of identical document first-id"));
+        verify(sqsService).sendDocumentProcessingCompletedMessage(second);
+    }
+
+    @Test
+    void deleteDocument_ShouldComposeOnAsyncServices_WhenAsyncClientsAreEnabled() {
+        // Given
+        DocumentProcessingService asyncService = asyncDocumentProcessingService();
+        String documentId = "test-id";
+        Document document = new Document("test.txt", "text/plain", 1024, "test-bucket", "test-key");
+        document.setDocumentId(documentId);
+
+        when(dynamoDBAsyncService.getDocument(documentId)).thenReturn(CompletableFuture.completedFuture(document));
+        when(dynamoDBAsyncService.deleteDocument(documentId)).thenReturn(CompletableFuture.completedFuture(null));
+        when(s3AsyncService.deleteDocument("test-key")).thenReturn(CompletableFuture.completedFuture(null));
+        when(sqsAsyncService.sendDocumentDeletedMessage(documentId, "test.txt"))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        asyncService.deleteDocument(documentId);
+
+        // Then: no blocking client is involved
+        verify(s3AsyncService).deleteDocument("test-key");
+        verify(blobCache).invalidate("test-key");
+        verify(sqsAsyncService).sendDocumentDeletedMessage(documentId, "test.txt");
+        verifyNoInteractions(dynamoDBService, s3Service, sqsService);
+    }
+
+    @Test
+    void processDocumentAsync_ShouldCompleteWithCachedResult_OnAsyncClients() {
+        // Given: the same content was processed before
+        DocumentProcessingService asyncService = asyncDocumentProcessingService();
+        when(extractionService.processingVersion("text/plain")).thenReturn("simulated/1");
+        resultCache.put("abc", "text/plain", "simulated/1", new ProcessingResultCache.ProcessingResult("first-id", null));
+        Document second = new Document("second.txt", "text/plain", 1024, "test-bucket", "blobs/abc/gen2");
+        second.setDocumentId("second-id");
+        second.setContentHash("abc");
+        when(dynamoDBAsyncService.updateDocumentStatus(eq("second-id"), eq(Document.ProcessingStatus.UPLOADED),
+                eq(Document.ProcessingStatus.COMPLETED), contains("result of identical document first-id")))
+                .thenReturn(CompletableFuture.completedFuture(second));
+
+        // When
+        asyncService.processDocumentAsync(second, false).orTimeout(10, TimeUnit.SECONDS).join();
+
+        // Then: straight from UPLOADED to COMPLETED, without a PROCESSING step or its event
+        verify(dynamoDBAsyncService, never()).updateDocumentStatus(any(), any(),
+                eq(Document.ProcessingStatus.PROCESSING), any());
+        verify(sqsAsyncService, never()).sendDocumentProcessingStartedMessage(any());
+        verify(sqsAsyncService).sendDocumentProcessingCompletedMessage(second);
+        assertEquals(0, processingTasks.size());
+    }
+
+    @Test
+    void processDocumentAsync_ShouldMarkFailed_WhenAsyncCompletionFails() {
+        // Given
+        DocumentProcessingService asyncService = asyncDocumentProcessingService();
+        Document started = new Document("test.txt", "text/plain", 0, "test-bucket", "test-key");
+        started.setDocumentId("test-id");
+        started.setStatus(Document.ProcessingStatus.PROCESSING);
+        Document failed = new Document("test.txt", "text/plain", 0, "test-bucket", "test-key");
+        failed.setDocumentId("test-id");
+        failed.setStatus(Document.ProcessingStatus.FAILED);
+
+        when(dynamoDBAsyncService.updateDocumentStatus("test-id",
+                Document.ProcessingStatus.UPLOADED, Document.ProcessingStatus.PROCESSING, null))
+                .thenReturn(CompletableFuture.completedFuture(started));
+        // Lenient: the simulated processing itself fails now and then, before completion is attempted
+        lenient().when(dynamoDBAsyncService.updateDocumentStatus(eq("test-id"),
+                eq(Document.ProcessingStatus.PROCESSING), eq(Document.ProcessingStatus.COMPLETED), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Failed to update document status")));
+        when(dynamoDBAsyncService.updateDocumentStatus(eq("test-id"),
+                eq(Document.ProcessingStatus.PROCESSING), eq(Document.ProcessingStatus.FAILED), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(failed));
+
+        // When
+        asyncService.processDocumentAsync("test-id").join();
+
+        // Then
+        verify(sqsAsyncService).sendDocumentProcessingStartedMessage(started);
+        verify(sqsAsyncService).sendDocumentProcessingFailedMessage(eq(failed), anyString());
+        verify(sqsAsyncService, never()).sendDocumentProcessingCompletedMessage(any());
+        verifyNoInteractions(dynamoDBService, sqsService);
+    }
+
+    @Test
+    void processDocumentAsync_ShouldMarkFailed_WhenExecutorRejectsSimulatedWork() {
+        // Given: the processing executor turns everything away
+        DocumentProcessingService asyncService = new DocumentProcessingService(s3Service, dynamoDBService, sqsService,
+                blobStoreService, blobCache, resultCache, extractionService, uploadPipeline, processingTasks,
+                command -> {
+                    throw new RejectedExecutionException("Processing executor saturated");
+                }, new AsyncAwsServices(s3AsyncService, dynamoDBAsyncService, sqsAsyncService));
+        Document started = new Document("test.txt", "text/plain", 0, "test-bucket", "test-key");
+        started.setDocumentId("test-id");
+        started.setStatus(Document.ProcessingStatus.PROCESSING);
+        Document failed = new Document("test.txt", "text/plain", 0, "test-bucket", "test-key");
+        failed.setDocumentId("test-id");
+        failed.setStatus(Document.ProcessingStatus.FAILED);
+
+        when(dynamoDBAsyncService.updateDocumentStatus("test-id",
+                Document.ProcessingStatus.UPLOADED, Document.ProcessingStatus.PROCESSING, null))
+                .thenReturn(CompletableFuture.completedFuture(started));
+        when(dynamoDBAsyncService.updateDocumentStatus(eq("test-id"),
+                eq(Document.ProcessingStatus.PROCESSING), eq(Document.ProcessingStatus.FAILED), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(failed));
+
+        // When: the run completes instead of waiting on a stage that never runs
+        asyncService.processDocumentAsync("test-id").orTimeout(10, TimeUnit.SECONDS).join();
+
+        // Then
+        verify(sqsAsyncService).sendDocumentProcessingFailedMessage(eq(failed), contains("Processing executor saturated"));
+        verify(dynamoDBAsyncService, never()).updateDocumentStatus(any(), eq(Document.ProcessingStatus.PROCESSING),
+                eq(Document.ProcessingStatus.COMPLETED), any());
+        assertEquals(0, processingTasks.size());
+    }
+
     @Test
     void downloadDocument_ShouldReturnFileContent_WhenDocumentExists() {
         // Given
@@ -174,4 +771,39 @@ class DocumentProcessingServiceTest {
         assertArrayEquals(expectedContent, result);
         verify(s3Service).downloadDocument(document.getS3Key());
     }
+
+    @Test
+    void searchDocuments_ShouldDropHits_ForDocumentsDeletedElsewhere() {
+        // Given
+        Document kept = new Document("kept.txt", "text/plain", 1, "test-bucket", "documents/kept");
+        kept.setDocumentId("kept-id");
+        when(extractionService.search("invoice", 10))
+                .thenReturn(List.of(new SearchHit("deleted-id", 2.0), new SearchHit("kept-id", 1.0)));
+        when(dynamoDBService.getDocuments(eq(List.of("deleted-id", "kept-id")), any(DocumentFields.class)))
+                .thenReturn(new DocumentLookup(List.of(kept), List.of("deleted-id")));
+
+        // When
+        List<SearchHit> hits = documentProcessingService.searchDocuments("invoice", 10);
+
+        // Then
+        assertEquals(List.of(new SearchHit("kept-id", 1.0)), hits);
+        verify(extractionService).removeFromSearch("deleted-id");
+        verify(extractionService, never()).removeFromSearch("kept-id");
+    }
+
+    private static MultipartFile mockFile(String fileName, String content) throws IOException {
+        byte[] bytes = content.getBytes();
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.isEmpty()).thenReturn(false);
+        when(file.getOriginalFilename()).thenReturn(fileName);
+        when(file.getContentType()).thenReturn("text/plain");
+        when(file.getSize()).thenReturn((long) bytes.length);
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(bytes));
+        return file;
+    }
+
+    private DocumentProcessingService asyncDocumentProcessingService() {
+        return new DocumentProcessingService(s3Service, dynamoDBService, sqsService, blobStoreService, blobCache,
+                resultCache, extractionService, uploadPipeline, processingTasks, Runnable::run, new AsyncAwsServices(s3AsyncService, dynamoDBAsyncService, sqsAsyncService));
+    }
 }
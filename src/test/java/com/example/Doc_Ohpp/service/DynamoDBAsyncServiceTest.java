@@ -0,0 +1,102 @@
+package com.example.Doc_Ohpp.service;
+
+import com.example.Doc_Ohpp.cache.DocumentMetadataCache;
+import com.example.Doc_Ohpp.model.Document;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DynamoDBAsyncServiceTest {
+
+    @Mock
+    private DynamoDbAsyncClient dynamoDbAsyncClient;
+
+    @Mock
+    private DynamoDbClient dynamoDbClient;
+
+    private DocumentMetadataCache metadataCache;
+
+    private DynamoDBAsyncService dynamoDBAsyncService;
+
+    @BeforeEach
+    void setUp() {
+        metadataCache = new DocumentMetadataCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+        DynamoDBService dynamoDBService = new DynamoDBService(dynamoDbClient, metadataCache, RequestHedging.disabled());
+        ReflectionTestUtils.setField(dynamoDBService, "tableName", "test-table");
+        dynamoDBAsyncService = new DynamoDBAsyncService(dynamoDbAsyncClient, dynamoDBService, metadataCache);
+    }
+
+    @Test
+    void saveDocument_ShouldCacheItemAndAdjustCounters_OnTheAsyncClient() {
+        // Given
+        Document document = new Document("test.txt", "text/plain", 1024, "test-bucket", "test-key");
+        when(dynamoDbAsyncClient.putItem(any(PutItemRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(PutItemResponse.builder().build()));
+        when(dynamoDbAsyncClient.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(UpdateItemResponse.builder().build()));
+
+        // When
+        Document saved = dynamoDBAsyncService.saveDocument(document).join();
+
+        // Then
+        assertNotNull(saved.getDocumentId());
+        assertNotNull(metadataCache.getIfPresent(saved.getDocumentId()));
+        ArgumentCaptor<UpdateItemRequest> counters = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbAsyncClient).updateItem(counters.capture());
+        assertTrue(counters.getValue().updateExpression().startsWith("ADD "));
+        verifyNoInteractions(dynamoDbClient);
+    }
+
+    @Test
+    void getDocument_ShouldServeCachedItem_WithoutCallingDynamoDB() {
+        // Given
+        metadataCache.put("doc-1", Map.of(
+                "documentId", AttributeValue.builder().s("doc-1").build(),
+                "fileName", AttributeValue.builder().s("cached.txt").build(),
+                "status", AttributeValue.builder().s("UPLOADED").build()));
+
+        // When
+        Document document = dynamoDBAsyncService.getDocument("doc-1").join();
+
+        // Then
+        assertEquals("cached.txt", document.getFileName());
+        verifyNoInteractions(dynamoDbAsyncClient);
+    }
+
+    @Test
+    void updateDocumentStatus_ShouldFailWithTransitionException_WhenConditionFails() {
+        // Given
+        when(dynamoDbAsyncClient.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(ConditionalCheckFailedException.builder()
+                        .item(Map.of("status", AttributeValue.builder().s("COMPLETED").build()))
+                        .build()));
+
+        // When
+        CompletionException thrown = assertThrows(CompletionException.class, () -> dynamoDBAsyncService
+                .updateDocumentStatus("doc-1", Document.ProcessingStatus.UPLOADED,
+                        Document.ProcessingStatus.PROCESSING, null)
+                .join());
+
+        // Then
+        StatusTransitionException rejected = assertInstanceOf(StatusTransitionException.class, thrown.getCause());
+        assertEquals(Document.ProcessingStatus.COMPLETED, rejected.getActualStatus());
+    }
+}
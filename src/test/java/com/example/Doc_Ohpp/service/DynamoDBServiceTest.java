@@ -1,16 +1,34 @@
 package com.example.Doc_Ohpp.service;
 
+import com.example.Doc_Ohpp.cache.DocumentMetadataCache;
 import com.example.Doc_Ohpp.model.Document;
+import com.example.Doc_Ohpp.model.DocumentFields;
+import com.example.Doc_Ohpp.model.DocumentLookup;
+import com.example.Doc_Ohpp.model.DocumentPage;
+import com.example.Doc_Ohpp.util.PageCursor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.paginators.ScanIterable;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -22,11 +40,15 @@ public class DynamoDBServiceTest {
     @Mock
     private DynamoDbClient dynamoDbClient;
 
+    private DocumentMetadataCache metadataCache;
+
     private DynamoDBService dynamoDBService;
 
     @BeforeEach
     void setUp() {
-        dynamoDBService = new DynamoDBService(dynamoDbClient);
+        metadataCache = new DocumentMetadataCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+        dynamoDBService = new DynamoDBService(dynamoDbClient, metadataCache, RequestHedging.disabled());
+        ReflectionTestUtils.setField(dynamoDBService, "tableName", "test-table");
     }
 
     @Test
@@ -89,4 +111,394 @@ public class DynamoDBServiceTest {
         assertNull(document);
         verify(dynamoDbClient, times(1)).getItem(any(GetItemRequest.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getDocument_ShouldReadDynamoDBOnce_WhenDocumentIsRequestedRepeatedly() {
+        // Given
+        when(dynamoDbClient.getItem(any(GetItemRequest.class)))
+                .thenReturn(GetItemResponse.builder().item(item("doc-1")).build());
+
+        // When
+        Document first = dynamoDBService.getDocument("doc-1");
+        first.setStatus(Document.ProcessingStatus.FAILED);
+        Document second = dynamoDBService.getDocument("doc-1");
+
+        // Then: each caller gets its own copy
+        assertNotSame(first, second);
+        assertEquals(Document.ProcessingStatus.UPLOADED, second.getStatus());
+        verify(dynamoDbClient, times(1)).getItem(any(GetItemRequest.class));
+    }
+
+    @Test
+    void getDocument_ShouldSeeStatusUpdate_WithoutRereadingDynamoDB() {
+        // Given
+        when(dynamoDbClient.getItem(any(GetItemRequest.class)))
+                .thenReturn(GetItemResponse.builder().item(item("doc-1")).build());
+        Map<String, AttributeValue> completed = new HashMap<>(item("doc-1"));
+        completed.put("status", AttributeValue.builder().s("COMPLETED").build());
+        completed.put("processingNotes", AttributeValue.builder().s("done").build());
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(UpdateItemResponse.builder().attributes(completed).build());
+        dynamoDBService.getDocument("doc-1");
+
+        // When
+        Document updated = dynamoDBService.updateDocumentStatus("doc-1",
+                Document.ProcessingStatus.PROCESSING, Document.ProcessingStatus.COMPLETED, "done");
+        Document document = dynamoDBService.getDocument("doc-1");
+
+        // Then
+        assertEquals(Document.ProcessingStatus.COMPLETED, updated.getStatus());
+        assertEquals(Document.ProcessingStatus.COMPLETED, document.getStatus());
+        assertEquals("done", document.getProcessingNotes());
+        verify(dynamoDbClient, times(1)).getItem(any(GetItemRequest.class));
+    }
+
+    @Test
+    void getDocument_ShouldReadDynamoDB_AfterDocumentIsDeleted() {
+        // Given
+        when(dynamoDbClient.getItem(any(GetItemRequest.class)))
+                .thenReturn(GetItemResponse.builder().item(item("doc-1")).build())
+                .thenReturn(GetItemResponse.builder().build());
+        when(dynamoDbClient.deleteItem(any(DeleteItemRequest.class)))
+                .thenReturn(DeleteItemResponse.builder().build());
+        dynamoDBService.getDocument("doc-1");
+
+        // When
+        dynamoDBService.deleteDocument("doc-1");
+
+        // Then
+        assertNull(dynamoDBService.getDocument("doc-1"));
+        verify(dynamoDbClient, times(2)).getItem(any(GetItemRequest.class));
+    }
+
+    @Test
+    void getDocument_ShouldProjectRequestedFields_AndDecodeOnlyThose() {
+        // Given
+        when(dynamoDbClient.getItem(any(GetItemRequest.class)))
+                .thenReturn(GetItemResponse.builder().item(Map.of(
+                        "documentId", AttributeValue.builder().s("doc-1").build(),
+                        "status", AttributeValue.builder().s("PROCESSING").build()
+                )).build());
+
+        // When
+        Document document = dynamoDBService.getDocument("doc-1", DocumentFields.parse("status"));
+
+        // Then
+        assertEquals("doc-1", document.getDocumentId());
+        assertEquals(Document.ProcessingStatus.PROCESSING, document.getStatus());
+        assertNull(document.getFileName());
+
+        ArgumentCaptor<GetItemRequest> request = ArgumentCaptor.forClass(GetItemRequest.class);
+        verify(dynamoDbClient).getItem(request.capture());
+        assertEquals("#documentId, #status", request.getValue().projectionExpression());
+        assertEquals("status", request.getValue().expressionAttributeNames().get("#status"));
+
+        // Partial items stay out of the cache
+        assertNull(metadataCache.getIfPresent("doc-1"));
+    }
+
+    @Test
+    void getDocument_ShouldServeProjectedRead_FromCachedItem() {
+        // Given
+        metadataCache.put("doc-1", item("doc-1"));
+
+        // When
+        Document document = dynamoDBService.getDocument("doc-1", DocumentFields.STATUS);
+
+        // Then
+        assertEquals(Document.ProcessingStatus.UPLOADED, document.getStatus());
+        assertEquals("test.txt", document.getFileName());
+        assertNull(document.getS3Key());
+        verify(dynamoDbClient, never()).getItem(any(GetItemRequest.class));
+    }
+
+    @Test
+    void getDocuments_ShouldBatchInChunksOf100_RetryUnprocessedKeys_AndReportMissing() {
+        // Given: 250 IDs, one already cached, "doc-missing" does not exist
+        metadataCache.put("doc-0", item("doc-0"));
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            ids.add("doc-" + i);
+        }
+        ids.add("doc-missing");
+
+        Set<String> throttledOnce = ConcurrentHashMap.newKeySet();
+        when(dynamoDbClient.batchGetItem(any(BatchGetItemRequest.class))).thenAnswer(invocation -> {
+            BatchGetItemRequest request = invocation.getArgument(0);
+            KeysAndAttributes keys = request.requestItems().get("test-table");
+            List<Map<String, AttributeValue>> found = new ArrayList<>();
+            List<Map<String, AttributeValue>> unprocessed = new ArrayList<>();
+            for (Map<String, AttributeValue> key : keys.keys()) {
+                String id = key.get("documentId").s();
+                if (id.equals("doc-7") && throttledOnce.add(id)) {
+                    unprocessed.add(key);
+                } else if (!id.equals("doc-missing")) {
+                    found.add(item(id));
+                }
+            }
+            BatchGetItemResponse.Builder response = BatchGetItemResponse.builder()
+                    .responses(Map.of("test-table", found));
+            if (!unprocessed.isEmpty()) {
+                response.unprocessedKeys(Map.of("test-table", keys.toBuilder().keys(unprocessed).build()));
+            }
+            return response.build();
+        });
+
+        // When
+        DocumentLookup lookup = dynamoDBService.getDocuments(ids, null);
+
+        // Then
+        assertEquals(250, lookup.documents().size());
+        assertEquals("doc-0", lookup.documents().get(0).getDocumentId());
+        assertEquals(List.of("doc-missing"), lookup.missing());
+
+        ArgumentCaptor<BatchGetItemRequest> requests = ArgumentCaptor.forClass(BatchGetItemRequest.class);
+        // 250 uncached keys: chunks of 100, 100 and 50, plus one retry
+        verify(dynamoDbClient, times(4)).batchGetItem(requests.capture());
+        KeysAndAttributes first = requests.getAllValues().get(0).requestItems().get("test-table");
+        assertTrue(first.keys().size() <= 100);
+        assertTrue(first.projectionExpression().contains("#status"));
+        verify(dynamoDbClient, never()).getItem(any(GetItemRequest.class));
+    }
+
+    @Test
+    void saveDocuments_ShouldWriteInChunksOf25_AndRetryUnprocessedItems() {
+        // Given
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            documents.add(new Document("doc" + i + ".txt", "text/plain", 10, "test-bucket", "key" + i));
+        }
+
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenAnswer(invocation -> {
+                    BatchWriteItemRequest request = invocation.getArgument(0);
+                    List<WriteRequest> writes = request.requestItems().values().iterator().next();
+                    // Throttle the last item of the first full chunk once
+                    if (writes.size() == 25) {
+                        return BatchWriteItemResponse.builder()
+                                .unprocessedItems(Map.of("test-table", List.of(writes.get(24))))
+                                .build();
+                    }
+                    return BatchWriteItemResponse.builder().unprocessedItems(Map.of()).build();
+                });
+
+        // When
+        List<Document> saved = dynamoDBService.saveDocuments(documents);
+
+        // Then
+        assertEquals(30, saved.size());
+        assertTrue(saved.stream().allMatch(document -> document.getDocumentId() != null));
+        // 25-item chunk, its single-item retry, and the 5-item chunk
+        verify(dynamoDbClient, times(3)).batchWriteItem(any(BatchWriteItemRequest.class));
+        verify(dynamoDbClient, never()).putItem(any(PutItemRequest.class));
+    }
+
+    @Test
+    void listDocuments_ShouldReturnCursor_ThatContinuesFromLastEvaluatedKey() {
+        // Given
+        when(dynamoDbClient.scan(any(ScanRequest.class)))
+                .thenReturn(ScanResponse.builder()
+                        .items(List.of(item("doc-1"), item("doc-2")))
+                        .count(2)
+                        .lastEvaluatedKey(Map.of("documentId", AttributeValue.builder().s("doc-2").build()))
+                        .build())
+                .thenReturn(ScanResponse.builder().items(List.of(item("doc-3"))).count(1).build());
+
+        // When
+        DocumentPage first = dynamoDBService.listDocuments(2, null, null);
+        DocumentPage second = dynamoDBService.listDocuments(2, first.nextCursor(), null);
+
+        // Then
+        assertEquals(2, first.documents().size());
+        assertNotNull(first.nextCursor());
+        assertEquals(1, second.documents().size());
+        assertNull(second.nextCursor());
+
+        ArgumentCaptor<ScanRequest> requests = ArgumentCaptor.forClass(ScanRequest.class);
+        verify(dynamoDbClient, times(2)).scan(requests.capture());
+        assertEquals(2, requests.getAllValues().get(0).limit());
+        assertEquals("doc-2", requests.getAllValues().get(1).exclusiveStartKey().get("documentId").s());
+    }
+
+    @Test
+    void listDocuments_ShouldRejectMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> dynamoDBService.listDocuments(10, "not a cursor", null));
+        verify(dynamoDbClient, never()).scan(any(ScanRequest.class));
+    }
+
+    @Test
+    void queryDocumentsByStatus_ShouldQueryStatusIndex_WithTimeBoundsAndCursor() {
+        // Given
+        when(dynamoDbClient.query(any(QueryRequest.class)))
+                .thenReturn(QueryResponse.builder()
+                        .items(List.of(item("doc-1")))
+                        .lastEvaluatedKey(Map.of(
+                                "documentId", AttributeValue.builder().s("doc-1").build(),
+                                "status", AttributeValue.builder().s("UPLOADED").build(),
+                                "uploadedAt", AttributeValue.builder().s("2025-01-01T10:30:00").build()))
+                        .build());
+
+        // When
+        DocumentPage page = dynamoDBService.queryDocumentsByStatus(Document.ProcessingStatus.FAILED,
+                LocalDateTime.of(2025, 1, 1, 10, 0), null, 1, null, null);
+
+        // Then
+        assertEquals(1, page.documents().size());
+        assertEquals("UPLOADED", PageCursor.decode(page.nextCursor()).get("status").s());
+
+        ArgumentCaptor<QueryRequest> request = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(dynamoDbClient).query(request.capture());
+        assertEquals("status-uploadedAt-index", request.getValue().indexName());
+        assertEquals("#status = :status AND uploadedAt >= :since", request.getValue().keyConditionExpression());
+        assertEquals("FAILED", request.getValue().expressionAttributeValues().get(":status").s());
+        assertEquals("2025-01-01T10:00:00", request.getValue().expressionAttributeValues().get(":since").s());
+        assertFalse(request.getValue().scanIndexForward());
+        verify(dynamoDbClient, never()).scan(any(ScanRequest.class));
+    }
+
+    @Test
+    void scanDocuments_ShouldStreamEverySegment_ThroughSmallBuffer() {
+        // Given: 4 segments of 50 items each, funnelled through a 10 item queue
+        ReflectionTestUtils.setField(dynamoDBService, "scanBufferSize", 10);
+        when(dynamoDbClient.scanPaginator(any(ScanRequest.class)))
+                .thenAnswer(invocation -> new ScanIterable(dynamoDbClient, invocation.getArgument(0)));
+        when(dynamoDbClient.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            List<Map<String, AttributeValue>> items = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                items.add(item("segment" + request.segment() + "-doc" + i));
+            }
+            return ScanResponse.builder().items(items).count(items.size()).build();
+        });
+
+        // When
+        Set<String> documentIds;
+        try (Stream<Document> documents = dynamoDBService.scanDocuments()) {
+            documentIds = documents.map(Document::getDocumentId).collect(Collectors.toSet());
+        }
+
+        // Then
+        assertEquals(200, documentIds.size());
+        verify(dynamoDbClient, times(4)).scan(any(ScanRequest.class));
+    }
+
+    @Test
+    void scanDocuments_ShouldFail_WhenSegmentThrowsError() {
+        // Given: one segment dies with an Error rather than a RuntimeException
+        when(dynamoDbClient.scanPaginator(any(ScanRequest.class)))
+                .thenAnswer(invocation -> new ScanIterable(dynamoDbClient, invocation.getArgument(0)));
+        when(dynamoDbClient.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            if (request.segment() == 2) {
+                throw new NoClassDefFoundError("software/amazon/awssdk/Missing");
+            }
+            return ScanResponse.builder().items(List.of(item("segment" + request.segment()))).count(1).build();
+        });
+
+        // When & Then: the consumer gets the failure instead of waiting for the segment forever
+        RuntimeException exception = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(
+                RuntimeException.class, () -> {
+                    try (Stream<Document> documents = dynamoDBService.scanDocuments()) {
+                        documents.forEach(document -> { });
+                    }
+                }));
+        assertInstanceOf(NoClassDefFoundError.class, exception.getCause());
+    }
+
+    @Test
+    void updateDocumentStatus_ShouldUpdateConditionally_AndMoveStatusCounters() {
+        // Given
+        Map<String, AttributeValue> processing = new HashMap<>(item("doc-1"));
+        processing.put("status", AttributeValue.builder().s("PROCESSING").build());
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(UpdateItemResponse.builder().attributes(processing).build())
+                .thenReturn(UpdateItemResponse.builder().build());
+
+        // When
+        Document document = dynamoDBService.updateDocumentStatus("doc-1",
+                Document.ProcessingStatus.UPLOADED, Document.ProcessingStatus.PROCESSING, null);
+
+        // Then
+        assertEquals(Document.ProcessingStatus.PROCESSING, document.getStatus());
+        ArgumentCaptor<UpdateItemRequest> requests = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient, times(2)).updateItem(requests.capture());
+        UpdateItemRequest statusUpdate = requests.getAllValues().get(0);
+        assertEquals("#status = :expected", statusUpdate.conditionExpression());
+        assertEquals("UPLOADED", statusUpdate.expressionAttributeValues().get(":expected").s());
+        assertEquals(ReturnValue.ALL_NEW, statusUpdate.returnValues());
+        UpdateItemRequest counterUpdate = requests.getAllValues().get(1);
+        assertTrue(counterUpdate.updateExpression().startsWith("ADD "));
+        assertEquals("-1", counterUpdate.expressionAttributeValues().get(":UPLOADED").n());
+        assertEquals("1", counterUpdate.expressionAttributeValues().get(":PROCESSING").n());
+        assertFalse(counterUpdate.expressionAttributeValues().containsKey(":totalSize"));
+    }
+
+    @Test
+    void updateDocumentStatus_ShouldRejectTransition_WhenStatusAlreadyMovedOn() {
+        // Given
+        Map<String, AttributeValue> completed = new HashMap<>(item("doc-1"));
+        completed.put("status", AttributeValue.builder().s("COMPLETED").build());
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("The conditional request failed")
+                        .item(completed).build());
+
+        // When
+        StatusTransitionException exception = assertThrows(StatusTransitionException.class, () ->
+                dynamoDBService.updateDocumentStatus("doc-1",
+                        Document.ProcessingStatus.UPLOADED, Document.ProcessingStatus.PROCESSING, null));
+
+        // Then: no counter update for a rejected transition
+        assertEquals(Document.ProcessingStatus.COMPLETED, exception.getActualStatus());
+        verify(dynamoDbClient, times(1)).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    void deleteDocument_ShouldDecrementCounters_FromDeletedItem() {
+        // Given
+        when(dynamoDbClient.deleteItem(any(DeleteItemRequest.class)))
+                .thenReturn(DeleteItemResponse.builder().attributes(item("doc-1")).build());
+
+        // When
+        dynamoDBService.deleteDocument("doc-1");
+
+        // Then
+        ArgumentCaptor<UpdateItemRequest> counterUpdate = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient).updateItem(counterUpdate.capture());
+        assertEquals("-1", counterUpdate.getValue().expressionAttributeValues().get(":UPLOADED").n());
+        assertEquals("-1024", counterUpdate.getValue().expressionAttributeValues().get(":totalSize").n());
+    }
+
+    @Test
+    void getProcessingCounters_ShouldReadStatsItem() {
+        // Given
+        when(dynamoDbClient.getItem(any(GetItemRequest.class)))
+                .thenReturn(GetItemResponse.builder().item(Map.of(
+                        "statsId", AttributeValue.builder().s("documents").build(),
+                        "UPLOADED", AttributeValue.builder().n("3").build(),
+                        "COMPLETED", AttributeValue.builder().n("5").build(),
+                        "totalSize", AttributeValue.builder().n("4096").build()
+                )).build());
+
+        // When
+        DynamoDBService.ProcessingCounters counters = dynamoDBService.getProcessingCounters();
+
+        // Then
+        assertEquals(8, counters.total());
+        assertEquals(3, counters.count(Document.ProcessingStatus.UPLOADED));
+        assertEquals(0, counters.count(Document.ProcessingStatus.FAILED));
+        assertEquals(4096, counters.totalSize());
+        verify(dynamoDbClient, never()).scan(any(ScanRequest.class));
+    }
+
+    private static Map<String, AttributeValue> item(String documentId) {
+        return Map.of(
+                "documentId", AttributeValue.builder().s(documentId).build(),
+                "fileName", AttributeValue.builder().s("test.txt").build(),
+                "contentType", AttributeValue.builder().s("text/plain").build(),
+                "fileSize", AttributeValue.builder().n("1024").build(),
+                "s3Key", AttributeValue.builder().s("test-key").build(),
+                "s3Bucket", AttributeValue.builder().s("test-bucket").build(),
+                "status", AttributeValue.builder().s("UPLOADED").build()
+        );
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.Doc_Ohpp.service;
+
+import org.mockito.Mockito;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * In-memory S3 stand-in for tests. Every request pays a fixed latency, and the most part
+ * uploads ever in flight at once is recorded, so concurrency can be asserted without timing.
+ */
+class InMemoryS3 {
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListMap<Integer, byte[]>> pendingUploads = new ConcurrentHashMap<>();
+    private final Duration latency;
+    private volatile IntUnaryOperator failStatus = partNumber -> 0;
+    private final AtomicInteger partsInFlight = new AtomicInteger();
+    private final AtomicInteger maxPartsInFlight = new AtomicInteger();
+    private final Set<String> abortedUploads = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger partsAfterAbort = new AtomicInteger();
+
+    InMemoryS3(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Make uploadPart fail for the part numbers accepted by the predicate.
+     */
+    void failPartsWhen(IntPredicate failPart) {
+        failPartsWhen(failPart, 500);
+    }
+
+    /**
+     * Make uploadPart fail with the given HTTP status for the part numbers accepted by the predicate.
+     */
+    void failPartsWhen(IntPredicate failPart, int statusCode) {
+        failPartsWith(partNumber -> failPart.test(partNumber) ? statusCode : 0);
+    }
+
+    /**
+     * Make uploadPart fail with the HTTP status the function returns for a part number, or succeed when it returns 0.
+     */
+    void failPartsWith(IntUnaryOperator failStatus) {
+        this.failStatus = failStatus;
+    }
+
+    /**
+     * @return The most part uploads that were in flight at the same time
+     */
+    int maxPartsInFlight() {
+        return maxPartsInFlight.get();
+    }
+
+    /**
+     * @return How many part uploads were sent for an upload that had already been aborted
+     */
+    int partsAfterAbort() {
+        return partsAfterAbort.get();
+    }
+
+    byte[] getObject(String key) {
+        return objects.get(key);
+    }
+
+    int pendingUploadCount() {
+        return pendingUploads.size();
+    }
+
+    S3Client client() {
+        S3Client client = Mockito.mock(S3Client.class);
+
+        Mockito.when(client.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            PutObjectRequest request = invocation.getArgument(0);
+            objects.put(request.key(), read(invocation.getArgument(1)));
+            pause();
+            return PutObjectResponse.builder().eTag(UUID.randomUUID().toString()).build();
+        });
+
+        Mockito.when(client.createMultipartUpload(any(CreateMultipartUploadRequest.class))).thenAnswer(invocation -> {
+            String uploadId = UUID.randomUUID().toString();
+            pendingUploads.put(uploadId, new ConcurrentSkipListMap<>());
+            pause();
+            return CreateMultipartUploadResponse.builder().uploadId(uploadId).build();
+        });
+
+        Mockito.when(client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            if (abortedUploads.contains(request.uploadId())) {
+                partsAfterAbort.incrementAndGet();
+            }
+            maxPartsInFlight.accumulateAndGet(partsInFlight.incrementAndGet(), Math::max);
+            try {
+                pause();
+            } finally {
+                partsInFlight.decrementAndGet();
+            }
+            int statusCode = failStatus.applyAsInt(request.partNumber());
+            if (statusCode != 0) {
+                throw S3Exception.builder().message("Simulated part failure").statusCode(statusCode).build();
+            }
+            Map<Integer, byte[]> parts = pendingUploads.get(request.uploadId());
+            if (parts == null) {
+                throw NoSuchUploadException.builder().message("No such upload").build();
+            }
+            parts.put(request.partNumber(), read(invocation.getArgument(1)));
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        });
+
+        Mockito.when(client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class))).thenAnswer(invocation -> {
+            CompleteMultipartUploadRequest request = invocation.getArgument(0);
+            ConcurrentSkipListMap<Integer, byte[]> parts = pendingUploads.remove(request.uploadId());
+            ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+            request.multipartUpload().parts().stream()
+                    .sorted(Comparator.comparing(CompletedPart::partNumber))
+                    .forEach(part -> assembled.writeBytes(parts.get(part.partNumber())));
+            objects.put(request.key(), assembled.toByteArray());
+            pause();
+            return CompleteMultipartUploadResponse.builder().key(request.key()).build();
+        });
+
+        Mockito.when(client.abortMultipartUpload(any(AbortMultipartUploadRequest.class))).thenAnswer(invocation -> {
+            AbortMultipartUploadRequest request = invocation.getArgument(0);
+            pendingUploads.remove(request.uploadId());
+            abortedUploads.add(request.uploadId());
+            return AbortMultipartUploadResponse.builder().build();
+        });
+
+        return client;
+    }
+
+    private void pause() throws InterruptedException {
+        if (!latency.isZero()) {
+            Thread.sleep(latency.toMillis());
+        }
+    }
+
+    private static byte[] read(RequestBody body) {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.Doc_Ohpp.service;
+
+import com.example.Doc_Ohpp.model.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessingJobQueueTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private ProcessingJobQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new ProcessingJobQueue(4, Duration.ofSeconds(30), clock::get);
+    }
+
+    @Test
+    void poll_ShouldServeHigherLanesFirst_AndShortestJobWithinLane() {
+        // Given
+        queue.offer(job("low", Document.ProcessingPriority.LOW, 2000));
+        queue.offer(job("normal-long", Document.ProcessingPriority.NORMAL, 9000));
+        queue.offer(job("normal-short", Document.ProcessingPriority.NORMAL, 3000));
+        queue.offer(job("high", Document.ProcessingPriority.HIGH, 2200));
+
+        // When
+        List<String> order = drainOrder();
+
+        // Then
+        assertEquals(List.of("high", "normal-short", "normal-long", "low"), order);
+    }
+
+    @Test
+    void poll_ShouldServeJobFirst_WhenItWaitedPastMaxWait() {
+        // Given
+        queue.offer(job("low", Document.ProcessingPriority.LOW, 10000));
+        clock.addAndGet(Duration.ofSeconds(20).toNanos());
+        queue.offer(job("high", Document.ProcessingPriority.HIGH, 2000));
+
+        // When: the low priority job has waited 30 seconds
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        List<String> order = drainOrder();
+
+        // Then
+        assertEquals(List.of("low", "high"), order);
+    }
+
+    @Test
+    void poll_ShouldServePlainTasksBeforeJobs() {
+        // Given
+        queue.offer(job("high", Document.ProcessingPriority.HIGH, 2000));
+        Runnable continuation = () -> { };
+        queue.offer(continuation);
+
+        // When & Then
+        assertSame(continuation, queue.poll());
+        assertEquals("high", ((ProcessingJob) queue.poll()).documentId());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void offer_ShouldRefuse_WhenCapacityIsReached() {
+        // Given
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(job("doc-" + i, Document.ProcessingPriority.NORMAL, 2000)));
+        }
+
+        // When
+        boolean accepted = queue.offer(job("doc-4", Document.ProcessingPriority.HIGH, 2000));
+
+        // Then
+        assertFalse(accepted);
+        assertEquals(0, queue.remainingCapacity());
+        assertEquals(4, queue.size(Document.ProcessingPriority.NORMAL));
+    }
+
+    @Test
+    void remove_ShouldDropJobFromItsLane() {
+        // Given
+        ProcessingJob job = job("doc-1", Document.ProcessingPriority.LOW, 2000);
+        queue.offer(job);
+
+        // When
+        boolean removed = queue.remove(job);
+
+        // Then
+        assertTrue(removed);
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+    }
+
+    private List<String> drainOrder() {
+        List<Runnable> drained = new ArrayList<>();
+        queue.drainTo(drained);
+        return drained.stream().map(task -> ((ProcessingJob) task).documentId()).toList();
+    }
+
+    private static ProcessingJob job(String documentId, Document.ProcessingPriority lane, long estimatedMillis) {
+        return new ProcessingJob(documentId, lane, estimatedMillis, () -> { });
+    }
+}
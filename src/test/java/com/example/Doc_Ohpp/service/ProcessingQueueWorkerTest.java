@@ -0,0 +1,141 @@
+package com.example.Doc_Ohpp.service;
+
+import com.example.Doc_Ohpp.model.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessingQueueWorkerTest {
+
+    @Mock
+    private SQSService sqsService;
+
+    @Mock
+    private DocumentProcessingService documentProcessingService;
+
+    private ProcessingQueueWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        worker = new ProcessingQueueWorker(sqsService, documentProcessingService, 1, 4,
+                Duration.ofSeconds(60), Duration.ofSeconds(1));
+    }
+
+    @Test
+    void dispatch_ShouldDeleteMessage_AfterProcessingSucceeds() {
+        // Given
+        Message message = message("DOCUMENT_UPLOADED", "1");
+        when(documentProcessingService.processDocumentAsync(argThat((Document document) -> "doc-1".equals(document.getDocumentId())), eq(false)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        worker.dispatch(message);
+
+        // Then
+        verify(sqsService).deleteProcessingMessage(message);
+    }
+
+    @Test
+    void dispatch_ShouldLeaveMessageForRedelivery_WhenOutcomeIsNotRecorded() {
+        // Given
+        Message message = message("DOCUMENT_UPLOADED", "1");
+        when(documentProcessingService.processDocumentAsync(argThat((Document document) -> "doc-1".equals(document.getDocumentId())), eq(false)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Failed to update document status")));
+
+        // When
+        worker.dispatch(message);
+
+        // Then
+        verify(sqsService, never()).deleteProcessingMessage(any());
+    }
+
+    @Test
+    void dispatch_ShouldResumeProcessing_WhenMessageIsRedelivered() {
+        // Given
+        Message message = message("DOCUMENT_UPLOADED", "2");
+        when(documentProcessingService.processDocumentAsync(argThat((Document document) -> "doc-1".equals(document.getDocumentId())), eq(true)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        worker.dispatch(message);
+
+        // Then
+        verify(documentProcessingService).processDocumentAsync(argThat((Document document) -> "doc-1".equals(document.getDocumentId())), eq(true));
+        verify(sqsService).deleteProcessingMessage(message);
+    }
+
+    @Test
+    void dispatch_ShouldDiscardUnexpectedMessages_WithoutProcessing() {
+        // Given
+        Message message = message("PROCESSING_COMPLETED", "1");
+
+        // When
+        worker.dispatch(message);
+
+        // Then
+        verify(sqsService).deleteProcessingMessage(message);
+        verify(documentProcessingService, never()).processDocumentAsync(any(Document.class), anyBoolean());
+    }
+
+    @Test
+    void dispatch_ShouldScheduleByUploadEvent() {
+        // Given
+        Message message = Message.builder()
+                .messageId("msg-1")
+                .receiptHandle("receipt-1")
+                .body("{\"eventType\":\"DOCUMENT_UPLOADED\",\"documentId\":\"doc-1\","
+                        + "\"contentType\":\"text/plain\",\"fileSize\":1200,\"priority\":\"LOW\"}")
+                .attributes(Map.of(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT, "1"))
+                .build();
+        when(documentProcessingService.processDocumentAsync(any(Document.class), eq(false)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        worker.dispatch(message);
+
+        // Then
+        ArgumentCaptor<Document> document = ArgumentCaptor.forClass(Document.class);
+        verify(documentProcessingService).processDocumentAsync(document.capture(), eq(false));
+        assertEquals("text/plain", document.getValue().getContentType());
+        assertEquals(1200, document.getValue().getFileSize());
+        assertEquals(Document.ProcessingPriority.LOW, document.getValue().getPriority());
+    }
+
+    @Test
+    void start_ShouldNotPoll_WithoutProcessingQueue() {
+        // Given
+        when(sqsService.isProcessingQueueAvailable()).thenReturn(false);
+
+        // When
+        worker.start();
+        worker.stop();
+
+        // Then
+        verify(sqsService, never()).receiveProcessingMessages(anyInt(), any(), any());
+    }
+
+    private static Message message(String eventType, String receiveCount) {
+        return Message.builder()
+                .messageId("msg-" + eventType)
+                .receiptHandle("receipt-" + eventType)
+                .body("{\"eventType\":\"" + eventType + "\",\"documentId\":\"doc-1\"}")
+                .attributes(Map.of(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT, receiveCount))
+                .build();
+    }
+}
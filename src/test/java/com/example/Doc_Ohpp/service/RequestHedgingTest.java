@@ -0,0 +1,167 @@
+package com.example.Doc_Ohpp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestHedgingTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RequestHedging hedging;
+
+    @AfterEach
+    void tearDown() {
+        hedging.shutdown();
+    }
+
+    @Test
+    void call_ShouldReturnHedgedResult_WhenFirstAttemptIsSlow() throws Exception {
+        // Given: fast reads set the hedging delay to the 5ms floor
+        hedging = new RequestHedging(meterRegistry, true, 95, 1.0, Duration.ofMillis(5), Duration.ofSeconds(1));
+        RequestHedging.Hedger hedger = hedging.hedger("test.read");
+        warmUp(hedger);
+        assertEquals(Duration.ofMillis(5), hedger.delay());
+
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+        List<String> discarded = new ArrayList<>();
+        CountDownLatch discardedLatch = new CountDownLatch(1);
+
+        // When: the first attempt hangs until released, the second answers right away
+        String result = hedger.call(() -> {
+            if (attempts.getAndIncrement() == 0) {
+                awaitQuietly(release);
+                return "slow";
+            }
+            return "fast";
+        }, value -> {
+            discarded.add(value);
+            discardedLatch.countDown();
+        });
+        release.countDown();
+
+        // Then
+        assertEquals("fast", result);
+        assertTrue(discardedLatch.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of("slow"), discarded);
+        assertEquals(1.0, meterRegistry.get("aws.hedging.hedges").tag("operation", "test.read").counter().count());
+        assertEquals(1.0, meterRegistry.get("aws.hedging.wins").tag("operation", "test.read").counter().count());
+        assertEquals(1.0, meterRegistry.get("aws.hedging.win.rate").tag("operation", "test.read").gauge().value());
+    }
+
+    @Test
+    void call_ShouldStayWithinBudget_WhenEveryReadIsSlow() {
+        // Given: hedges for 5% of reads; warming up saves 5 of them. The delay is capped well
+        // below the slow reads, so every one of them is due a hedge.
+        hedging = new RequestHedging(meterRegistry, true, 95, 0.05, Duration.ofMillis(1), Duration.ofMillis(2));
+        RequestHedging.Hedger hedger = hedging.hedger("test.read");
+        warmUp(hedger);
+
+        // When
+        for (int i = 0; i < 40; i++) {
+            hedger.call(() -> {
+                sleepQuietly(10);
+                return "slow";
+            });
+        }
+
+        // Then: 5 saved + 40 * 0.05 earned
+        double hedges = meterRegistry.get("aws.hedging.hedges").counter().count();
+        assertEquals(7.0, hedges);
+        assertEquals(33.0, meterRegistry.get("aws.hedging.throttled").counter().count());
+    }
+
+    @Test
+    void call_ShouldRethrowFailure_WithoutHedging() {
+        // Given
+        hedging = new RequestHedging(meterRegistry, true, 95, 1.0, Duration.ofMillis(5), Duration.ofSeconds(1));
+        RequestHedging.Hedger hedger = hedging.hedger("test.read");
+        warmUp(hedger);
+
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> hedger.call(() -> {
+            throw new IllegalStateException("Throttled");
+        }));
+        assertEquals("Throttled", exception.getMessage());
+        assertEquals(0.0, meterRegistry.get("aws.hedging.hedges").counter().count());
+    }
+
+    @Test
+    void call_ShouldNotHedge_OnceFirstAttemptHasFailed() {
+        // Given: the first attempt fails right around the 5ms hedging delay, a hedge would succeed
+        hedging = new RequestHedging(meterRegistry, true, 95, 1.0, Duration.ofMillis(5), Duration.ofSeconds(1));
+        RequestHedging.Hedger hedger = hedging.hedger("test.read");
+        warmUp(hedger);
+        List<String> discarded = Collections.synchronizedList(new ArrayList<>());
+
+        // When
+        int failures = 0;
+        for (int i = 0; i < 100; i++) {
+            AtomicInteger attempts = new AtomicInteger();
+            try {
+                assertEquals("hedge", hedger.call(() -> {
+                    if (attempts.getAndIncrement() == 0) {
+                        sleepQuietly(5);
+                        throw new IllegalStateException("Throttled");
+                    }
+                    return "hedge";
+                }, discarded::add));
+            } catch (IllegalStateException e) {
+                failures++;
+            }
+        }
+        sleepQuietly(50);
+
+        // Then: a hedge is either awaited or never sent, so none is thrown away, and only the
+        // hedges that ran were paid for
+        assertEquals(List.of(), discarded);
+        assertEquals(100.0 - failures, meterRegistry.get("aws.hedging.hedges").counter().count());
+    }
+
+    @Test
+    void call_ShouldRunOnCallersThread_WhenDisabled() {
+        // Given
+        hedging = RequestHedging.disabled();
+        RequestHedging.Hedger hedger = hedging.hedger("test.read");
+
+        // When
+        Thread thread = hedger.call(Thread::currentThread);
+
+        // Then
+        assertSame(Thread.currentThread(), thread);
+        assertNull(hedger.delay());
+        assertTrue(meterRegistry.getMeters().isEmpty());
+    }
+
+    private static void warmUp(RequestHedging.Hedger hedger) {
+        for (int i = 0; i < RequestHedging.MIN_SAMPLES; i++) {
+            hedger.call(() -> "fast");
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.Doc_Ohpp.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class S3MultipartUploadTest {
+
+    private static final int PART_SIZE = 64 * 1024;
+    private static final int PART_COUNT = 12;
+
+    @Test
+    void uploadDocument_ShouldUseSinglePut_WhenBelowThreshold() {
+        InMemoryS3 s3 = new InMemoryS3(Duration.ZERO);
+        S3Client client = s3.client();
+        S3Service s3Service = newS3Service(client, 4);
+        byte[] content = randomBytes(PART_SIZE);
+
+        String s3Key = s3Service.uploadDocument("small.bin", "application/pdf", new ByteArrayInputStream(content), content.length);
+
+        assertArrayEquals(content, s3.getObject(s3Key));
+        verify(client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(client, never()).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    void uploadDocument_ShouldAssemblePartsInOrder_WhenLengthUnknown() {
+        InMemoryS3 s3 = new InMemoryS3(Duration.ZERO);
+        S3Client client = s3.client();
+        S3Service s3Service = newS3Service(client, 4);
+        byte[] content = randomBytes(PART_SIZE * PART_COUNT + 123);
+
+        String s3Key = s3Service.uploadDocument("scan.pdf", "application/pdf", new ByteArrayInputStream(content), -1);
+
+        assertArrayEquals(content, s3.getObject(s3Key));
+        verify(client, times(PART_COUNT + 1)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        verify(client).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void uploadDocument_ShouldUploadPartsConcurrently_UpToParallelism() {
+        byte[] content = randomBytes(PART_SIZE * PART_COUNT);
+        InMemoryS3 sequential = new InMemoryS3(Duration.ofMillis(20));
+        InMemoryS3 parallel = new InMemoryS3(Duration.ofMillis(20));
+
+        upload(newS3Service(sequential.client(), 1), content);
+        upload(newS3Service(parallel.client(), 6), content);
+
+        assertEquals(1, sequential.maxPartsInFlight());
+        assertTrue(parallel.maxPartsInFlight() > 1, "parts should be uploaded concurrently");
+        assertTrue(parallel.maxPartsInFlight() <= 6, "no more than parallelism parts should be in flight");
+    }
+
+    @Test
+    void uploadDocument_ShouldRetryFailedPart() {
+        InMemoryS3 s3 = new InMemoryS3(Duration.ZERO);
+        AtomicInteger partThreeAttempts = new AtomicInteger();
+        s3.failPartsWhen(partNumber -> partNumber == 3 && partThreeAttempts.getAndIncrement() == 0);
+        S3Client client = s3.client();
+        S3Service s3Service = newS3Service(client, 4);
+        byte[] content = randomBytes(PART_SIZE * 4);
+
+        String s3Key = s3Service.uploadDocument("retry.pdf", "application/pdf", new ByteArrayInputStream(content), content.length);
+
+        assertArrayEquals(content, s3.getObject(s3Key));
+        assertEquals(2, partThreeAttempts.get());
+        verify(client, times(5)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    void uploadDocument_ShouldNotRetryPart_WhenErrorIsNotRetryable() {
+        InMemoryS3 s3 = new InMemoryS3(Duration.ZERO);
+        AtomicInteger partTwoAttempts = new AtomicInteger();
+        s3.failPartsWhen(partNumber -> partNumber == 2 && partTwoAttempts.incrementAndGet() > 0, 403);
+        S3Service s3Service = newS3Service(s3.client(), 4);
+        byte[] content = randomBytes(PART_SIZE * 4);
+
+        assertThrows(RuntimeException.class, () ->
+                s3Service.uploadDocument("denied.pdf", "application/pdf", new ByteArrayInputStream(content), content.length));
+
+        assertEquals(1, partTwoAttempts.get());
+        assertEquals(0, s3.pendingUploadCount());
+    }
+
+    @Test
+    void uploadDocument_ShouldAbortUpload_WhenPartKeepsFailing() {
+        InMemoryS3 s3 = new InMemoryS3(Duration.ZERO);
+        s3.failPartsWhen(partNumber -> partNumber == 2);
+        S3Client client = s3.client();
+        S3Service s3Service = newS3Service(client, 4);
+        byte[] content = randomBytes(PART_SIZE * 4);
+
+        assertThrows(RuntimeException.class, () ->
+                s3Service.uploadDocument("broken.pdf", "application/pdf", new ByteArrayInputStream(content), content.length));
+
+        verify(client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        assertEquals(0, s3.pendingUploadCount());
+    }
+
+    @Test
+    void uploadDocument_ShouldStopOtherParts_BeforeAbortingUpload() throws InterruptedException {
+        InMemoryS3 s3 = new InMemoryS3(Duration.ofMillis(5));
+        AtomicInteger partThreeAttempts = new AtomicInteger();
+        s3.failPartsWith(partNumber -> switch (partNumber) {
+            case 2 -> 403;
+            case 3 -> partThreeAttempts.incrementAndGet() > 0 ? 500 : 0;
+            default -> 0;
+        });
+        S3Client client = s3.client();
+        S3Service s3Service = newS3Service(client, 4);
+        ReflectionTestUtils.setField(s3Service, "maxPartAttempts", 10);
+        byte[] content = randomBytes(PART_SIZE * 4);
+
+        assertThrows(RuntimeException.class, () ->
+                s3Service.uploadDocument("broken.pdf", "application/pdf", new ByteArrayInputStream(content), content.length));
+        // Long enough for part 3 to have retried past its first backoff had it not been stopped
+        Thread.sleep(300);
+
+        assertTrue(partThreeAttempts.get() < 10, "part 3 should stop retrying once part 2 failed the upload");
+        assertEquals(0, s3.partsAfterAbort());
+        assertEquals(0, s3.pendingUploadCount());
+    }
+
+    private static void upload(S3Service s3Service, byte[] content) {
+        s3Service.uploadDocument("parts.pdf", "application/pdf", new ByteArrayInputStream(content), content.length);
+    }
+
+    private static S3Service newS3Service(S3Client client, int parallelism) {
+        S3Service s3Service = new S3Service(client, RequestHedging.disabled());
+        ReflectionTestUtils.setField(s3Service, "bucketName", "test-bucket");
+        ReflectionTestUtils.setField(s3Service, "multipartThreshold", DataSize.ofBytes(PART_SIZE));
+        ReflectionTestUtils.setField(s3Service, "partSize", DataSize.ofBytes(PART_SIZE));
+        ReflectionTestUtils.setField(s3Service, "parallelism", parallelism);
+        return s3Service;
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -3,13 +3,20 @@ package com.example.Doc_Ohpp.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 
+import java.io.ByteArrayInputStream;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -24,7 +31,7 @@ public class S3ServiceTest {
 
     @BeforeEach
     void setUp() {
-        s3Service = new S3Service(s3Client);
+        s3Service = new S3Service(s3Client, RequestHedging.disabled());
     }
 
     @Test
@@ -56,4 +63,49 @@ public class S3ServiceTest {
             s3Service.uploadDocument(fileName, contentType, content);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void uploadDocument_ShouldStreamContentWithDeclaredLength() {
+        byte[] content = "Streamed content".getBytes();
+
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn(PutObjectResponse.builder().build());
+
+        String s3Key = s3Service.uploadDocument("stream.txt", "text/plain", new ByteArrayInputStream(content), content.length);
+
+        ArgumentCaptor<PutObjectRequest> requestCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        ArgumentCaptor<RequestBody> bodyCaptor = ArgumentCaptor.forClass(RequestBody.class);
+        verify(s3Client).putObject(requestCaptor.capture(), bodyCaptor.capture());
+
+        assertTrue(s3Key.endsWith("-stream.txt"));
+        assertEquals(content.length, requestCaptor.getValue().contentLength());
+        assertEquals(content.length, bodyCaptor.getValue().contentLength());
+    }
+
+    @Test
+    void openDocument_ShouldRequestByteRange_WhenRangeGiven() {
+        ResponseInputStream<GetObjectResponse> stream = new ResponseInputStream<>(
+                GetObjectResponse.builder().contentLength(100L).build(),
+                AbortableInputStream.create(new ByteArrayInputStream(new byte[100])));
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(stream);
+
+        s3Service.openDocument("documents/key", 100L, 199L);
+
+        ArgumentCaptor<GetObjectRequest> captor = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client).getObject(captor.capture());
+        assertEquals("bytes=100-199", captor.getValue().range());
+    }
+
+    @Test
+    void openDocument_ShouldRequestWholeObject_WhenNoRangeGiven() {
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(new ResponseInputStream<>(
+                GetObjectResponse.builder().build(),
+                AbortableInputStream.create(new ByteArrayInputStream(new byte[0]))));
+
+        s3Service.openDocument("documents/key", null, null);
+
+        ArgumentCaptor<GetObjectRequest> captor = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client).getObject(captor.capture());
+        assertNull(captor.getValue().range());
+    }
+}
@@ -4,11 +4,18 @@ import org.junit.jupiter.api.BeforeEach;
 import com.example.Doc_Ohpp.model.Document;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import software.amazon.awssdk.services.sqs.SqsClient;
 import software.amazon.awssdk.services.sqs.model.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -45,4 +52,89 @@ class SQSServiceTest {
         // Then
         verify(sqsClient, times(1)).sendMessage(any(SendMessageRequest.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void sendDocumentUploadedMessages_ShouldSendBatchesOfTen_AndRetryFailedEntries() {
+        // Given
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Document document = new Document("doc" + i + ".txt", "text/plain", 10, "test-bucket", "key" + i);
+            document.setDocumentId("id-" + i);
+            documents.add(document);
+        }
+        ReflectionTestUtils.setField(sqsService, "queueUrl", "https://sqs.eu-north-1.amazonaws.com/123456789/test-queue");
+
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(SendMessageBatchResponse.builder()
+                        .failed(BatchResultErrorEntry.builder().id("3").code("InternalError").senderFault(false).build())
+                        .build())
+                .thenReturn(SendMessageBatchResponse.builder().build());
+
+        // When
+        sqsService.sendDocumentUploadedMessages(documents);
+
+        // Then: first chunk of 10, retry of its failed entry, second chunk of 2
+        ArgumentCaptor<SendMessageBatchRequest> captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsClient, times(3)).sendMessageBatch(captor.capture());
+        assertEquals(10, captor.getAllValues().get(0).entries().size());
+        assertEquals(1, captor.getAllValues().get(1).entries().size());
+        assertEquals(2, captor.getAllValues().get(2).entries().size());
+        verify(sqsClient, never()).sendMessage(any(SendMessageRequest.class));
+    }
+
+    @Test
+    void sendDocumentForProcessing_ShouldSendRightAway_ToProcessingQueue() {
+        // Given: both queues are resolved and the event batcher is running
+        ReflectionTestUtils.setField(sqsService, "queueName", "test-queue");
+        ReflectionTestUtils.setField(sqsService, "processingQueueName", "test-processing-queue");
+        when(sqsClient.getQueueUrl(GetQueueUrlRequest.builder().queueName("test-processing-queue").build()))
+                .thenReturn(GetQueueUrlResponse.builder()
+                        .queueUrl("https://sqs.eu-north-1.amazonaws.com/123456789/test-processing-queue")
+                        .build());
+        ReflectionTestUtils.invokeMethod(sqsService, "initializeQueueUrl");
+        Document document = new Document("test.txt", "text/plain", 1024, "test-bucket", "test-key");
+        document.setDocumentId("test-id");
+        when(sqsClient.sendMessage(any(SendMessageRequest.class)))
+                .thenReturn(SendMessageResponse.builder().messageId("msg-123").build());
+
+        try {
+            // When
+            sqsService.sendDocumentForProcessing(document);
+
+            // Then: sent with its own call to the processing queue, not left in the batcher's buffer
+            ArgumentCaptor<SendMessageRequest> request = ArgumentCaptor.forClass(SendMessageRequest.class);
+            verify(sqsClient).sendMessage(request.capture());
+            assertEquals("https://sqs.eu-north-1.amazonaws.com/123456789/test-processing-queue",
+                    request.getValue().queueUrl());
+        } finally {
+            sqsService.shutdown();
+        }
+        verify(sqsClient, never()).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    void sendDocumentForProcessing_ShouldThrow_WhenSendFails() {
+        // Given
+        ReflectionTestUtils.setField(sqsService, "processingQueueUrl",
+                "https://sqs.eu-north-1.amazonaws.com/123456789/test-processing-queue");
+        Document document = new Document("test.txt", "text/plain", 1024, "test-bucket", "test-key");
+        document.setDocumentId("test-id");
+        when(sqsClient.sendMessage(any(SendMessageRequest.class)))
+                .thenThrow(SqsException.builder().message("Service unavailable").statusCode(503).build());
+
+        // When & Then
+        assertThrows(RuntimeException.class, () -> sqsService.sendDocumentForProcessing(document));
+    }
+
+    @Test
+    void sendDocumentForProcessing_ShouldThrow_WithoutProcessingQueue() {
+        // Given: only the event queue is configured
+        ReflectionTestUtils.setField(sqsService, "queueUrl", "https://sqs.eu-north-1.amazonaws.com/123456789/test-queue");
+        Document document = new Document("test.txt", "text/plain", 1024, "test-bucket", "test-key");
+        document.setDocumentId("test-id");
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> sqsService.sendDocumentForProcessing(document));
+        verify(sqsClient, never()).sendMessage(any(SendMessageRequest.class));
+    }
+}
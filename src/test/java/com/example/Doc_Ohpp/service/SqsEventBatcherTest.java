@@ -0,0 +1,203 @@
+package com.example.Doc_Ohpp.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqsEventBatcherTest {
+
+    private final List<List<Map<String, Object>>> sentBatches = new CopyOnWriteArrayList<>();
+    private SqsEventBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.close(Duration.ofSeconds(5));
+        }
+    }
+
+    @Test
+    void submit_ShouldSendFullBatchesOfTen() throws Exception {
+        // Given: a long linger, so only the size trigger can send
+        batcher = new SqsEventBatcher(recordingSender(), 100, Duration.ofMinutes(1),
+                SqsEventBatcher.OverflowPolicy.BLOCK, Duration.ofSeconds(1), 3, 1);
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            batcher.submit(message(i));
+        }
+
+        // Then
+        awaitSent(20);
+        assertEquals(2, sentBatches.size());
+        sentBatches.forEach(batch -> assertEquals(10, batch.size()));
+    }
+
+    @Test
+    void submit_ShouldSendPartialBatch_WhenLingerTimeIsUp() throws Exception {
+        // Given
+        batcher = new SqsEventBatcher(recordingSender(), 100, Duration.ofMillis(20),
+                SqsEventBatcher.OverflowPolicy.BLOCK, Duration.ofSeconds(1), 3, 1);
+
+        // When
+        batcher.submit(message(1));
+        batcher.submit(message(2));
+
+        // Then
+        awaitSent(2);
+        assertEquals(1, sentBatches.size());
+    }
+
+    @Test
+    void submit_ShouldRetryOnlyRejectedMessages() throws Exception {
+        // Given: the first call rejects the second message
+        AtomicInteger calls = new AtomicInteger();
+        batcher = new SqsEventBatcher(messages -> {
+            sentBatches.add(messages);
+            return calls.getAndIncrement() == 0 ? List.of(messages.get(1)) : Collections.emptyList();
+        }, 100, Duration.ofMillis(20), SqsEventBatcher.OverflowPolicy.BLOCK, Duration.ofSeconds(1), 3, 1);
+
+        // When
+        batcher.submit(message(1));
+        batcher.submit(message(2));
+
+        // Then
+        for (int i = 0; i < 100 && sentBatches.size() < 2; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, sentBatches.size());
+        assertEquals(List.of(message(2)), sentBatches.get(1));
+    }
+
+    @Test
+    void submit_ShouldDropMessages_WhenBufferIsFullAndPolicyIsDrop() throws Exception {
+        // Given: the flusher is stuck in its first send
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        batcher = new SqsEventBatcher(messages -> {
+            sending.countDown();
+            awaitQuietly(release);
+            return Collections.emptyList();
+        }, 2, Duration.ZERO, SqsEventBatcher.OverflowPolicy.DROP, Duration.ZERO, 1, 1);
+        batcher.submit(message(0));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        // When
+        for (int i = 1; i <= 5; i++) {
+            batcher.submit(message(i));
+        }
+
+        // Then
+        assertEquals(3, batcher.droppedCount());
+        release.countDown();
+    }
+
+    @Test
+    void offer_ShouldNeverWaitOrSend_WhenBufferIsFull() throws Exception {
+        // Given: the flusher is stuck in its first send, and the buffer fills up
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger sends = new AtomicInteger();
+        batcher = new SqsEventBatcher(messages -> {
+            sends.incrementAndGet();
+            sending.countDown();
+            awaitQuietly(release);
+            return Collections.emptyList();
+        }, 1, Duration.ZERO, SqsEventBatcher.OverflowPolicy.BLOCK, Duration.ofSeconds(5), 1, 1);
+        batcher.submit(message(0));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        assertTrue(batcher.offer(message(1)));
+
+        // When
+        long start = System.nanoTime();
+        boolean taken = batcher.offer(message(2));
+
+        // Then: dropped right away instead of waiting out the block timeout
+        assertTrue(taken);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1, batcher.droppedCount());
+        assertEquals(1, sends.get());
+        release.countDown();
+    }
+
+    @Test
+    void offer_ShouldLeaveMessageToCaller_WhenPolicyIsSendDirectOrClosed() throws Exception {
+        // Given: the flusher is stuck in its first send, and the buffer fills up
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger sends = new AtomicInteger();
+        batcher = new SqsEventBatcher(messages -> {
+            sends.incrementAndGet();
+            sending.countDown();
+            awaitQuietly(release);
+            return Collections.emptyList();
+        }, 1, Duration.ZERO, SqsEventBatcher.OverflowPolicy.SEND_DIRECT, Duration.ZERO, 1, 1);
+        batcher.submit(message(0));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        assertTrue(batcher.offer(message(1)));
+
+        // When & Then
+        assertFalse(batcher.offer(message(2)));
+        assertEquals(1, sends.get());
+        assertEquals(0, batcher.droppedCount());
+
+        release.countDown();
+        batcher.close(Duration.ofSeconds(5));
+        assertFalse(batcher.offer(message(3)));
+        batcher = null;
+    }
+
+    @Test
+    void close_ShouldSendBufferedMessages() {
+        // Given
+        batcher = new SqsEventBatcher(recordingSender(), 100, Duration.ofMinutes(1),
+                SqsEventBatcher.OverflowPolicy.BLOCK, Duration.ofSeconds(1), 3, 1);
+        for (int i = 0; i < 3; i++) {
+            batcher.submit(message(i));
+        }
+
+        // When
+        batcher.close(Duration.ofSeconds(5));
+
+        // Then
+        assertEquals(3, sentBatches.stream().mapToInt(List::size).sum());
+        batcher = null;
+    }
+
+    private SqsEventBatcher.BatchSender recordingSender() {
+        return messages -> {
+            sentBatches.add(new ArrayList<>(messages));
+            return Collections.emptyList();
+        };
+    }
+
+    private void awaitSent(int count) throws InterruptedException {
+        for (int i = 0; i < 100 && sentBatches.stream().mapToInt(List::size).sum() < count; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, sentBatches.stream().mapToInt(List::size).sum());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, Object> message(int i) {
+        return Map.of("eventType", "DOCUMENT_UPLOADED", "documentId", "doc-" + i);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.Doc_Ohpp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadPipelineTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolExecutor persistExecutor;
+    private UploadPipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        // Given: one persist worker, busy, and a queue of one, full
+        persistExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        pipeline = new UploadPipeline(new SimpleMeterRegistry(),
+                stage -> stage == UploadPipeline.Stage.PERSIST ? persistExecutor : Runnable::run);
+        CountDownLatch running = new CountDownLatch(1);
+        pipeline.background(UploadPipeline.Stage.PERSIST, () -> {
+            running.countDown();
+            awaitRelease();
+        });
+        pipeline.background(UploadPipeline.Stage.PERSIST, this::awaitRelease);
+        running.await();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        persistExecutor.shutdown();
+    }
+
+    @Test
+    void saturatedStage_ShouldNameStage_WhenWorkersAreBusyAndQueueIsFull() {
+        // When & Then
+        assertEquals(UploadPipeline.Stage.PERSIST, pipeline.saturatedStage());
+        assertThrows(RejectedExecutionException.class, () -> pipeline.await(UploadPipeline.Stage.PERSIST, () -> "saved"));
+
+        UploadStage.Stats persist = pipeline.stats().get(UploadPipeline.Stage.PERSIST.ordinal());
+        assertEquals("persist", persist.stage());
+        assertEquals(1, persist.active());
+        assertEquals(1, persist.queued());
+        assertEquals(1, persist.rejected());
+    }
+
+    @Test
+    void background_ShouldRunWorkOnCaller_WhenStageIsSaturated() {
+        // Given
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+
+        // When
+        pipeline.background(UploadPipeline.Stage.PERSIST, () -> ranOn.set(Thread.currentThread())).join();
+
+        // Then
+        assertSame(Thread.currentThread(), ranOn.get());
+    }
+
+    @Test
+    void await_ShouldRethrowFailureOfWork() {
+        // When & Then
+        IllegalArgumentException failure = assertThrows(IllegalArgumentException.class,
+                () -> pipeline.await(UploadPipeline.Stage.STORE, () -> {
+                    throw new IllegalArgumentException("File is empty");
+                }));
+        assertEquals("File is empty", failure.getMessage());
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}